@@ -19,11 +19,16 @@ import fr.uga.pddl4j.problem.operator.Action;
 import fr.uga.pddl4j.problem.operator.ConditionalEffect;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import jdk.jfr.FlightRecorder;
 import picocli.CommandLine;
 
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.PriorityQueue;
 import java.util.Set;
 
@@ -57,6 +62,81 @@ public class ASP extends AbstractPlanner {
      */
     private StateHeuristic.Name heuristic;
 
+    /**
+     * The directory of the instantiated problem cache (null if the cache is disabled).
+     */
+    private Path cacheDir;
+
+    /**
+     * Whether unreachable and irrelevant actions are pruned before the search.
+     */
+    private boolean pruning = true;
+
+    /**
+     * Whether the landmark-count heuristic is used instead of the PDDL4J heuristic.
+     */
+    private boolean landmarks;
+
+    /**
+     * Whether the pattern database heuristic is used instead of the PDDL4J heuristic.
+     */
+    private boolean pdb;
+
+    /**
+     * The maximal number of abstract states of a pattern database.
+     */
+    private int pdbMaxStates;
+
+    /**
+     * The directory where pattern databases are shared between problems (null if not stored).
+     */
+    private Path pdbDir;
+
+    /**
+     * Whether the expansions are pruned with strong stubborn sets (partial-order reduction).
+     */
+    private boolean por;
+
+    /**
+     * Whether states symmetric up to a permutation of objects are detected as duplicates.
+     */
+    private boolean symmetry;
+
+    /**
+     * The heuristics of the alternation search, one open list each (null if not used).
+     */
+    private List<StateHeuristic.Name> heuristics;
+
+    /**
+     * Whether the alternation search keeps a preferred-operator open list.
+     */
+    private boolean preferred;
+
+    /**
+     * The priority boost of an open list that finds a better heuristic value.
+     */
+    private int boost;
+
+    /**
+     * Whether the successors are evaluated lazily, when they are removed from the open list.
+     */
+    private boolean lazy;
+
+    /**
+     * The width of the beam search (0 if the beam search is not used).
+     */
+    private int beamWidth;
+
+    /**
+     * The search of the RWPlanner run that gives the incumbent plan (null if there is no incumbent).
+     */
+    private RWPlanner.Search incumbent;
+
+    /**
+     * The time given to the RWPlanner run that gives the incumbent plan, in ms.
+     */
+    private int incumbentTime;
+
     /**
      * Sets the weight of the heuristic.
      *
@@ -84,6 +164,210 @@ public class ASP extends AbstractPlanner {
         this.heuristic = heuristic;
     }
 
+    /**
+     * Sets the directory where instantiated problems are cached. Runs on the same domain and problem
+     * files then reload the grounded problem instead of instantiating it again.
+     *
+     * @param dir the cache directory.
+     */
+    @CommandLine.Option(names = {"--cacheDir"}, paramLabel = "<dir>",
+            description = "Cache instantiated problems in this directory (preset: no cache).")
+    public void setCacheDir(final Path dir) {
+        this.cacheDir = dir;
+    }
+
+    /**
+     * Disables the reachability and relevance pruning of the instantiated actions and fluents.
+     *
+     * @param noPruning true to search the problem as instantiated by PDDL4J.
+     */
+    @CommandLine.Option(names = {"--noPruning"},
+            description = "Disable the reachability and relevance pruning of the problem (preset: enabled).")
+    public void setNoPruning(final boolean noPruning) {
+        this.pruning = !noPruning;
+    }
+
+    /**
+     * Uses the landmark-count heuristic instead of the heuristic set with {@code --heuristic}.
+     *
+     * @param landmarks true to guide the search with the landmark-count heuristic.
+     */
+    @CommandLine.Option(names = {"--landmarks"},
+            description = "Use the landmark-count heuristic instead of --heuristic (preset: off).")
+    public void setLandmarks(final boolean landmarks) {
+        this.landmarks = landmarks;
+    }
+
+    /**
+     * Uses the admissible pattern database heuristic instead of the heuristic set with
+     * {@code --heuristic}. Ignored if {@code --landmarks} is set.
+     *
+     * @param pdb true to guide the search with pattern databases.
+     */
+    @CommandLine.Option(names = {"--pdb"},
+            description = "Use the admissible pattern database heuristic instead of --heuristic (preset: off).")
+    public void setPdb(final boolean pdb) {
+        this.pdb = pdb;
+    }
+
+    /**
+     * Sets the maximal number of abstract states of each pattern database.
+     *
+     * @param states the maximal number of abstract states. It is rounded down to a power of 2.
+     * @throws IllegalArgumentException if the number of states is strictly less than 2.
+     */
+    @CommandLine.Option(names = {"--pdbMaxStates"}, defaultValue = "65536", paramLabel = "<states>",
+            description = "Set the maximal number of abstract states of a pattern database (preset 65536).")
+    public void setPdbMaxStates(final int states) {
+        if (states < 2) {
+            throw new IllegalArgumentException("pdbMaxStates < 2");
+        }
+        this.pdbMaxStates = states;
+    }
+
+    /**
+     * Sets the directory where pattern databases are stored, so that the problems of a domain
+     * reuse the tables of identical projections.
+     *
+     * @param dir the pattern database directory.
+     */
+    @CommandLine.Option(names = {"--pdbDir"}, paramLabel = "<dir>",
+            description = "Store and reuse pattern databases in this directory (preset: not stored).")
+    public void setPdbDir(final Path dir) {
+        this.pdbDir = dir;
+    }
+
+    /**
+     * Prunes each expansion to the applicable actions of a strong stubborn set. The pruning keeps
+     * the search complete and, with an admissible heuristic and a weight of 1, optimal. It is
+     * disabled on problems with conditional effects.
+     *
+     * @param por true to enable the partial-order reduction.
+     */
+    @CommandLine.Option(names = {"--por"},
+            description = "Prune expansions with strong stubborn sets (preset: off).")
+    public void setPor(final boolean por) {
+        this.por = por;
+    }
+
+    /**
+     * Detects the objects that are interchangeable in the problem (e.g. the balls of gripper) and
+     * closes a state once for all the states that are the same up to a permutation of them.
+     *
+     * @param symmetry true to enable the symmetry reduction.
+     */
+    @CommandLine.Option(names = {"--symmetry"},
+            description = "Detect duplicate states up to object symmetries (preset: off).")
+    public void setSymmetry(final boolean symmetry) {
+        this.symmetry = symmetry;
+    }
+
+    /**
+     * Sets the heuristics of the alternation search. The search keeps one open list per heuristic
+     * over the same nodes and expands from the lists in turn. The heuristics of {@code --landmarks}
+     * and {@code --pdb} get a list too when they are set.
+     *
+     * @param heuristics the names of the heuristics.
+     */
+    @CommandLine.Option(names = {"--heuristics"}, split = ",", paramLabel = "<h1,h2,...>",
+            description = "Alternate between one open list per heuristic, e.g. FAST_FORWARD,SUM "
+                    + "(preset: single heuristic A*).")
+    public void setHeuristics(final List<StateHeuristic.Name> heuristics) {
+        this.heuristics = heuristics;
+    }
+
+    /**
+     * Adds to the alternation search an open list of the nodes reached by a helpful action of
+     * their parent, i.e. an applicable action of the relaxed plan of the parent.
+     *
+     * @param preferred true to add the preferred-operator open list.
+     */
+    @CommandLine.Option(names = {"--preferred"},
+            description = "Add a preferred-operator open list to the alternation search (preset: off).")
+    public void setPreferred(final boolean preferred) {
+        this.preferred = preferred;
+    }
+
+    /**
+     * Sets the priority boost of an open list of the alternation search that finds a state with
+     * a better heuristic value: the list is then chosen for up to this number of expansions.
+     *
+     * @param boost the priority boost. The boost must be positive or 0.
+     * @throws IllegalArgumentException if the boost is strictly less than 0.
+     */
+    @CommandLine.Option(names = {"--boost"}, defaultValue = "" + AlternationSearch.DEFAULT_BOOST,
+            paramLabel = "<boost>", description = "Set the priority boost of a progressing open list "
+                    + "(preset 1000).")
+    public void setBoost(final int boost) {
+        if (boost < 0) {
+            throw new IllegalArgumentException("Boost < 0");
+        }
+        this.boost = boost;
+    }
+
+    /**
+     * Uses a lazy best-first search: the successors are queued with the heuristic value of their
+     * parent and evaluated only when they are removed from the open list. The helpful actions of the
+     * relaxed plan of the parent are tried first. With the FAST_FORWARD heuristic, the length of the
+     * relaxed plan is used so that a single relaxed plan is computed per expansion. Ignored if
+     * {@code --heuristics} is set.
+     *
+     * @param lazy true to evaluate the successors lazily.
+     */
+    @CommandLine.Option(names = {"--lazy"},
+            description = "Evaluate successors lazily with preferred operators first (preset: off).")
+    public void setLazy(final boolean lazy) {
+        this.lazy = lazy;
+    }
+
+    /**
+     * Uses a beam search of the given width: each layer is expanded in parallel and the successors,
+     * without duplicates, are ranked by the heuristic; the best ones form the next layer. The
+     * memory is bounded by the width times the depth, but the search is incomplete. The weight,
+     * {@code --por} and {@code --symmetry} are ignored. Ignored if {@code --heuristics} is set.
+     *
+     * @param width the width of the beam, 0 to disable the beam search.
+     * @throws IllegalArgumentException if the width is less than 0.
+     */
+    @CommandLine.Option(names = {"--beamWidth"}, defaultValue = "0", paramLabel = "<width>",
+            description = "Use a parallel beam search of the given width (preset: 0, no beam).")
+    public void setBeamWidth(final int width) {
+        if (width < 0) {
+            throw new IllegalArgumentException("beamWidth < 0");
+        }
+        this.beamWidth = width;
+    }
+
+    /**
+     * Runs RWPlanner first and uses the length of its plan as an upper bound: the A* of this class
+     * prunes every node whose cost plus an admissible estimate reaches the bound, and tightens the
+     * bound each time it finds a shorter plan. When the search space is exhausted, the best plan
+     * is optimal. The admissible estimate is the search heuristic if it is admissible, MAX
+     * otherwise.
+     *
+     * @param search the search of the RWPlanner run (RW or EHC).
+     */
+    @CommandLine.Option(names = {"--incumbent"}, paramLabel = "<RW|EHC>",
+            description = "Bound the search with the plan of a short RWPlanner run (preset: no bound).")
+    public void setIncumbent(final RWPlanner.Search search) {
+        this.incumbent = search;
+    }
+
+    /**
+     * Sets the time given to the RWPlanner run that gives the incumbent plan.
+     *
+     * @param time the time in ms. The time must be greater than 0.
+     * @throws IllegalArgumentException if the time is less than or equal to 0.
+     */
+    @CommandLine.Option(names = {"--incumbentTime"}, defaultValue = "5000", paramLabel = "<ms>",
+            description = "Set the time of the incumbent RWPlanner run in ms (preset 5000).")
+    public void setIncumbentTime(final int time) {
+        if (time <= 0) {
+            throw new IllegalArgumentException("incumbentTime <= 0");
+        }
+        this.incumbentTime = time;
+    }
+
     /**
      * Returns the name of the heuristic used by the planner to solve a planning problem.
      *
@@ -107,6 +391,42 @@ public class ASP extends AbstractPlanner {
      */
     private static final Logger LOGGER = LogManager.getLogger(ASP.class.getName());
 
+    /**
+     * The search effort counters reported with the RESULT lines.
+     */
+    private final SearchMetrics metrics = new SearchMetrics();
+
+    /**
+     * The successors pruned by the partial-order reduction during the last search, or -1 if the
+     * search does not track them (no POR report is printed then).
+     */
+    private long porPruned;
+
+    /**
+     * The time spent computing stubborn sets during the last search, in ns.
+     */
+    private long porNanos;
+
+    /**
+     * The time spent generating and evaluating successors during the last search, in ns.
+     */
+    private long successorNanos;
+
+    /**
+     * The length of the incumbent plan of the last search (0 if none was found).
+     */
+    private int incumbentLength;
+
+    /**
+     * The nodes pruned by the incumbent bound during the last search.
+     */
+    private long boundPruned;
+
+    /**
+     * Whether the last bounded search exhausted its search space, i.e. proved its plan optimal.
+     */
+    private boolean provedOptimal;
+
     /**
      * Instantiates the planning problem from a parsed problem.
      *
@@ -115,8 +435,18 @@ public class ASP extends AbstractPlanner {
      */
     @Override
     public Problem instantiate(DefaultParsedProblem problem) {
-        final Problem pb = new DefaultProblem(problem);
-        pb.instantiate();
+        final PlannerEvents.Instantiate event = new PlannerEvents.Instantiate();
+        event.begin();
+        final Problem pb = ProblemCache.instantiate(problem, this.getDomainFile(), this.getProblemFile(),
+                this.cacheDir);
+        if (this.pruning) {
+            ProblemReducer.reduce(pb);
+        }
+        event.planner = "ASP";
+        event.parseTimeMs = this.getStatistics().getTimeToParse();
+        event.actions = pb.getActions().size();
+        event.fluents = pb.getFluents().size();
+        event.commit();
         return pb;
     }
 
@@ -130,42 +460,384 @@ public class ASP extends AbstractPlanner {
     @Override
     public Plan solve(final Problem problem) {
         final long startTime = System.currentTimeMillis();
-        // Creates the A* search strategy
-        StateSpaceSearch search = StateSpaceSearch.getInstance(SearchStrategy.Name.ASTAR,
-                this.getHeuristic(), this.getHeuristicWeight(), this.getTimeout());
-        LOGGER.info("* Starting A* search \n");
-        // Search a solution
-         Plan plan = search.searchPlan(problem);
-
-//        final Node goal = search.searchSolutionNode(problem);
-//        Planner.getLogger().trace(problem.toString(goal));
-//        Plan plan = search.extractPlan(goal, problem);
-
-        long runtimeMs = (long) search.getSearchingTime();
-        if (runtimeMs <= 0) {
+        final Deadline deadline = Deadline.ofSeconds(this.getTimeout());
+        this.metrics.start();
+        this.porPruned = -1;
+        Plan plan;
+        long runtimeMs;
+        if (this.heuristics != null && !this.heuristics.isEmpty()) {
+            final List<StateHeuristic> list = new ArrayList<>();
+            for (StateHeuristic.Name name : this.heuristics) {
+                list.add(StateHeuristic.getInstance(name, problem));
+            }
+            if (this.landmarks) {
+                list.add(new LandmarkHeuristic(problem));
+            }
+            if (this.pdb) {
+                list.add(new PdbHeuristic(problem, this.pdbMaxStates, this.pdbDir));
+            }
+            LOGGER.info("* Starting alternation search with {} open lists\n", list.size()
+                    + (this.preferred ? 1 : 0));
+            final AlternationSearch search = new AlternationSearch(problem, list, this.getHeuristicWeight(),
+                    this.preferred ? new RelaxedPlan(problem) : null, this.boost, this.metrics,
+                    this.por ? StubbornSets.of(problem) : null, this.symmetry ? Symmetries.of(problem) : null);
+            final Node goal = search.search(deadline);
+            this.porPruned = search.porPruned();
+            this.porNanos = search.porNanos();
+            this.successorNanos = search.successorNanos();
+            plan = goal == null ? null : this.extractPlan(goal, problem);
+            runtimeMs = System.currentTimeMillis() - startTime;
+            this.getStatistics().setTimeToSearch(runtimeMs);
+        } else if (this.beamWidth > 0) {
+            // The landmark and pattern database heuristics are thread-safe and shared by the threads
+            final StateHeuristic shared = this.landmarks ? new LandmarkHeuristic(problem)
+                    : this.pdb ? new PdbHeuristic(problem, this.pdbMaxStates, this.pdbDir) : null;
+            final StateHeuristic.Name name = this.getHeuristic();
+            LOGGER.info("* Starting beam search of width {}\n", this.beamWidth);
+            final BeamSearch search = new BeamSearch(problem,
+                    () -> shared != null ? shared : StateHeuristic.getInstance(name, problem),
+                    this.beamWidth, this.metrics);
+            final Node goal = search.search(deadline);
+            plan = goal == null ? null : this.extractPlan(goal, problem);
+            runtimeMs = System.currentTimeMillis() - startTime;
+            this.getStatistics().setTimeToSearch(runtimeMs);
+        } else if (this.lazy) {
+            final StateHeuristic heuristic = this.landmarks ? new LandmarkHeuristic(problem)
+                    : this.pdb ? new PdbHeuristic(problem, this.pdbMaxStates, this.pdbDir)
+                    : this.getHeuristic() == StateHeuristic.Name.FAST_FORWARD ? null
+                    : StateHeuristic.getInstance(this.getHeuristic(), problem);
+            LOGGER.info("* Starting lazy search\n");
+            final LazySearch search = new LazySearch(problem, heuristic, this.getHeuristicWeight(), this.boost,
+                    this.metrics, this.por ? StubbornSets.of(problem) : null,
+                    this.symmetry ? Symmetries.of(problem) : null);
+            final Node goal = search.search(deadline);
+            this.porPruned = search.porPruned();
+            this.porNanos = search.porNanos();
+            this.successorNanos = search.successorNanos();
+            plan = goal == null ? null : this.extractPlan(goal, problem);
             runtimeMs = System.currentTimeMillis() - startTime;
+            this.getStatistics().setTimeToSearch(runtimeMs);
+        } else if (this.landmarks || this.pdb || this.por || this.symmetry || this.incumbent != null) {
+            // PDDL4J's A* only knows its own heuristics and expands every action: use the A* of this class
+            final StateHeuristic heuristic = this.landmarks ? new LandmarkHeuristic(problem)
+                    : this.pdb ? new PdbHeuristic(problem, this.pdbMaxStates, this.pdbDir)
+                    : StateHeuristic.getInstance(this.getHeuristic(), problem);
+            LOGGER.info("* Starting A* search with the {} heuristic\n", this.landmarks ? "landmark-count"
+                    : this.pdb ? "pattern database" : this.getHeuristic());
+            plan = this.astar(problem, heuristic, startTime, deadline);
+            runtimeMs = System.currentTimeMillis() - startTime;
+            this.getStatistics().setTimeToSearch(runtimeMs);
+        } else {
+            // Creates the A* search strategy
+            final StateSpaceSearch search = StateSpaceSearch.getInstance(SearchStrategy.Name.ASTAR,
+                    this.getHeuristic(), this.getHeuristicWeight(), this.getTimeout());
+            LOGGER.info("* Starting A* search \n");
+            // Sample the progress of the search while it runs (only active during a JFR recording)
+            final Runnable progress = () -> {
+                final PlannerEvents.AStarProgress event = new PlannerEvents.AStarProgress();
+                event.elapsedMs = System.currentTimeMillis() - startTime;
+                event.createdNodes = search.getCreatedNodes();
+                event.expandedNodes = -1;
+                event.bestH = -1;
+                event.commit();
+            };
+            FlightRecorder.addPeriodicEvent(PlannerEvents.AStarProgress.class, progress);
+            // Search a solution
+            try {
+                plan = search.searchPlan(problem);
+            } finally {
+                FlightRecorder.removePeriodicEvent(progress);
+            }
+
+//            final Node goal = search.searchSolutionNode(problem);
+//            Planner.getLogger().trace(problem.toString(goal));
+//            Plan plan = search.extractPlan(goal, problem);
+
+            runtimeMs = (long) search.getSearchingTime();
+            if (runtimeMs <= 0) {
+                runtimeMs = System.currentTimeMillis() - startTime;
+            }
+
+            // The A* of PDDL4J only exposes node counts: the other counters are not measured (-1)
+            this.metrics.nodesExpanded = search.getExploredNodes();
+            this.metrics.nodesGenerated = search.getCreatedNodes();
+            this.metrics.heuristicCalls = -1;
+            this.metrics.applicableChecks = -1;
+            if (plan != null) {
+                this.getStatistics().setTimeToSearch(search.getSearchingTime());
+                this.getStatistics().setMemoryUsedToSearch(search.getMemoryUsed());
+            }
         }
 
+        // The searches stop on the deadline and report their partial effort
+        this.metrics.timedOut = deadline.expiredNow();
+
         // If a plan is found update the statistics of the planner and log search information
         if (plan != null) {
             LOGGER.info("* A* search succeeded\n");
-            this.getStatistics().setTimeToSearch(search.getSearchingTime());
-            this.getStatistics().setMemoryUsedToSearch(search.getMemoryUsed());
-
             System.out.println("RESULT: SUCCESS");
             System.out.println("RESULT: PLAN_LENGTH=" + plan.size());
             System.out.println("RESULT: RUNTIME_MS=" + runtimeMs);
+            this.metrics.print(this.getStatistics());
+            this.printPorReport();
+            this.printBoundReport();
 
         } else {
             LOGGER.info("* A* search failed\n");
             System.out.println("RESULT: FAILURE");
             System.out.println("RESULT: PLAN_LENGTH=0");
             System.out.println("RESULT: RUNTIME_MS=" + runtimeMs);
+            this.metrics.print(this.getStatistics());
+            this.printPorReport();
+            this.printBoundReport();
         }
         // Return the plan found or null if the search fails.
         return plan;
     }
 
+    /**
+     * Searches a solution plan with A* guided by a heuristic that PDDL4J's search strategies do not
+     * know. The heuristic is evaluated on nodes whose parent is already set, so path-dependent
+     * heuristics can use it.
+     *
+     * @param problem   the problem to solve.
+     * @param heuristic the heuristic used to guide the search.
+     * @param startTime the time the search started, in ms.
+     * @param deadline  the deadline of the search.
+     * @return the plan found or null if no plan was found before the deadline.
+     */
+    private Plan astar(final Problem problem, final StateHeuristic heuristic, final long startTime,
+                       final Deadline deadline) {
+        StubbornSets stubborn = null;
+        if (this.por) {
+            stubborn = StubbornSets.of(problem);
+            if (stubborn == null) {
+                LOGGER.info("* Partial-order reduction disabled: the problem has conditional effects\n");
+            }
+        }
+        this.porPruned = 0;
+        this.porNanos = 0;
+        this.successorNanos = 0;
+        final Symmetries symmetries = this.symmetry ? Symmetries.of(problem) : null;
+        final State init = new State(problem.getInitialState());
+        // The closed list holds the canonical form of the states when symmetries are detected
+        final Set<State> close = new HashSet<>();
+        final double weight = this.getHeuristicWeight();
+
+        // Incumbent bound: the closed states keep their best cost so that they are reopened through
+        // a cheaper path (the search goes on after the first plan when it may not be optimal)
+        Plan best = this.incumbent == null ? null : this.incumbentPlan(problem, deadline);
+        double bound = best == null ? Double.POSITIVE_INFINITY : best.size();
+        final double initialBound = bound;
+        final boolean bounded = this.incumbent != null;
+        final Map<State, Double> closedCost = bounded ? new HashMap<>() : null;
+        final StateHeuristic admissible = !bounded || heuristic.isAdmissible() ? null
+                : StateHeuristic.getInstance(StateHeuristic.Name.MAX, problem);
+        final boolean firstPlanOptimal = heuristic.isAdmissible() && weight == 1.0;
+        this.incumbentLength = best == null ? 0 : best.size();
+        this.boundPruned = 0;
+        this.provedOptimal = false;
+        final PriorityQueue<Node> open = new PriorityQueue<>(100, new Comparator<Node>() {
+            public int compare(Node n1, Node n2) {
+                double f1 = weight * n1.getHeuristic() + n1.getCost();
+                double f2 = weight * n2.getHeuristic() + n2.getCost();
+                return Double.compare(f1, f2);
+            }
+        });
+        final Node root = new Node(init, null, -1, 0, 0);
+        root.setHeuristic(heuristic.estimate(root, problem.getGoal()));
+        this.metrics.heuristicCalls++;
+        open.add(root);
+
+        final double[] bestH = {root.getHeuristic()};
+        final Runnable progress = () -> {
+            final PlannerEvents.AStarProgress event = new PlannerEvents.AStarProgress();
+            event.elapsedMs = System.currentTimeMillis() - startTime;
+            event.createdNodes = this.metrics.nodesGenerated;
+            event.expandedNodes = this.metrics.nodesExpanded;
+            event.bestH = bestH[0];
+            event.commit();
+        };
+        FlightRecorder.addPeriodicEvent(PlannerEvents.AStarProgress.class, progress);
+        try {
+            final List<Action> actions = problem.getActions();
+            final int[] applicable = new int[actions.size()];
+            while (!open.isEmpty() && !deadline.expired()) {
+                final Node current = open.poll();
+                final State key = symmetries == null ? current : symmetries.canonical(current);
+                if (bounded) {
+                    final Double cost = closedCost.get(key);
+                    if (cost != null && cost <= current.getCost()) {
+                        LandmarkHeuristic.release(heuristic, current);
+                        continue; // already expanded through a cheaper or equal path
+                    }
+                    closedCost.put(key, current.getCost());
+                    // The bound may have been tightened since the node was generated
+                    if (bound < initialBound) {
+                        if (current.getCost() + this.admissibleEstimate(current, heuristic, admissible, problem)
+                                >= bound) {
+                            this.boundPruned++;
+                            LandmarkHeuristic.release(heuristic, current);
+                            continue;
+                        }
+                    }
+                } else if (!close.add(key)) {
+                    LandmarkHeuristic.release(heuristic, current);
+                    continue; // already expanded through a cheaper or equal path
+                }
+                bestH[0] = Math.min(bestH[0], current.getHeuristic());
+                if (current.satisfy(problem.getGoal())) {
+                    if (!bounded) {
+                        return this.extractPlan(current, problem);
+                    }
+                    bound = current.getCost();
+                    best = this.extractPlan(current, problem);
+                    LOGGER.info("* New incumbent plan: {} actions\n", best.size());
+                    if (firstPlanOptimal) {
+                        this.provedOptimal = true;
+                        return best;
+                    }
+                    LandmarkHeuristic.release(heuristic, current);
+                    continue;
+                }
+                this.metrics.nodesExpanded++;
+                this.metrics.applicableChecks += actions.size();
+                int count = 0;
+                for (int i = 0; i < actions.size(); i++) {
+                    if (actions.get(i).isApplicable(current)) {
+                        applicable[count++] = i;
+                    }
+                }
+                if (stubborn != null) {
+                    final long t0 = System.nanoTime();
+                    final int kept = stubborn.prune(current, applicable, count);
+                    this.porNanos += System.nanoTime() - t0;
+                    this.porPruned += count - kept;
+                    count = kept;
+                }
+                final long t0 = System.nanoTime();
+                for (int k = 0; k < count && !deadline.expired(); k++) {
+                    final int i = applicable[k];
+                    final Action a = actions.get(i);
+                    final Node next = new Node(current);
+                    for (ConditionalEffect ce : a.getConditionalEffects()) {
+                        if (current.satisfy(ce.getCondition())) {
+                            next.apply(ce.getEffect());
+                        }
+                    }
+                    final State nextKey = symmetries == null ? next : symmetries.canonical(next);
+                    final Double closedAt = bounded ? closedCost.get(nextKey) : null;
+                    if (bounded ? closedAt == null || closedAt > current.getCost() + 1 : !close.contains(nextKey)) {
+                        next.setCost(current.getCost() + 1);
+                        next.setParent(current);
+                        next.setAction(i);
+                        next.setHeuristic(heuristic.estimate(next, problem.getGoal()));
+                        this.metrics.nodesGenerated++;
+                        this.metrics.heuristicCalls++;
+                        if (next.getHeuristic() >= Integer.MAX_VALUE) {
+                            LandmarkHeuristic.release(heuristic, next);
+                            continue; // dead-end
+                        }
+                        if (bounded && next.getCost()
+                                + this.admissibleEstimate(next, heuristic, admissible, problem) >= bound) {
+                            this.boundPruned++;
+                            LandmarkHeuristic.release(heuristic, next);
+                            continue;
+                        }
+                        open.add(next);
+                    }
+                }
+                // The successors are evaluated: the landmarks accepted in the node are no longer needed
+                LandmarkHeuristic.release(heuristic, current);
+                this.successorNanos += System.nanoTime() - t0;
+            }
+            // An exhausted bounded search proves that no plan is shorter than the best one
+            this.provedOptimal = bounded && open.isEmpty() && !deadline.hasExpired();
+            return best;
+        } finally {
+            FlightRecorder.removePeriodicEvent(progress);
+        }
+    }
+
+    /**
+     * Returns the incumbent plan of a short RWPlanner run on the problem.
+     *
+     * @param problem  the problem to solve.
+     * @param deadline the deadline of the whole search; RWPlanner gets at most the incumbent time of it.
+     * @return the incumbent plan or null if RWPlanner found no plan in time.
+     */
+    private Plan incumbentPlan(final Problem problem, final Deadline deadline) {
+        final long t0 = System.currentTimeMillis();
+        final RWPlanner planner = new RWPlanner();
+        planner.setSearch(this.incumbent);
+        planner.setQuiet(true);
+        planner.setDeadline(Deadline.after(Math.min(this.incumbentTime, deadline.remainingMs())));
+        final Plan plan = planner.solve(problem);
+        LOGGER.info("* Incumbent plan ({}): {} in {} ms\n", this.incumbent,
+                plan == null ? "none" : plan.size() + " actions", System.currentTimeMillis() - t0);
+        return plan;
+    }
+
+    /**
+     * Returns an admissible estimate of the distance of a node to the goal: its heuristic value if
+     * the search heuristic is admissible, the value of the admissible heuristic otherwise.
+     */
+    private double admissibleEstimate(final Node node, final StateHeuristic heuristic,
+                                      final StateHeuristic admissible, final Problem problem) {
+        if (admissible == null) {
+            return node.getHeuristic();
+        }
+        this.metrics.heuristicCalls++;
+        return admissible.estimate(node, problem.getGoal());
+    }
+
+    /**
+     * Prints the RESULT lines of the incumbent bound when it is enabled.
+     */
+    private void printBoundReport() {
+        if (this.incumbent == null) {
+            return;
+        }
+        System.out.println("RESULT: INCUMBENT_LENGTH=" + this.incumbentLength);
+        System.out.println("RESULT: BOUND_PRUNED=" + this.boundPruned);
+        System.out.println("RESULT: PROVED_OPTIMAL=" + (this.provedOptimal ? 1 : 0));
+    }
+
+    /**
+     * Prints the RESULT lines of the partial-order reduction when it is enabled and tracked by the
+     * search. The saved time is an estimate: the pruned successors times the mean cost of a
+     * generated successor in this run, minus the time spent computing stubborn sets.
+     */
+    private void printPorReport() {
+        if (!this.por || this.porPruned < 0) {
+            return;
+        }
+        final long generated = this.metrics.nodesGenerated;
+        final double perSuccessor = generated == 0 ? 0 : (double) this.successorNanos / generated;
+        final long savedNanos = (long) (this.porPruned * perSuccessor) - this.porNanos;
+        System.out.println("RESULT: POR_PRUNED=" + this.porPruned);
+        System.out.println("RESULT: POR_TIME_MS=" + this.porNanos / 1_000_000);
+        System.out.println("RESULT: POR_SAVED_MS=" + savedNanos / 1_000_000);
+    }
+
+    /**
+     * Extracts the plan leading to a node by following the parent links.
+     *
+     * @param node    the goal node.
+     * @param problem the problem solved.
+     * @return the plan leading to the node.
+     */
+    private Plan extractPlan(final Node node, final Problem problem) {
+        Node n = node;
+        final Plan plan = new SequentialPlan();
+        while (n.getAction() != -1) {
+            final Action a = problem.getActions().get(n.getAction());
+            plan.add(0, a);
+            n = n.getParent();
+        }
+        return plan;
+    }
+
     @Override
     public boolean isSupported(Problem problem) {
         return true;
@@ -0,0 +1,281 @@
+package fr.uga.pddl4j.examples.asp;
+
+import fr.uga.pddl4j.heuristics.state.StateHeuristic;
+import fr.uga.pddl4j.planners.statespace.search.Node;
+import fr.uga.pddl4j.problem.Problem;
+import fr.uga.pddl4j.problem.State;
+import fr.uga.pddl4j.problem.operator.Action;
+import fr.uga.pddl4j.problem.operator.ConditionalEffect;
+import fr.uga.pddl4j.util.BitVector;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * AlternationSearch: recherche meilleur d'abord avec une file ouverte par heuristique.
+ * <p>
+ * Chaque nœud généré est évalué une fois par toutes les heuristiques et inséré dans toutes les
+ * files (les nœuds sont partagés, seul l'ordre diffère). Les expansions prennent tour à tour dans
+ * la file de plus petite priorité; une file qui trouve une nouvelle meilleure valeur de son
+ * heuristique voit sa priorité baissée de {@code boost} (elle est choisie pendant les
+ * {@code boost} expansions suivantes tant qu'elle progresse). Une heuristique bloquée sur un
+ * plateau ne coûte donc plus que sa part des expansions.
+ * </p>
+ * Avec un {@link RelaxedPlan}, une file supplémentaire, ordonnée par la première heuristique,
+ * ne reçoit que les nœuds atteints par une action utile (preferred operator) de leur parent;
+ * elle profite aussi des boosts.
+ */
+final class AlternationSearch {
+
+    private static final Logger LOGGER = LogManager.getLogger(AlternationSearch.class.getName());
+
+    /**
+     * Baisse de priorité par défaut d'une file qui progresse.
+     */
+    static final int DEFAULT_BOOST = 1000;
+
+    private final Problem problem;
+    private final StateHeuristic[] heuristics;
+    private final double weight;
+    private final RelaxedPlan relaxed;
+    private final int boost;
+    private final SearchMetrics metrics;
+    private final StubbornSets stubborn;
+    private final Symmetries symmetries;
+
+    /**
+     * Nombre d'expansions faites depuis chaque file lors de la dernière recherche (la file
+     * préférée en dernier).
+     */
+    private long[] expansions = new long[0];
+
+    /**
+     * Successeurs élagués par la réduction d'ordre partiel lors de la dernière recherche.
+     */
+    private long porPruned;
+
+    /**
+     * Temps passé à calculer les stubborn sets lors de la dernière recherche, en ns.
+     */
+    private long porNanos;
+
+    /**
+     * Temps passé à générer et évaluer les successeurs lors de la dernière recherche, en ns.
+     */
+    private long successorNanos;
+
+    /**
+     * Nœud partagé par toutes les files, avec ses valeurs heuristiques.
+     */
+    private static final class Entry {
+        final Node node;
+        final double[] h;
+
+        Entry(final Node node, final double[] h) {
+            this.node = node;
+            this.h = h;
+        }
+    }
+
+    /**
+     * Crée la recherche.
+     *
+     * @param problem    le problème à résoudre.
+     * @param heuristics les heuristiques, une file chacune.
+     * @param weight     le poids des heuristiques (les files sont ordonnées par g + weight * h).
+     * @param relaxed    le plan relâché qui donne les actions utiles, ou null sans file préférée.
+     * @param boost      la baisse de priorité d'une file qui progresse.
+     * @param metrics    les compteurs d'effort à mettre à jour.
+     * @param stubborn   la réduction d'ordre partiel, ou null.
+     * @param symmetries les symétries d'objets pour la détection des doublons, ou null.
+     */
+    AlternationSearch(final Problem problem, final List<StateHeuristic> heuristics, final double weight,
+                      final RelaxedPlan relaxed, final int boost, final SearchMetrics metrics,
+                      final StubbornSets stubborn, final Symmetries symmetries) {
+        this.problem = problem;
+        this.heuristics = heuristics.toArray(new StateHeuristic[0]);
+        this.weight = weight;
+        this.relaxed = relaxed;
+        this.boost = boost;
+        this.metrics = metrics;
+        this.stubborn = stubborn;
+        this.symmetries = symmetries;
+    }
+
+    /**
+     * Cherche un nœud but.
+     *
+     * @param deadline l'échéance de la recherche.
+     * @return le nœud but, ou null si l'espace est épuisé ou le temps écoulé.
+     */
+    Node search(final Deadline deadline) {
+        final int nbH = this.heuristics.length;
+        final int nbQueues = this.relaxed == null ? nbH : nbH + 1;
+        final List<PriorityQueue<Entry>> open = new ArrayList<>(nbQueues);
+        for (int q = 0; q < nbQueues; q++) {
+            final int i = q < nbH ? q : 0; // la file préférée suit la première heuristique
+            open.add(new PriorityQueue<>((e1, e2) -> Double.compare(
+                    this.weight * e1.h[i] + e1.node.getCost(), this.weight * e2.h[i] + e2.node.getCost())));
+        }
+        final int[] priority = new int[nbQueues];
+        final double[] best = new double[nbH];
+        this.expansions = new long[nbQueues];
+        this.porPruned = 0;
+        this.porNanos = 0;
+        this.successorNanos = 0;
+        final Set<State> close = new HashSet<>();
+
+        final Node root = new Node(new State(this.problem.getInitialState()), null, -1, 0, 0);
+        final double[] rootH = this.evaluate(root);
+        if (rootH == null) {
+            return null;
+        }
+        System.arraycopy(rootH, 0, best, 0, nbH);
+        final Entry first = new Entry(root, rootH);
+        for (PriorityQueue<Entry> queue : open) {
+            queue.add(first);
+        }
+
+        final List<Action> actions = this.problem.getActions();
+        final int[] applicable = new int[actions.size()];
+        final BitVector helpful = new BitVector();
+        while (!deadline.expired()) {
+            // File non vide de plus petite priorité
+            int q = -1;
+            for (int k = 0; k < nbQueues; k++) {
+                if (!open.get(k).isEmpty() && (q == -1 || priority[k] < priority[q])) {
+                    q = k;
+                }
+            }
+            if (q == -1) {
+                break;
+            }
+            priority[q]++;
+            final Entry entry = open.get(q).poll();
+            final Node current = entry.node;
+            if (!close.add(this.symmetries == null ? current : this.symmetries.canonical(current))) {
+                this.release(current);
+                continue;
+            }
+            if (current.satisfy(this.problem.getGoal())) {
+                this.log();
+                return current;
+            }
+            this.expansions[q]++;
+            this.metrics.nodesExpanded++;
+            this.metrics.applicableChecks += actions.size();
+            int count = 0;
+            for (int i = 0; i < actions.size(); i++) {
+                if (actions.get(i).isApplicable(current)) {
+                    applicable[count++] = i;
+                }
+            }
+            if (this.stubborn != null) {
+                final long t0 = System.nanoTime();
+                final int kept = this.stubborn.prune(current, applicable, count);
+                this.porNanos += System.nanoTime() - t0;
+                this.porPruned += count - kept;
+                count = kept;
+            }
+            if (this.relaxed != null) {
+                this.relaxed.compute(current, helpful);
+            }
+            final long t0 = System.nanoTime();
+            for (int k = 0; k < count && !deadline.expired(); k++) {
+                final int a = applicable[k];
+                final Node next = new Node(current);
+                for (ConditionalEffect ce : actions.get(a).getConditionalEffects()) {
+                    if (current.satisfy(ce.getCondition())) {
+                        next.apply(ce.getEffect());
+                    }
+                }
+                if (close.contains(this.symmetries == null ? next : this.symmetries.canonical(next))) {
+                    continue;
+                }
+                next.setCost(current.getCost() + 1);
+                next.setParent(current);
+                next.setAction(a);
+                this.metrics.nodesGenerated++;
+                final double[] h = this.evaluate(next);
+                if (h == null) {
+                    this.release(next);
+                    continue; // dead-end
+                }
+                final Entry e = new Entry(next, h);
+                for (int i = 0; i < nbH; i++) {
+                    open.get(i).add(e);
+                    if (h[i] < best[i]) {
+                        best[i] = h[i];
+                        priority[i] -= this.boost;
+                        if (this.relaxed != null) {
+                            priority[nbH] -= this.boost;
+                        }
+                    }
+                }
+                if (this.relaxed != null && helpful.get(a)) {
+                    open.get(nbH).add(e);
+                }
+            }
+            this.successorNanos += System.nanoTime() - t0;
+            this.release(current);
+        }
+        this.log();
+        return null;
+    }
+
+    /**
+     * Successeurs élagués par la réduction d'ordre partiel lors de la dernière recherche.
+     */
+    long porPruned() {
+        return this.porPruned;
+    }
+
+    /**
+     * Temps passé à calculer les stubborn sets lors de la dernière recherche, en ns.
+     */
+    long porNanos() {
+        return this.porNanos;
+    }
+
+    /**
+     * Temps passé à générer et évaluer les successeurs lors de la dernière recherche, en ns.
+     */
+    long successorNanos() {
+        return this.successorNanos;
+    }
+
+    /**
+     * Évalue un nœud par toutes les heuristiques; null si l'une d'elles le prouve sans issue.
+     */
+    private double[] evaluate(final Node node) {
+        final double[] h = new double[this.heuristics.length];
+        for (int i = 0; i < h.length; i++) {
+            h[i] = this.heuristics[i].estimate(node, this.problem.getGoal());
+            this.metrics.heuristicCalls++;
+            if (h[i] >= Integer.MAX_VALUE) {
+                return null;
+            }
+        }
+        node.setHeuristic(h[0]);
+        return h;
+    }
+
+    /**
+     * Libère les landmarks acceptés d'un nœud développé ou écarté (voir {@link LandmarkHeuristic}).
+     */
+    private void release(final Node node) {
+        for (StateHeuristic h : this.heuristics) {
+            LandmarkHeuristic.release(h, node);
+        }
+    }
+
+    private void log() {
+        LOGGER.info("* Alternation: expansions per queue {}\n", Arrays.toString(this.expansions));
+    }
+}
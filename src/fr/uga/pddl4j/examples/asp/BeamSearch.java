@@ -0,0 +1,166 @@
+package fr.uga.pddl4j.examples.asp;
+
+import fr.uga.pddl4j.heuristics.state.StateHeuristic;
+import fr.uga.pddl4j.planners.statespace.search.Node;
+import fr.uga.pddl4j.problem.Problem;
+import fr.uga.pddl4j.problem.State;
+import fr.uga.pddl4j.problem.operator.Action;
+import fr.uga.pddl4j.problem.operator.ConditionalEffect;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * BeamSearch: recherche en faisceau par couches, développées en parallèle.
+ * <p>
+ * Chaque couche (au plus {@code width} nœuds de même profondeur) est développée en parallèle
+ * (flux parallèle, une heuristique par thread, créée par la recherche et oubliée à sa fin). Les
+ * successeurs sont dédoublonnés dans la couche (table de hachage sur l'état) et écartés s'ils ont
+ * déjà été gardés dans une couche précédente (empreintes 64 bits, {@link LongHashSet}); les
+ * {@code width} meilleurs selon l'heuristique forment la couche suivante. La recherche est
+ * incomplète: elle échoue si une couche est vide.
+ * </p>
+ * <p>
+ * Mémoire: les nœuds gardés et leurs ancêtres (au plus width × profondeur nœuds) et leurs
+ * empreintes, plus les successeurs d'une couche le temps de la sélection. Avec la
+ * {@link LandmarkHeuristic}, les landmarks acceptés ne sont gardés que pour la couche en cours
+ * de sélection (ils sont libérés à l'expansion et à l'élagage).
+ * </p>
+ * L'ordre des successeurs ne dépend pas du nombre de threads: le résultat est déterministe.
+ */
+final class BeamSearch {
+
+    private static final Logger LOGGER = LogManager.getLogger(BeamSearch.class.getName());
+
+    private final Problem problem;
+    private final Supplier<StateHeuristic> factory;
+    private final int width;
+    private final SearchMetrics metrics;
+
+    /**
+     * Crée la recherche.
+     *
+     * @param problem   le problème à résoudre.
+     * @param heuristic la fabrique des heuristiques, appelée une fois par thread (elle peut rendre
+     *                  une instance partagée si l'heuristique est thread-safe).
+     * @param width     la largeur du faisceau.
+     * @param metrics   les compteurs d'effort à mettre à jour.
+     */
+    BeamSearch(final Problem problem, final Supplier<StateHeuristic> heuristic, final int width,
+               final SearchMetrics metrics) {
+        this.problem = problem;
+        this.factory = heuristic;
+        this.width = width;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Cherche un nœud but.
+     *
+     * @param deadline l'échéance de la recherche.
+     * @return le nœud but, ou null si une couche est vide ou le temps écoulé.
+     */
+    Node search(final Deadline deadline) {
+        // Heuristiques des threads, propres à cette recherche (et non aux threads du pool commun,
+        // qui survivent à la recherche)
+        final Map<Thread, StateHeuristic> heuristics = new ConcurrentHashMap<>();
+        final Function<Thread, StateHeuristic> create = thread -> this.factory.get();
+        final StateHeuristic h = heuristics.computeIfAbsent(Thread.currentThread(), create);
+        final Node root = new Node(new State(this.problem.getInitialState()), null, -1, 0, 0);
+        root.setHeuristic(h.estimate(root, this.problem.getGoal()));
+        this.metrics.heuristicCalls++;
+        if (root.satisfy(this.problem.getGoal())) {
+            return root;
+        }
+        if (root.getHeuristic() >= Integer.MAX_VALUE) {
+            return null;
+        }
+        final LongHashSet kept = new LongHashSet(this.width * 64);
+        kept.add(LongHashSet.fingerprint(root));
+        final int nbActions = this.problem.getActions().size();
+        List<Node> layer = List.of(root);
+        int depth = 0;
+        while (!layer.isEmpty() && !deadline.expiredNow()) {
+            final List<List<Node>> children = layer.parallelStream()
+                    .map(node -> this.expand(node, heuristics.computeIfAbsent(Thread.currentThread(), create),
+                            deadline))
+                    .collect(Collectors.toList());
+            if (deadline.hasExpired()) {
+                break;
+            }
+            this.metrics.nodesExpanded += layer.size();
+            this.metrics.applicableChecks += (long) layer.size() * nbActions;
+            for (Node node : layer) {
+                LandmarkHeuristic.release(h, node);
+            }
+
+            // Doublons de la couche (même profondeur: on garde le premier généré) et états déjà gardés
+            final Map<State, Node> unique = new LinkedHashMap<>();
+            for (List<Node> list : children) {
+                this.metrics.nodesGenerated += list.size();
+                this.metrics.heuristicCalls += list.size();
+                for (Node next : list) {
+                    if (next.satisfy(this.problem.getGoal())) {
+                        LOGGER.info("* Beam search: depth {}\n", depth + 1);
+                        return next;
+                    }
+                    if (next.getHeuristic() >= Integer.MAX_VALUE || kept.contains(LongHashSet.fingerprint(next))
+                            || unique.putIfAbsent(next, next) != null) {
+                        LandmarkHeuristic.release(h, next);
+                    }
+                }
+            }
+            final List<Node> sorted = new ArrayList<>(unique.values());
+            sorted.sort(Comparator.comparingDouble(Node::getHeuristic));
+            for (Node node : sorted.subList(Math.min(this.width, sorted.size()), sorted.size())) {
+                LandmarkHeuristic.release(h, node);
+            }
+            layer = sorted.size() > this.width ? new ArrayList<>(sorted.subList(0, this.width)) : sorted;
+            for (Node node : layer) {
+                kept.add(LongHashSet.fingerprint(node));
+            }
+            depth++;
+        }
+        LOGGER.info("* Beam search: no plan found at depth {}\n", depth);
+        return null;
+    }
+
+    /**
+     * Génère et évalue les successeurs d'un nœud avec l'heuristique du thread appelant (appelé
+     * par les threads du flux parallèle); rend une liste vide une fois l'échéance passée.
+     */
+    private List<Node> expand(final Node current, final StateHeuristic h, final Deadline deadline) {
+        if (deadline.expired()) {
+            return List.of();
+        }
+        final List<Action> actions = this.problem.getActions();
+        final List<Node> successors = new ArrayList<>();
+        for (int i = 0; i < actions.size() && !deadline.expired(); i++) {
+            final Action a = actions.get(i);
+            if (!a.isApplicable(current)) {
+                continue;
+            }
+            final Node next = new Node(current);
+            for (ConditionalEffect ce : a.getConditionalEffects()) {
+                if (current.satisfy(ce.getCondition())) {
+                    next.apply(ce.getEffect());
+                }
+            }
+            next.setCost(current.getCost() + 1);
+            next.setParent(current);
+            next.setAction(i);
+            next.setHeuristic(h.estimate(next, this.problem.getGoal()));
+            successors.add(next);
+        }
+        return successors;
+    }
+}
@@ -7,22 +7,63 @@ import java.time.LocalDateTime;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.ToDoubleFunction;
 import java.util.stream.Collectors;
 
 /**
  * BenchmarkRunner:
  * Lance automatiquement ASP (A*) et RWPlanner sur les 4 domaines:
- * blocks, depot, gripper, logistics.
+ * blocks, depots, gripper, logistics.
  * Output: results/results.csv
+ *
+ * Options:
+ *   --limit N : nombre de problèmes par suite (10 par défaut, 0 = tous)
+ *   --repeat K : K exécutions par (problème, planner) avec les graines 1..K (--seed de MCTSPlanner et
+ *                RWPlanner; ASP est déterministe, seul son temps varie). Output: results/repeats.csv
+ *                (une ligne par exécution) et results/summary.csv (taux de succès, médiane, p90 et
+ *                intervalles de confiance bootstrap à 95 % du temps et de la longueur de plan)
+ *   --compare BASELINE CANDIDATE : compare deux CSV (results, repeats ou sweep) ligne à ligne sur
+ *                (domain, suite, problem, planner) et signale régressions et améliorations du
+ *                succès, du temps et de la longueur de plan; code de sortie 1 s'il y a une régression.
+ *                Seuils: --runtimeTolerance (0.2 = +20 %), --runtimeMinMs (50), --lengthTolerance (0),
+ *                --successTolerance (0); avec plusieurs exécutions par ligne (repeats.csv), l'écart
+ *                doit aussi être significatif au seuil --alpha (0.05): Mann-Whitney pour le temps et
+ *                la longueur, Fisher exact pour le succès. Output: results/compare.csv
+ *   --sweep : balayage en taille sur des problèmes générés ({@link ProblemGenerator}) au lieu des
+ *             problèmes fournis; pour chaque domaine et planner, la taille augmente jusqu'à un échec,
+ *             un dépassement de --sweepTime ms (60000 par défaut) ou de --sweepMemory Mo de RSS
+ *             (2048 par défaut, aussi passé en -Xmx au planner). Output: results/sweep.csv
+ *   --tune : réglage par course (F-race) des paramètres de MCTSPlanner et RWPlanner, par domaine, sur
+ *            --tuneTrain problèmes d'entraînement (5, répartis sur les problèmes retenus par --limit).
+ *            --tuneConfigs configurations (12, dont les valeurs par défaut) sont lancées bloc par bloc
+ *            (un problème et une graine), en parallèle sur --workers process (nombre de cœurs); à partir
+ *            du 5e bloc, un test de Friedman (seuil --alpha, 0.05) suivi de comparaisons de Conover
+ *            élimine les configurations significativement moins bonnes que la meilleure. Coût d'une
+ *            exécution: temps si succès, 10 × --tuneTime sinon (PAR10, --tuneTime 30000 ms). Arrêt à
+ *            une configuration ou au budget --tuneBudget exécutions (150) par domaine et planner.
+ *            --tunePlanners MCTS,RW et --tuneDomains blocks,... restreignent la course. Output: profiles/&lt;domain&gt;.properties
+ *            (--profiles DIR pour un autre dossier) et results/tuning.csv
+ *   --profiles DIR : lance MCTSPlanner et RWPlanner avec le profil DIR/&lt;domain&gt;.properties du domaine
+ *                    (--profile) quand il existe, à la place des paramètres par défaut
+ *   --jfr : lance chaque planner avec un enregistrement Java Flight Recorder
+ *           (results/jfr/&lt;domain&gt;_&lt;suite&gt;_&lt;problem&gt;_&lt;planner&gt;.jfr)
+ *   --cache : partage le cache des problèmes instanciés (results/cache) entre les planners
  */
 public class BenchmarkRunner {
 
     private static final Path PDDL_ROOT = Paths.get("resources/benchmarks/pddl");
-    private static final List<String> DOMAINS = List.of("blocks", "depot", "gripper", "logistics");
+    private static final List<String> DOMAINS = List.of("blocks", "depots", "gripper", "logistics");
 
     // si un planner bloque, on coupe.
     private static final long PROCESS_TIMEOUT_MS = 120_000; // 2 min max
 
+    // Marge entre l'échéance interne des planners (-t) et la coupure du process: démarrage de la
+    // JVM, parsing, instanciation et émission des lignes RESULT (au moins 5 s, 20 % du délai)
+    private static final long PLANNER_TIMEOUT_MARGIN_MS = 5_000;
+
     // MCTSPlanner params
     // MCTSPlanner params
     private static final List<String> MCTS_PARAMS = List.of(
@@ -33,16 +74,76 @@ public class BenchmarkRunner {
     );
 
 
-    // Optionnel: forcer timeout interne
-    private static final List<String> COMMON_PLANNER_PARAMS = List.of(
-            // "-t", "600"
-    );
+    // Paramètres communs à tous les planners (le timeout interne -t est dérivé du délai du process,
+    // voir plannerTimeoutSeconds)
+    private static final List<String> COMMON_PLANNER_PARAMS = List.of();
 
     // Résultats
     private static final Pattern RE_SUCCESS = Pattern.compile("^RESULT:\\s*SUCCESS\\s*$", Pattern.MULTILINE);
     private static final Pattern RE_FAILURE = Pattern.compile("^RESULT:\\s*FAILURE\\s*$", Pattern.MULTILINE);
     private static final Pattern RE_LEN = Pattern.compile("^RESULT:\\s*PLAN_LENGTH=(\\d+)\\s*$", Pattern.MULTILINE);
     private static final Pattern RE_RUNTIME = Pattern.compile("^RESULT:\\s*RUNTIME_MS=(\\d+)\\s*$", Pattern.MULTILINE);
+    private static final Pattern RE_METRIC = Pattern.compile("^RESULT:\\s*([A-Z_]+)=(-?\\d+)\\s*$", Pattern.MULTILINE);
+
+    // Compteurs d'effort émis par les planners (SearchMetrics) -> colonnes CSV supplémentaires
+    private static final List<String> METRIC_KEYS = List.of(
+            "NODES_EXPANDED", "NODES_GENERATED", "ROLLOUTS", "ROLLOUT_STEPS", "HEURISTIC_CALLS",
+            "RESTARTS", "APPLICABLE_CHECKS", "TIMED_OUT", "BYTES_ALLOCATED", "GC_TIME_MS",
+            "PARSE_MS", "ENCODE_MS", "SEARCH_MS", "SEARCH_MEMORY_BYTES", "ACTIONS", "FLUENTS",
+            "PEAK_RSS_KB", "PEAK_HEAP_BYTES", "GC_COUNT", "GC_TIME_JVM_MS",
+            "POR_PRUNED", "POR_TIME_MS", "POR_SAVED_MS", "INCUMBENT_LENGTH", "BOUND_PRUNED", "PROVED_OPTIMAL"
+    );
+
+    // Balayage: taille de départ et pas par domaine (ProblemGenerator), taille maximale
+    private static final Map<String, int[]> SWEEP_SIZES = Map.of(
+            "blocks", new int[] {4, 2},
+            "gripper", new int[] {2, 2},
+            "logistics", new int[] {2, 1},
+            "depots", new int[] {2, 1}
+    );
+    private static final int SWEEP_MAX_SIZE = 200;
+
+    // Répétitions: rééchantillonnages bootstrap et graine du bootstrap (résumé reproductible)
+    private static final int BOOTSTRAP_SAMPLES = 2000;
+    private static final long BOOTSTRAP_SEED = 42;
+
+    // Réglage (--tune): valeurs candidates de chaque paramètre (option longue) et valeurs par défaut
+    // (MCTS_PARAMS, défauts de RWPlanner), toujours candidates
+    private static final Map<String, Map<String, List<String>>> TUNE_SPACES = new LinkedHashMap<>();
+    private static final Map<String, Map<String, String>> TUNE_DEFAULTS = new LinkedHashMap<>();
+    private static final Map<String, String> TUNE_MAIN_CLASSES = Map.of(
+            "MCTS", "fr.uga.pddl4j.examples.asp.MCTSPlanner",
+            "RW", "fr.uga.pddl4j.examples.asp.RWPlanner"
+    );
+    static {
+        Map<String, List<String>> mcts = new LinkedHashMap<>();
+        mcts.put("iterations", List.of("100", "300", "1000", "3000"));
+        mcts.put("rolloutDepth", List.of("20", "40", "80", "160"));
+        mcts.put("exploration", List.of("0.5", "1.0", "1.4", "2.0"));
+        TUNE_SPACES.put("MCTS", mcts);
+        Map<String, String> mctsDefaults = new LinkedHashMap<>();
+        mctsDefaults.put("iterations", "300");
+        mctsDefaults.put("rolloutDepth", "40");
+        mctsDefaults.put("exploration", "1.4");
+        TUNE_DEFAULTS.put("MCTS", mctsDefaults);
+        Map<String, List<String>> rw = new LinkedHashMap<>();
+        rw.put("walkLength", List.of("10", "20", "40", "80"));
+        rw.put("numWalks", List.of("50", "100", "200", "400"));
+        rw.put("maxNoImprove", List.of("10", "25", "50", "100"));
+        TUNE_SPACES.put("RW", rw);
+        Map<String, String> rwDefaults = new LinkedHashMap<>();
+        rwDefaults.put("walkLength", "20");
+        rwDefaults.put("numWalks", "200");
+        rwDefaults.put("maxNoImprove", "50");
+        TUNE_DEFAULTS.put("RW", rwDefaults);
+    }
+
+    // Course: nombre de blocs avant le premier test, pénalité des échecs (PAR10)
+    private static final int RACE_FIRST_TEST = 5;
+    private static final int RACE_FAILURE_FACTOR = 10;
+
+    // Echantillonnage de /proc/<pid>/status pendant l'exécution d'un planner
+    private static final long RSS_SAMPLE_PERIOD_MS = 100;
 
     private static class RunResult {
         final boolean success;
@@ -51,18 +152,37 @@ public class BenchmarkRunner {
         final int exitCode;
         final boolean killedByTimeout;
         final String output;
+        final Map<String, String> metrics;
 
-        RunResult(boolean success, long runtimeMs, int planLength, int exitCode, boolean killedByTimeout, String output) {
+        RunResult(boolean success, long runtimeMs, int planLength, int exitCode, boolean killedByTimeout, String output,
+                  Map<String, String> metrics) {
             this.success = success;
             this.runtimeMs = runtimeMs;
             this.planLength = planLength;
             this.exitCode = exitCode;
             this.killedByTimeout = killedByTimeout;
             this.output = output;
+            this.metrics = metrics;
         }
     }
 
     public static void main(String[] args) throws Exception {
+        int compareAt = Arrays.asList(args).indexOf("--compare");
+        if (compareAt >= 0) {
+            if (compareAt + 2 >= args.length) {
+                System.err.println("Usage: BenchmarkRunner --compare <baseline.csv> <candidate.csv> [thresholds]");
+                System.exit(2);
+            }
+            int regressions = compare(Paths.get(args[compareAt + 1]), Paths.get(args[compareAt + 2]),
+                    Double.parseDouble(option(args, "--runtimeTolerance", "0.2")),
+                    Long.parseLong(option(args, "--runtimeMinMs", "50")),
+                    Double.parseDouble(option(args, "--lengthTolerance", "0")),
+                    Double.parseDouble(option(args, "--successTolerance", "0")),
+                    Double.parseDouble(option(args, "--alpha", "0.05")),
+                    Paths.get("results", "compare.csv"));
+            System.exit(regressions > 0 ? 1 : 0);
+        }
+
         if (!Files.exists(PDDL_ROOT)) {
             System.err.println("PDDL root not found: " + PDDL_ROOT.toAbsolutePath());
             System.err.println("Vérifie ton working directory IntelliJ (doit être la racine du projet).");
@@ -74,31 +194,103 @@ public class BenchmarkRunner {
         Files.createDirectories(resultsDir);
         Path csvPath = resultsDir.resolve("results.csv");
 
+        // Enregistrements JFR (optionnel)
+        boolean recordJfr = Arrays.asList(args).contains("--jfr");
+        Path jfrDir = resultsDir.resolve("jfr");
+        if (recordJfr) {
+            Files.createDirectories(jfrDir);
+        }
+
+        // Cache des problèmes instanciés (optionnel): seul le premier planner instancie
+        List<String> cacheParams = Arrays.asList(args).contains("--cache")
+                ? List.of("--cacheDir", resultsDir.resolve("cache").toString())
+                : List.of();
+
+        // Réduction d'ordre partiel (optionnel): une ligne ASP_POR en plus de la ligne ASP
+        boolean runPor = Arrays.asList(args).contains("--por");
+
+        // Profils de paramètres par domaine (optionnel, écrits par --tune)
+        String profilesOption = option(args, "--profiles", null);
+        Path profilesDir = profilesOption == null ? null : Paths.get(profilesOption);
+
+        if (Arrays.asList(args).contains("--sweep")) {
+            long timeLimitMs = Long.parseLong(option(args, "--sweepTime", "60000"));
+            long memoryMb = Long.parseLong(option(args, "--sweepMemory", "2048"));
+            sweep(resultsDir, cacheParams, timeLimitMs, memoryMb, profilesDir);
+            return;
+        }
+
         // Collecter des donnees
-        List<ProblemInstance> instances = collectInstances();
+        int limit = Integer.parseInt(option(args, "--limit", "10"));
+        List<ProblemInstance> instances = collectInstances(limit);
 
         System.out.println("==== BenchmarkRunner ====");
         System.out.println("Found instances: " + instances.size());
         System.out.println("CSV -> " + csvPath.toAbsolutePath());
+        if (recordJfr) {
+            System.out.println("JFR -> " + jfrDir.toAbsolutePath());
+        }
         System.out.println("Time: " + LocalDateTime.now());
         System.out.println();
 
+        if (Arrays.asList(args).contains("--tune")) {
+            List<String> tuneDomains = Arrays.asList(option(args, "--tuneDomains", String.join(",", DOMAINS))
+                    .split(","));
+            tune(instances.stream().filter(i -> tuneDomains.contains(i.domain)).collect(Collectors.toList()),
+                    cacheParams, Arrays.asList(option(args, "--tunePlanners", "MCTS,RW").split(",")),
+                    Integer.parseInt(option(args, "--tuneTrain", "5")),
+                    Integer.parseInt(option(args, "--tuneConfigs", "12")),
+                    Integer.parseInt(option(args, "--tuneBudget", "150")),
+                    Long.parseLong(option(args, "--tuneTime", "30000")),
+                    Integer.parseInt(option(args, "--workers",
+                            String.valueOf(Runtime.getRuntime().availableProcessors()))),
+                    Double.parseDouble(option(args, "--alpha", "0.05")),
+                    profilesDir == null ? Paths.get("profiles") : profilesDir, resultsDir);
+            return;
+        }
+
+        int repeat = Integer.parseInt(option(args, "--repeat", "1"));
+        if (repeat > 1) {
+            repeat(instances, cacheParams, repeat, resultsDir, profilesDir);
+            return;
+        }
+
         // CSV
         List<String[]> rows = new ArrayList<>();
-        rows.add(new String[]{"domain", "suite", "problem", "planner", "success", "runtime_ms", "plan_length", "exit_code", "timeout_killed"});
+        List<String> header = new ArrayList<>(List.of("domain", "suite", "problem", "planner", "success", "runtime_ms",
+                "plan_length", "exit_code", "timeout_killed"));
+        for (String key : METRIC_KEYS) {
+            header.add(key.toLowerCase());
+        }
+        rows.add(header.toArray(new String[0]));
 
         for (ProblemInstance inst : instances) {
             System.out.println("[" + inst.domain + " / " + inst.suite + "] " + inst.problemFile.getFileName());
 
             // ASP
             RunResult asp = runPlanner("ASP", "fr.uga.pddl4j.examples.asp.ASP",
-                    inst.domainFile, inst.problemFile, List.of());
+                    inst.domainFile, inst.problemFile, cacheParams,
+                    recordJfr ? jfrDir.resolve(jfrName(inst, "ASP")) : null);
             rows.add(toRow(inst, "ASP", asp));
             printShort("ASP", asp);
 
+            // ASP avec stubborn sets (même heuristique, pour comparer les expansions)
+            if (runPor) {
+                RunResult aspPor = runPlanner("ASP_POR", "fr.uga.pddl4j.examples.asp.ASP",
+                        inst.domainFile, inst.problemFile, concat(cacheParams, List.of("--por")),
+                        recordJfr ? jfrDir.resolve(jfrName(inst, "ASP_POR")) : null);
+                rows.add(toRow(inst, "ASP_POR", aspPor));
+                printShort("ASP_POR", aspPor);
+                System.out.printf("  POR: pruned=%s porTime=%sms saved~%sms%n",
+                        aspPor.metrics.getOrDefault("POR_PRUNED", "?"),
+                        aspPor.metrics.getOrDefault("POR_TIME_MS", "?"),
+                        aspPor.metrics.getOrDefault("POR_SAVED_MS", "?"));
+            }
+
             // MCTSPlanner
             RunResult mcts = runPlanner("MCTS", "fr.uga.pddl4j.examples.asp.MCTSPlanner",
-                    inst.domainFile, inst.problemFile, MCTS_PARAMS);
+                    inst.domainFile, inst.problemFile, concat(cacheParams, plannerParams("MCTS", inst.domain,
+                            profilesDir)), recordJfr ? jfrDir.resolve(jfrName(inst, "MCTS")) : null);
             rows.add(toRow(inst, "MCTS", mcts));
             printShort("MCTS", mcts);
 
@@ -109,13 +301,760 @@ public class BenchmarkRunner {
         System.out.println("Done. Saved CSV: " + csvPath.toAbsolutePath());
     }
 
+    /**
+     * Balayage en taille: pour chaque domaine et planner, problèmes générés de taille croissante
+     * jusqu'à un échec ou une limite de temps ou de mémoire.
+     */
+    private static void sweep(Path resultsDir, List<String> cacheParams, long timeLimitMs, long memoryMb,
+                              Path profilesDir) throws Exception {
+        Path scratch = resultsDir.resolve("generated");
+        Path csvPath = resultsDir.resolve("sweep.csv");
+        List<String> jvmParams = List.of("-Xmx" + memoryMb + "m");
+
+        System.out.println("==== BenchmarkRunner (sweep) ====");
+        System.out.println("Limits: " + timeLimitMs + "ms, " + memoryMb + "MB");
+        System.out.println("CSV -> " + csvPath.toAbsolutePath());
+        System.out.println();
+
+        List<String[]> rows = new ArrayList<>();
+        List<String> header = new ArrayList<>(List.of("domain", "size", "problem", "planner", "success", "runtime_ms",
+                "plan_length", "exit_code", "timeout_killed"));
+        for (String key : METRIC_KEYS) {
+            header.add(key.toLowerCase());
+        }
+        rows.add(header.toArray(new String[0]));
+
+        Map<String, List<String>> planners = new LinkedHashMap<>();
+        planners.put("ASP", cacheParams);
+        planners.put("MCTS", concat(cacheParams, MCTS_PARAMS));
+        for (String domain : ProblemGenerator.DOMAINS) {
+            int[] sizes = SWEEP_SIZES.get(domain);
+            for (Map.Entry<String, List<String>> planner : planners.entrySet()) {
+                String mainClass = planner.getKey().equals("ASP") ? "fr.uga.pddl4j.examples.asp.ASP"
+                        : "fr.uga.pddl4j.examples.asp.MCTSPlanner";
+                List<String> params = planner.getKey().equals("ASP") ? planner.getValue()
+                        : concat(cacheParams, plannerParams(planner.getKey(), domain, profilesDir));
+                for (int size = sizes[0]; size <= SWEEP_MAX_SIZE; size += sizes[1]) {
+                    Path problem = ProblemGenerator.generate(domain, size, 1, scratch);
+                    ProblemInstance inst = new ProblemInstance(domain, String.valueOf(size),
+                            problem.resolveSibling("domain.pddl"), problem);
+                    RunResult r = runPlanner(planner.getKey(), mainClass, inst.domainFile, inst.problemFile,
+                            params, null, jvmParams, timeLimitMs);
+                    rows.add(toRow(inst, planner.getKey(), r));
+                    System.out.print("[" + domain + " n=" + size + "]");
+                    printShort(planner.getKey(), r);
+
+                    long rssKb = Long.parseLong(r.metrics.getOrDefault("PEAK_RSS_KB", "-1"));
+                    if (!r.success || r.killedByTimeout || r.runtimeMs > timeLimitMs || rssKb > memoryMb * 1024) {
+                        System.out.println("  -> limit reached at n=" + size);
+                        break;
+                    }
+                }
+                writeCsv(csvPath, rows); // résultats partiels conservés si le balayage est interrompu
+            }
+            System.out.println();
+        }
+        System.out.println("Done. Saved CSV: " + csvPath.toAbsolutePath());
+    }
+
+    /**
+     * Répétitions: chaque (problème, planner) est lancé k fois, graines 1..k pour les planners
+     * stochastiques, puis résumé statistique par (problème, planner).
+     */
+    private static void repeat(List<ProblemInstance> instances, List<String> cacheParams, int k, Path resultsDir,
+                               Path profilesDir) throws Exception {
+        Path runsPath = resultsDir.resolve("repeats.csv");
+        Path summaryPath = resultsDir.resolve("summary.csv");
+        System.out.println("Repeats: " + k + " (seeds 1.." + k + ")");
+        System.out.println("CSV -> " + runsPath.toAbsolutePath() + ", " + summaryPath.toAbsolutePath());
+
+        List<String[]> runs = new ArrayList<>();
+        List<String> header = new ArrayList<>(List.of("domain", "suite", "problem", "planner", "seed", "success",
+                "runtime_ms", "plan_length", "exit_code", "timeout_killed"));
+        for (String key : METRIC_KEYS) {
+            header.add(key.toLowerCase());
+        }
+        runs.add(header.toArray(new String[0]));
+        List<String[]> summary = new ArrayList<>();
+        summary.add(new String[] {"domain", "suite", "problem", "planner", "runs", "success_rate",
+            "success_rate_ci_low", "success_rate_ci_high", "runtime_median_ms", "runtime_p90_ms",
+            "runtime_median_ci_low", "runtime_median_ci_high", "plan_length_median", "plan_length_p90",
+            "plan_length_median_ci_low", "plan_length_median_ci_high"});
+
+        Map<String, String> mainClasses = new LinkedHashMap<>();
+        mainClasses.put("ASP", "fr.uga.pddl4j.examples.asp.ASP");
+        mainClasses.put("MCTS", "fr.uga.pddl4j.examples.asp.MCTSPlanner");
+        mainClasses.put("RW", "fr.uga.pddl4j.examples.asp.RWPlanner");
+        for (ProblemInstance inst : instances) {
+            System.out.println("[" + inst.domain + " / " + inst.suite + "] " + inst.problemFile.getFileName());
+            for (Map.Entry<String, String> planner : mainClasses.entrySet()) {
+                String label = planner.getKey();
+                List<RunResult> results = new ArrayList<>();
+                for (int seed = 1; seed <= k; seed++) {
+                    List<String> params = label.equals("ASP") ? cacheParams
+                            : concat(concat(cacheParams, plannerParams(label, inst.domain, profilesDir)),
+                            List.of("--seed", String.valueOf(seed)));
+                    RunResult r = runPlanner(label, planner.getValue(), inst.domainFile, inst.problemFile,
+                            params, null);
+                    results.add(r);
+                    List<String> row = new ArrayList<>(Arrays.asList(toRow(inst, label, r)));
+                    row.add(4, String.valueOf(seed));
+                    runs.add(row.toArray(new String[0]));
+                }
+                String[] line = summarize(inst, label, results);
+                summary.add(line);
+                System.out.printf("  %s: success=%s runtime median=%sms p90=%sms [%s, %s] len median=%s%n",
+                        label, line[5], line[8], line[9], line[10], line[11], line[12]);
+            }
+            // résultats partiels conservés si les répétitions sont interrompues
+            writeCsv(runsPath, runs);
+            writeCsv(summaryPath, summary);
+            System.out.println();
+        }
+        System.out.println("Done. Saved CSV: " + runsPath.toAbsolutePath() + ", " + summaryPath.toAbsolutePath());
+    }
+
+    /**
+     * Ligne de résumé: taux de succès sur toutes les exécutions; temps et longueur de plan sur les
+     * exécutions réussies (cellules vides si aucune). IC à 95 % par bootstrap percentile.
+     */
+    private static String[] summarize(ProblemInstance inst, String planner, List<RunResult> results) {
+        Random rng = new Random(BOOTSTRAP_SEED);
+        double[] success = results.stream().mapToDouble(r -> r.success ? 1 : 0).toArray();
+        double[] runtime = results.stream().filter(r -> r.success).mapToDouble(r -> r.runtimeMs).toArray();
+        double[] length = results.stream().filter(r -> r.success).mapToDouble(r -> r.planLength).toArray();
+        double[] successCi = bootstrapCi(success, BenchmarkRunner::mean, rng);
+        double[] runtimeCi = bootstrapCi(runtime, BenchmarkRunner::median, rng);
+        double[] lengthCi = bootstrapCi(length, BenchmarkRunner::median, rng);
+        return new String[] {inst.domain, inst.suite, inst.problemFile.getFileName().toString(), planner,
+            String.valueOf(results.size()), format(mean(success)), format(successCi[0]), format(successCi[1]),
+            format(median(runtime)), format(percentile(runtime, 0.9)), format(runtimeCi[0]), format(runtimeCi[1]),
+            format(median(length)), format(percentile(length, 0.9)), format(lengthCi[0]), format(lengthCi[1])};
+    }
+
+    /**
+     * IC à 95 % d'une statistique par bootstrap percentile ({NaN, NaN} sans données).
+     */
+    private static double[] bootstrapCi(double[] xs, ToDoubleFunction<double[]> stat,
+                                        Random rng) {
+        if (xs.length == 0) {
+            return new double[] {Double.NaN, Double.NaN};
+        }
+        double[] stats = new double[BOOTSTRAP_SAMPLES];
+        double[] sample = new double[xs.length];
+        for (int b = 0; b < BOOTSTRAP_SAMPLES; b++) {
+            for (int i = 0; i < xs.length; i++) {
+                sample[i] = xs[rng.nextInt(xs.length)];
+            }
+            stats[b] = stat.applyAsDouble(sample);
+        }
+        return new double[] {percentile(stats, 0.025), percentile(stats, 0.975)};
+    }
+
+    private static double mean(double[] xs) {
+        return xs.length == 0 ? Double.NaN : Arrays.stream(xs).average().orElse(Double.NaN);
+    }
+
+    private static double median(double[] xs) {
+        return percentile(xs, 0.5);
+    }
+
+    /**
+     * Quantile par interpolation linéaire entre les rangs (NaN sans données).
+     */
+    private static double percentile(double[] xs, double q) {
+        if (xs.length == 0) {
+            return Double.NaN;
+        }
+        double[] sorted = xs.clone();
+        Arrays.sort(sorted);
+        double pos = q * (sorted.length - 1);
+        int lo = (int) Math.floor(pos);
+        int hi = Math.min(lo + 1, sorted.length - 1);
+        return sorted[lo] + (pos - lo) * (sorted[hi] - sorted[lo]);
+    }
+
+    private static String format(double x) {
+        return Double.isNaN(x) ? "" : String.format(Locale.ROOT, "%.2f", x);
+    }
+
+    // ---------- Réglage des paramètres (course) ----------
+
+    /**
+     * Paramètres d'un planner stochastique: le profil du domaine s'il en contient pour ce planner,
+     * sinon les paramètres par défaut.
+     */
+    private static List<String> plannerParams(String planner, String domain, Path profilesDir) {
+        Path profile = profilesDir == null ? null : profilesDir.resolve(domain + ".properties");
+        if (profile != null && Files.exists(profile) && !ParameterProfile.load(profile, planner).isEmpty()) {
+            return List.of("--profile", profile.toString());
+        }
+        return planner.equals("MCTS") ? MCTS_PARAMS : List.of();
+    }
+
+    /**
+     * Réglage par course: pour chaque domaine et planner, une course sur les problèmes
+     * d'entraînement, puis écriture du profil du domaine.
+     */
+    private static void tune(List<ProblemInstance> instances, List<String> cacheParams, List<String> planners,
+                             int train, int nbConfigs, int budget, long timeLimitMs, int workers, double alpha,
+                             Path profilesDir, Path resultsDir) throws Exception {
+        Path csvPath = resultsDir.resolve("tuning.csv");
+        System.out.println("Tuning: " + planners + ", " + nbConfigs + " configurations, budget " + budget
+                + " runs, " + timeLimitMs + "ms per run, " + workers + " workers");
+        System.out.println("Profiles -> " + profilesDir.toAbsolutePath() + ", CSV -> " + csvPath.toAbsolutePath());
+        System.out.println();
+
+        List<String[]> rows = new ArrayList<>();
+        rows.add(new String[] {"domain", "planner", "block", "suite", "problem", "seed", "config", "params",
+            "success", "runtime_ms", "plan_length", "cost"});
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, workers));
+        try {
+            for (String domain : DOMAINS) {
+                List<ProblemInstance> candidates = instances.stream()
+                        .filter(i -> i.domain.equals(domain))
+                        .collect(Collectors.toList());
+                if (candidates.isEmpty()) {
+                    continue;
+                }
+                // Problèmes d'entraînement répartis sur toute la plage (petits et grands)
+                List<ProblemInstance> training = new ArrayList<>();
+                int n = Math.min(train, candidates.size());
+                for (int i = 0; i < n; i++) {
+                    int index = n == 1 ? 0 : (int) Math.round(i * (candidates.size() - 1.0) / (n - 1));
+                    training.add(candidates.get(index));
+                }
+                for (String planner : planners) {
+                    if (!TUNE_SPACES.containsKey(planner)) {
+                        throw new IllegalArgumentException("unknown planner to tune: " + planner);
+                    }
+                    race(domain, planner, training, cacheParams, nbConfigs, budget, timeLimitMs, alpha, pool,
+                            profilesDir, rows, csvPath);
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        System.out.println("Done. Saved CSV: " + csvPath.toAbsolutePath());
+    }
+
+    /**
+     * Une course (F-race): les configurations vivantes sont lancées sur un bloc (problème, graine)
+     * à la fois; à partir de {@link #RACE_FIRST_TEST} blocs, celles qui sont significativement
+     * moins bonnes que la meilleure (Friedman puis Conover sur les rangs par bloc) sont éliminées.
+     * Toutes les configurations vivantes voient les mêmes blocs et les mêmes graines.
+     */
+    private static void race(String domain, String planner, List<ProblemInstance> training, List<String> cacheParams,
+                             int nbConfigs, int budget, long timeLimitMs, double alpha, ExecutorService pool,
+                             Path profilesDir, List<String[]> rows, Path csvPath) throws Exception {
+        List<Map<String, String>> configs = sampleConfigs(planner, nbConfigs,
+                new Random(Objects.hash(domain, planner)));
+        List<Integer> alive = new ArrayList<>();
+        for (int c = 0; c < configs.size(); c++) {
+            alive.add(c);
+        }
+        int[] eliminatedAt = new int[configs.size()];
+        List<double[]> blocks = new ArrayList<>();
+        int runs = 0;
+        System.out.println("[" + domain + " / " + planner + "] " + configs.size() + " configurations on "
+                + training.size() + " problems");
+
+        while (alive.size() > 1 && runs + alive.size() <= budget) {
+            int block = blocks.size();
+            ProblemInstance inst = training.get(block % training.size());
+            int seed = block / training.size() + 1;
+            Map<Integer, Future<RunResult>> futures = new LinkedHashMap<>();
+            for (int c : alive) {
+                List<String> params = new ArrayList<>(cacheParams);
+                for (Map.Entry<String, String> e : configs.get(c).entrySet()) {
+                    params.add("--" + e.getKey());
+                    params.add(e.getValue());
+                }
+                params.add("--seed");
+                params.add(String.valueOf(seed));
+                futures.put(c, pool.submit(() -> runPlanner(planner, TUNE_MAIN_CLASSES.get(planner),
+                        inst.domainFile, inst.problemFile, params, null, List.of(), timeLimitMs)));
+            }
+            double[] costs = new double[configs.size()];
+            Arrays.fill(costs, Double.NaN);
+            for (Map.Entry<Integer, Future<RunResult>> f : futures.entrySet()) {
+                RunResult r = f.getValue().get();
+                int c = f.getKey();
+                costs[c] = r.success ? r.runtimeMs : (double) RACE_FAILURE_FACTOR * timeLimitMs;
+                rows.add(new String[] {domain, planner, String.valueOf(block), inst.suite,
+                    inst.problemFile.getFileName().toString(), String.valueOf(seed), String.valueOf(c),
+                    configString(configs.get(c)), String.valueOf(r.success), String.valueOf(r.runtimeMs),
+                    String.valueOf(r.planLength), format(costs[c])});
+            }
+            blocks.add(costs);
+            runs += alive.size();
+
+            if (blocks.size() >= RACE_FIRST_TEST) {
+                List<Integer> survivors = friedmanSurvivors(blocks, alive, alpha);
+                for (int c : alive) {
+                    if (!survivors.contains(c)) {
+                        eliminatedAt[c] = blocks.size();
+                    }
+                }
+                alive = survivors;
+            }
+            System.out.printf("  block %d (%s, seed %d): %d alive%n", block, inst.problemFile.getFileName(), seed,
+                    alive.size());
+            writeCsv(csvPath, rows); // résultats partiels conservés si le réglage est interrompu
+        }
+
+        // Meilleure configuration: plus petite somme des rangs parmi les survivantes (défaut en cas
+        // d'égalité, il est la configuration 0)
+        double[] rankSums = rankSums(blocks, alive);
+        int best = alive.get(0);
+        double bestSum = rankSums.length == 0 ? 0 : rankSums[0];
+        for (int j = 1; j < alive.size(); j++) {
+            if (rankSums[j] < bestSum) {
+                bestSum = rankSums[j];
+                best = alive.get(j);
+            }
+        }
+        double bestCost = 0;
+        for (double[] costs : blocks) {
+            bestCost += costs[best] / blocks.size();
+        }
+        String summary = String.format(Locale.ROOT,
+                "%d/%d configurations left after %d blocks (%d runs), mean cost %.0f ms, default %s",
+                alive.size(), configs.size(), blocks.size(), runs, blocks.isEmpty() ? Double.NaN : bestCost,
+                eliminatedAt[0] > 0 ? "eliminated at block " + eliminatedAt[0] : best == 0 ? "selected" : "kept");
+        Path profile = profilesDir.resolve(domain + ".properties");
+        ParameterProfile.write(profile, domain, planner, configs.get(best), summary);
+        System.out.println("  -> " + configString(configs.get(best)) + " (" + summary + ")");
+        System.out.println("  -> " + profile.toAbsolutePath());
+        System.out.println();
+    }
+
+    /**
+     * Configurations candidates: les valeurs par défaut, puis des tirages distincts dans l'espace
+     * des paramètres.
+     */
+    private static List<Map<String, String>> sampleConfigs(String planner, int n, Random rng) {
+        Map<String, List<String>> space = TUNE_SPACES.get(planner);
+        int size = 1;
+        for (List<String> values : space.values()) {
+            size *= values.size();
+        }
+        Set<Map<String, String>> configs = new LinkedHashSet<>();
+        configs.add(TUNE_DEFAULTS.get(planner));
+        while (configs.size() < Math.min(n, size)) {
+            Map<String, String> config = new LinkedHashMap<>();
+            for (Map.Entry<String, List<String>> e : space.entrySet()) {
+                config.put(e.getKey(), e.getValue().get(rng.nextInt(e.getValue().size())));
+            }
+            configs.add(config);
+        }
+        return new ArrayList<>(configs);
+    }
+
+    private static String configString(Map<String, String> config) {
+        return config.entrySet().stream()
+                .map(e -> "--" + e.getKey() + " " + e.getValue())
+                .collect(Collectors.joining(" "));
+    }
+
+    /**
+     * Rangs moyens (ex-aequo: rang moyen) des valeurs, de 1 à n.
+     */
+    private static double[] ranks(double[] values) {
+        Integer[] order = new Integer[values.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingDouble(i -> values[i]));
+        double[] ranks = new double[values.length];
+        for (int i = 0; i < order.length; ) {
+            int j = i;
+            while (j + 1 < order.length && values[order[j + 1]] == values[order[i]]) {
+                j++;
+            }
+            for (int k = i; k <= j; k++) {
+                ranks[order[k]] = (i + j) / 2.0 + 1;
+            }
+            i = j + 1;
+        }
+        return ranks;
+    }
+
+    /**
+     * Sommes des rangs par bloc des configurations vivantes (dans l'ordre de {@code alive}).
+     */
+    private static double[] rankSums(List<double[]> blocks, List<Integer> alive) {
+        double[] sums = new double[alive.size()];
+        for (double[] costs : blocks) {
+            double[] ranks = ranks(alive.stream().mapToDouble(c -> costs[c]).toArray());
+            for (int j = 0; j < sums.length; j++) {
+                sums[j] += ranks[j];
+            }
+        }
+        return sums;
+    }
+
+    /**
+     * Test de Friedman sur les blocs (forme de Conover, avec ex-aequo) puis, s'il est significatif,
+     * comparaisons de Conover avec la meilleure configuration.
+     *
+     * @return les configurations qui ne sont pas significativement moins bonnes que la meilleure.
+     */
+    private static List<Integer> friedmanSurvivors(List<double[]> blocks, List<Integer> alive, double alpha) {
+        int b = blocks.size();
+        int k = alive.size();
+        double[] sums = rankSums(blocks, alive);
+        double a1 = 0;
+        for (double[] costs : blocks) {
+            for (double r : ranks(alive.stream().mapToDouble(c -> costs[c]).toArray())) {
+                a1 += r * r;
+            }
+        }
+        double c1 = b * k * (k + 1) * (k + 1) / 4.0;
+        double sumSq = 0;
+        for (double r : sums) {
+            sumSq += r * r;
+        }
+        if (a1 - c1 <= 0) {
+            return alive; // toutes les configurations à égalité dans chaque bloc
+        }
+        double t1 = (k - 1) * (sumSq - b * c1) / (a1 - c1);
+        if (chiSquareSurvival(t1, k - 1) >= alpha) {
+            return alive;
+        }
+        double best = Arrays.stream(sums).min().orElse(0);
+        int df = (b - 1) * (k - 1);
+        double critical = studentQuantile(1 - alpha / 2, df)
+                * Math.sqrt(2 * b * Math.max(0, a1 - sumSq / b) / df);
+        List<Integer> survivors = new ArrayList<>();
+        for (int j = 0; j < k; j++) {
+            if (sums[j] - best <= critical) {
+                survivors.add(alive.get(j));
+            }
+        }
+        return survivors;
+    }
+
+    /**
+     * P(X &gt; x) pour une loi du chi-deux à df degrés de liberté (approximation de Wilson-Hilferty).
+     */
+    private static double chiSquareSurvival(double x, int df) {
+        if (x <= 0) {
+            return 1.0;
+        }
+        double v = 2.0 / (9 * df);
+        double z = (Math.cbrt(x / df) - (1 - v)) / Math.sqrt(v);
+        return 1 - normalCdf(z);
+    }
+
+    /**
+     * Quantile de la loi de Student (développement de Cornish-Fisher autour du quantile normal).
+     */
+    private static double studentQuantile(double p, int df) {
+        double z = normalQuantile(p);
+        double z3 = z * z * z;
+        double z5 = z3 * z * z;
+        return z + (z3 + z) / (4.0 * df) + (5 * z5 + 16 * z3 + 3 * z) / (96.0 * df * df);
+    }
+
+    /**
+     * Quantile de la loi normale (Abramowitz et Stegun 26.2.23, erreur &lt; 4.5e-4).
+     */
+    private static double normalQuantile(double p) {
+        double q = p < 0.5 ? p : 1 - p;
+        double t = Math.sqrt(-2 * Math.log(q));
+        double x = t - (2.515517 + 0.802853 * t + 0.010328 * t * t)
+                / (1 + 1.432788 * t + 0.189269 * t * t + 0.001308 * t * t * t);
+        return p < 0.5 ? -x : x;
+    }
+
+    // ---------- Comparaison baseline / candidat ----------
+
+    /**
+     * Échantillons d'une ligne (domain, suite, problem, planner): une valeur par exécution.
+     */
+    private static class Samples {
+        final List<Double> success = new ArrayList<>();
+        final List<Double> runtime = new ArrayList<>(); // exécutions réussies seulement
+        final List<Double> length = new ArrayList<>();  // exécutions réussies seulement
+    }
+
+    /**
+     * Compare deux fichiers de résultats et écrit le rapport.
+     *
+     * @return le nombre de régressions.
+     */
+    private static int compare(Path baselinePath, Path candidatePath, double runtimeTolerance, long runtimeMinMs,
+                               double lengthTolerance, double successTolerance, double alpha, Path reportPath)
+            throws IOException {
+        Map<String, Samples> baseline = readSamples(baselinePath);
+        Map<String, Samples> candidate = readSamples(candidatePath);
+        System.out.println("==== BenchmarkRunner (compare) ====");
+        System.out.println("Baseline:  " + baselinePath + " (" + baseline.size() + " rows)");
+        System.out.println("Candidate: " + candidatePath + " (" + candidate.size() + " rows)");
+        System.out.println();
+
+        List<String[]> report = new ArrayList<>();
+        report.add(new String[] {"domain", "suite", "problem", "planner", "metric", "baseline", "candidate",
+            "change", "p_value", "verdict"});
+        int regressions = 0;
+        int improvements = 0;
+        for (Map.Entry<String, Samples> e : baseline.entrySet()) {
+            String[] key = e.getKey().split("\t", -1);
+            Samples b = e.getValue();
+            Samples c = candidate.get(e.getKey());
+            List<String[]> lines = new ArrayList<>();
+            if (c == null) {
+                lines.add(new String[] {"row", "", "", "", "", "REGRESSION (missing in candidate)"});
+            } else {
+                // Succès: baisse du taux au-delà de la tolérance
+                double bRate = mean(toArray(b.success));
+                double cRate = mean(toArray(c.success));
+                double pSuccess = b.success.size() > 1 && c.success.size() > 1
+                        ? fisherLess(b.success, c.success) : Double.NaN;
+                double pGain = b.success.size() > 1 && c.success.size() > 1
+                        ? fisherLess(c.success, b.success) : Double.NaN;
+                lines.add(verdict("success_rate", bRate, cRate, cRate - bRate,
+                        bRate - cRate > successTolerance && significant(pSuccess, alpha),
+                        cRate - bRate > successTolerance && significant(pGain, alpha),
+                        Double.isNaN(pSuccess) ? Double.NaN : Math.min(pSuccess, pGain)));
+                // Temps et longueur: médianes des exécutions réussies des deux côtés
+                if (!b.runtime.isEmpty() && !c.runtime.isEmpty()) {
+                    double bMed = median(toArray(b.runtime));
+                    double cMed = median(toArray(c.runtime));
+                    double p = b.runtime.size() > 1 && c.runtime.size() > 1
+                            ? mannWhitney(toArray(b.runtime), toArray(c.runtime)) : Double.NaN;
+                    lines.add(verdict("runtime_ms", bMed, cMed, relative(bMed, cMed),
+                            cMed > bMed * (1 + runtimeTolerance) && cMed - bMed > runtimeMinMs && significant(p, alpha),
+                            bMed > cMed * (1 + runtimeTolerance) && bMed - cMed > runtimeMinMs && significant(p, alpha),
+                            p));
+                }
+                if (!b.length.isEmpty() && !c.length.isEmpty()) {
+                    double bMed = median(toArray(b.length));
+                    double cMed = median(toArray(c.length));
+                    double p = b.length.size() > 1 && c.length.size() > 1
+                            ? mannWhitney(toArray(b.length), toArray(c.length)) : Double.NaN;
+                    lines.add(verdict("plan_length", bMed, cMed, relative(bMed, cMed),
+                            cMed > bMed * (1 + lengthTolerance) && significant(p, alpha),
+                            bMed > cMed * (1 + lengthTolerance) && significant(p, alpha),
+                            p));
+                }
+            }
+            for (String[] line : lines) {
+                String[] row = new String[] {key[0], key[1], key[2], key[3], line[0], line[1], line[2], line[3],
+                    line[4], line[5]};
+                report.add(row);
+                if (line[5].startsWith("REGRESSION")) {
+                    regressions++;
+                } else if (line[5].equals("IMPROVEMENT")) {
+                    improvements++;
+                }
+                if (!line[5].equals("OK")) {
+                    System.out.printf("  %-11s %s/%s/%s %s %s: %s -> %s (change %s, p %s)%n",
+                            line[5].split(" ")[0], key[0], key[1], key[2], key[3], line[0], line[1], line[2],
+                            line[3], line[4]);
+                }
+            }
+        }
+        for (String k : candidate.keySet()) {
+            if (!baseline.containsKey(k)) {
+                String[] key = k.split("\t", -1);
+                report.add(new String[] {key[0], key[1], key[2], key[3], "row", "", "", "", "", "NEW"});
+            }
+        }
+        Files.createDirectories(reportPath.getParent());
+        writeCsv(reportPath, report);
+        System.out.println();
+        System.out.println("Regressions: " + regressions + ", improvements: " + improvements);
+        System.out.println("Report -> " + reportPath.toAbsolutePath());
+        return regressions;
+    }
+
+    private static String[] verdict(String metric, double base, double cand, double change, boolean worse,
+                                    boolean better, double p) {
+        return new String[] {metric, format(base), format(cand), format(change), format(p),
+            worse ? "REGRESSION" : better ? "IMPROVEMENT" : "OK"};
+    }
+
+    /**
+     * Un seul échantillon (pas de test possible): seuls les seuils décident.
+     */
+    private static boolean significant(double p, double alpha) {
+        return Double.isNaN(p) || p < alpha;
+    }
+
+    private static double relative(double base, double cand) {
+        return base == 0 ? Double.NaN : (cand - base) / base;
+    }
+
+    private static double[] toArray(List<Double> xs) {
+        return xs.stream().mapToDouble(Double::doubleValue).toArray();
+    }
+
+    /**
+     * Lit un CSV de résultats (results, repeats ou sweep): les lignes de même clé sont les
+     * exécutions d'une même paire (problème, planner).
+     */
+    private static Map<String, Samples> readSamples(Path path) throws IOException {
+        List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+        if (lines.isEmpty()) {
+            throw new IOException("empty CSV: " + path);
+        }
+        List<String> header = parseCsvLine(lines.get(0));
+        int domain = header.indexOf("domain");
+        int suite = header.contains("suite") ? header.indexOf("suite") : header.indexOf("size");
+        int problem = header.indexOf("problem");
+        int planner = header.indexOf("planner");
+        int success = header.indexOf("success");
+        int runtime = header.indexOf("runtime_ms");
+        int length = header.indexOf("plan_length");
+        if (domain < 0 || suite < 0 || problem < 0 || planner < 0 || success < 0 || runtime < 0 || length < 0) {
+            throw new IOException("not a BenchmarkRunner CSV: " + path);
+        }
+        Map<String, Samples> samples = new LinkedHashMap<>();
+        for (String line : lines.subList(1, lines.size())) {
+            if (line.isBlank()) {
+                continue;
+            }
+            List<String> row = parseCsvLine(line);
+            String key = row.get(domain) + "\t" + row.get(suite) + "\t" + row.get(problem) + "\t" + row.get(planner);
+            Samples s = samples.computeIfAbsent(key, k -> new Samples());
+            boolean ok = Boolean.parseBoolean(row.get(success));
+            s.success.add(ok ? 1.0 : 0.0);
+            if (ok) {
+                s.runtime.add(Double.parseDouble(row.get(runtime)));
+                s.length.add(Double.parseDouble(row.get(length)));
+            }
+        }
+        return samples;
+    }
+
+    /**
+     * Découpe une ligne CSV écrite par {@link #csvEscape(String)}.
+     */
+    private static List<String> parseCsvLine(String line) {
+        List<String> cells = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char ch = line.charAt(i);
+            if (quoted) {
+                if (ch == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    cell.append('"');
+                    i++;
+                } else if (ch == '"') {
+                    quoted = false;
+                } else {
+                    cell.append(ch);
+                }
+            } else if (ch == '"') {
+                quoted = true;
+            } else if (ch == ',') {
+                cells.add(cell.toString());
+                cell.setLength(0);
+            } else {
+                cell.append(ch);
+            }
+        }
+        cells.add(cell.toString());
+        return cells;
+    }
+
+    /**
+     * Test de Mann-Whitney bilatéral (approximation normale, correction des ex-aequo).
+     *
+     * @return la p-valeur.
+     */
+    private static double mannWhitney(double[] a, double[] b) {
+        int n1 = a.length;
+        int n2 = b.length;
+        int n = n1 + n2;
+        double[][] all = new double[n][];
+        for (int i = 0; i < n1; i++) {
+            all[i] = new double[] {a[i], 0};
+        }
+        for (int i = 0; i < n2; i++) {
+            all[n1 + i] = new double[] {b[i], 1};
+        }
+        Arrays.sort(all, Comparator.comparingDouble(x -> x[0]));
+        double rankSumA = 0;
+        double ties = 0;
+        for (int i = 0; i < n; ) {
+            int j = i;
+            while (j + 1 < n && all[j + 1][0] == all[i][0]) {
+                j++;
+            }
+            double rank = (i + j) / 2.0 + 1;
+            for (int k = i; k <= j; k++) {
+                if (all[k][1] == 0) {
+                    rankSumA += rank;
+                }
+            }
+            double t = j - i + 1;
+            ties += t * t * t - t;
+            i = j + 1;
+        }
+        double u = rankSumA - n1 * (n1 + 1) / 2.0;
+        double mean = n1 * n2 / 2.0;
+        double var = n1 * n2 / 12.0 * ((n + 1) - ties / ((double) n * (n - 1)));
+        if (var <= 0) {
+            return 1.0; // toutes les valeurs égales
+        }
+        double z = (Math.abs(u - mean) - 0.5) / Math.sqrt(var);
+        return Math.min(1.0, 2 * (1 - normalCdf(Math.max(z, 0))));
+    }
+
+    /**
+     * Test exact de Fisher unilatéral: p-valeur de « le taux de succès de b est inférieur à celui
+     * de a » (valeurs 0/1).
+     */
+    private static double fisherLess(List<Double> a, List<Double> b) {
+        int n1 = a.size();
+        int n2 = b.size();
+        int s1 = (int) Math.round(a.stream().mapToDouble(Double::doubleValue).sum());
+        int s2 = (int) Math.round(b.stream().mapToDouble(Double::doubleValue).sum());
+        int successes = s1 + s2;
+        // P(X <= s2), X hypergéométrique: succès de b parmi les n1 + n2 exécutions
+        double p = 0;
+        for (int x = Math.max(0, successes - n1); x <= Math.min(s2, n2); x++) {
+            p += Math.exp(logChoose(n2, x) + logChoose(n1, successes - x) - logChoose(n1 + n2, successes));
+        }
+        return Math.min(1.0, p);
+    }
+
+    private static double logChoose(int n, int k) {
+        double r = 0;
+        for (int i = 1; i <= k; i++) {
+            r += Math.log(n - k + i) - Math.log(i);
+        }
+        return r;
+    }
+
+    /**
+     * Fonction de répartition de la loi normale (Abramowitz et Stegun 7.1.26).
+     */
+    private static double normalCdf(double z) {
+        double x = Math.abs(z) / Math.sqrt(2);
+        double t = 1 / (1 + 0.3275911 * x);
+        double erf = 1 - (((((1.061405429 * t - 1.453152027) * t) + 1.421413741) * t - 0.284496736) * t
+                + 0.254829592) * t * Math.exp(-x * x);
+        return z >= 0 ? (1 + erf) / 2 : (1 - erf) / 2;
+    }
+
+    private static String option(String[] args, String name, String def) {
+        List<String> list = Arrays.asList(args);
+        int i = list.indexOf(name);
+        return i >= 0 && i + 1 < args.length ? args[i + 1] : def;
+    }
+
     private static void printShort(String tag, RunResult r) {
-        System.out.printf("  %s: ok=%s runtime=%dms len=%d exit=%d timeoutKilled=%s%n",
-                tag, r.success, r.runtimeMs, r.planLength, r.exitCode, r.killedByTimeout);
+        System.out.printf("  %s: ok=%s runtime=%dms len=%d exit=%d timeoutKilled=%s expanded=%s peakRss=%skB%n",
+                tag, r.success, r.runtimeMs, r.planLength, r.exitCode, r.killedByTimeout,
+                r.metrics.getOrDefault("NODES_EXPANDED", "?"), r.metrics.getOrDefault("PEAK_RSS_KB", "?"));
     }
 
     private static String[] toRow(ProblemInstance inst, String planner, RunResult r) {
-        return new String[]{
+        List<String> row = new ArrayList<>(List.of(
                 inst.domain,
                 inst.suite,
                 inst.problemFile.getFileName().toString(),
@@ -125,7 +1064,23 @@ public class BenchmarkRunner {
                 String.valueOf(r.planLength),
                 String.valueOf(r.exitCode),
                 String.valueOf(r.killedByTimeout)
-        };
+        ));
+        // métrique absente (ex: process tué avant la fin) -> cellule vide
+        for (String key : METRIC_KEYS) {
+            row.add(r.metrics.getOrDefault(key, ""));
+        }
+        return row.toArray(new String[0]);
+    }
+
+    private static List<String> concat(List<String> a, List<String> b) {
+        List<String> all = new ArrayList<>(a);
+        all.addAll(b);
+        return all;
+    }
+
+    private static String jfrName(ProblemInstance inst, String planner) {
+        String problem = inst.problemFile.getFileName().toString().replace(".pddl", "");
+        return (inst.domain + "_" + inst.suite + "_" + problem + "_" + planner).replace("/", "-") + ".jfr";
     }
 
     private static void writeCsv(Path path, List<String[]> rows) throws IOException {
@@ -147,7 +1102,7 @@ public class BenchmarkRunner {
     }
 
     private static class ProblemInstance {
-        final String domain;     // blocks/depot/gripper/logistics
+        final String domain;     // blocks/depots/gripper/logistics
         final String suite;      // sous-dossier (ex: strips-typed)
         final Path domainFile;   // .../domain.pddl
         final Path problemFile;  // .../p001.pddl etc
@@ -160,7 +1115,7 @@ public class BenchmarkRunner {
         }
     }
 
-    private static List<ProblemInstance> collectInstances() throws IOException {
+    private static List<ProblemInstance> collectInstances(int limit) throws IOException {
         List<ProblemInstance> all = new ArrayList<>();
 
         for (String d : DOMAINS) {
@@ -191,7 +1146,7 @@ public class BenchmarkRunner {
                             .filter(p -> p.toString().endsWith(".pddl"))
                             .filter(p -> !p.getFileName().toString().equalsIgnoreCase("domain.pddl"))
                             .sorted()
-                            .limit(10) // On ne teste que 10
+                            .limit(limit > 0 ? limit : Long.MAX_VALUE)
                             .collect(Collectors.toList());
                 }
 
@@ -217,13 +1172,31 @@ public class BenchmarkRunner {
                                         String mainClass,
                                         Path domainPddl,
                                         Path problemPddl,
-                                        List<String> extraParams) throws Exception {
+                                        List<String> extraParams,
+                                        Path jfrFile) throws Exception {
+        return runPlanner(label, mainClass, domainPddl, problemPddl, extraParams, jfrFile, List.of(),
+                PROCESS_TIMEOUT_MS);
+    }
+
+    private static RunResult runPlanner(String label,
+                                        String mainClass,
+                                        Path domainPddl,
+                                        Path problemPddl,
+                                        List<String> extraParams,
+                                        Path jfrFile,
+                                        List<String> jvmParams,
+                                        long timeoutMs) throws Exception {
 
         String javaBin = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
         String classpath = System.getProperty("java.class.path");
 
         List<String> cmd = new ArrayList<>();
         cmd.add(javaBin);
+        if (jfrFile != null) {
+            // profile JFR complet + événements des planners (PlannerEvents), écrit à la sortie du process
+            cmd.add("-XX:StartFlightRecording=filename=" + jfrFile + ",settings=profile,dumponexit=true");
+        }
+        cmd.addAll(jvmParams);
         cmd.add("-cp");
         cmd.add(classpath);
         cmd.add(mainClass);
@@ -234,6 +1207,12 @@ public class BenchmarkRunner {
         // extra params (MCTS etc.) -> mettre AVANT domain/problem
         cmd.addAll(extraParams);
 
+        // échéance interne avant la coupure: le planner rend un FAILURE propre avec ses compteurs
+        if (!extraParams.contains("-t") && !extraParams.contains("--timeout")) {
+            cmd.add("-t");
+            cmd.add(String.valueOf(plannerTimeoutSeconds(timeoutMs)));
+        }
+
         // domain + problem (positional parameters)
         cmd.add(domainPddl.toString());
         cmd.add(problemPddl.toString());
@@ -249,10 +1228,11 @@ public class BenchmarkRunner {
 
         String output;
         boolean killed = false;
+        long[] peakRssKb = {-1};
 
         // read async-ish with timeout by polling
         try (InputStream is = p.getInputStream()) {
-            output = readWithTimeout(is, p, PROCESS_TIMEOUT_MS);
+            output = readWithTimeout(is, p, timeoutMs, peakRssKb);
             if (p.isAlive()) {
                 killed = true;
                 p.destroyForcibly();
@@ -273,7 +1253,30 @@ public class BenchmarkRunner {
             success = output.contains("Goal reached") || output.toLowerCase().contains("found plan");
         }
 
-        return new RunResult(success, rt, len, exit, killed, output);
+        // pic de RSS: max entre l'échantillonnage externe et la valeur rapportée par le planner
+        // (seule la première reste disponible si le process a été tué)
+        Map<String, String> metrics = extractMetrics(output);
+        long reportedRss = Long.parseLong(metrics.getOrDefault("PEAK_RSS_KB", "-1"));
+        metrics.put("PEAK_RSS_KB", String.valueOf(Math.max(reportedRss, peakRssKb[0])));
+
+        return new RunResult(success, rt, len, exit, killed, output, metrics);
+    }
+
+    /**
+     * Timeout interne (-t, en secondes) d'un planner lancé avec un délai de process donné.
+     */
+    private static long plannerTimeoutSeconds(long processTimeoutMs) {
+        long margin = Math.max(PLANNER_TIMEOUT_MARGIN_MS, processTimeoutMs / 5);
+        return Math.max(1, (processTimeoutMs - margin) / 1000);
+    }
+
+    private static Map<String, String> extractMetrics(String s) {
+        Map<String, String> metrics = new HashMap<>();
+        Matcher m = RE_METRIC.matcher(s);
+        while (m.find()) {
+            metrics.put(m.group(1), m.group(2));
+        }
+        return metrics;
     }
 
     private static int extractInt(Pattern p, String s, int def) {
@@ -286,12 +1289,21 @@ public class BenchmarkRunner {
         return m.find() ? Long.parseLong(m.group(1)) : def;
     }
 
-    private static String readWithTimeout(InputStream is, Process proc, long timeoutMs) throws IOException {
+    private static String readWithTimeout(InputStream is, Process proc, long timeoutMs, long[] peakRssKb)
+            throws IOException {
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
         byte[] buf = new byte[8192];
+        Path status = Paths.get("/proc", String.valueOf(proc.pid()), "status");
 
         long start = System.currentTimeMillis();
+        long lastSample = 0;
         while (true) {
+            // VmHWM est déjà un pic: un échantillonnage régulier suffit
+            if (System.currentTimeMillis() - lastSample >= RSS_SAMPLE_PERIOD_MS) {
+                peakRssKb[0] = Math.max(peakRssKb[0], SearchMetrics.readVmHwmKb(status));
+                lastSample = System.currentTimeMillis();
+            }
+
             while (is.available() > 0) {
                 int n = is.read(buf);
                 if (n < 0) break;
@@ -0,0 +1,131 @@
+package fr.uga.pddl4j.examples.asp;
+
+/**
+ * Deadline: échéance et annulation coopérative partagées par les boucles de recherche.
+ * <p>
+ * Les boucles internes (rollouts, random walks, sélection MCTS, successeurs d'un nœud) appellent
+ * {@link #expired()} à chaque itération. L'horloge n'est lue qu'un appel sur n, le test coûte donc
+ * un décrément dans le cas courant; n s'adapte au coût des itérations pour viser une lecture toutes
+ * les {@value #TARGET_NANOS} ns environ (de 1 pour une évaluation heuristique coûteuse à
+ * {@value #MAX_INTERVAL} pour un pas de rollout). Une fois l'échéance passée ou
+ * {@link #cancel()} appelé, tous les appels suivants rendent vrai, quel que soit le thread: le
+ * planner remonte ses boucles et rend un échec propre, compteurs d'effort compris, au lieu d'être
+ * tué par BenchmarkRunner.
+ * </p>
+ * Le décompte n'est pas synchronisé: partagé entre threads (recherche en faisceau), il ne fait que
+ * décaler le moment de la prochaine lecture de l'horloge. L'horloge est {@link System#nanoTime()}
+ * (monotone).
+ */
+final class Deadline {
+
+    /**
+     * Intervalle visé entre deux lectures de l'horloge, en ns (dépassement maximal de l'échéance,
+     * à une itération près).
+     */
+    static final long TARGET_NANOS = 1_000_000L;
+
+    /**
+     * Nombre maximal d'appels à {@link #expired()} entre deux lectures de l'horloge.
+     */
+    static final int MAX_INTERVAL = 1024;
+
+    private final long endNanos;
+    private final boolean bounded;
+    private volatile boolean expired;
+    private int interval;
+    private int countdown;
+    private long lastCheck;
+
+    private Deadline(final long timeoutMs, final boolean bounded) {
+        this.bounded = bounded;
+        this.lastCheck = System.nanoTime();
+        this.endNanos = bounded ? this.lastCheck + Math.max(0, timeoutMs) * 1_000_000L : 0;
+        this.interval = 1;
+        this.countdown = 1;
+    }
+
+    /**
+     * Echéance dans {@code timeoutMs} millisecondes à partir de maintenant.
+     *
+     * @param timeoutMs le délai en ms (0 ou moins: déjà passée).
+     * @return l'échéance.
+     */
+    static Deadline after(final long timeoutMs) {
+        return new Deadline(timeoutMs, true);
+    }
+
+    /**
+     * Echéance d'un planner PDDL4J, dont le timeout ({@code -t}) est en secondes.
+     *
+     * @param timeoutSeconds le timeout du planner, en secondes; 0 ou moins: pas d'échéance (seul
+     *                       {@link #cancel()} arrête la recherche).
+     * @return l'échéance.
+     */
+    static Deadline ofSeconds(final int timeoutSeconds) {
+        return new Deadline(timeoutSeconds * 1000L, timeoutSeconds > 0);
+    }
+
+    /**
+     * Vrai si l'échéance est passée ou la recherche annulée. Amorti: l'horloge n'est lue qu'un
+     * appel sur n, n ajusté pour viser une lecture toutes les {@value #TARGET_NANOS} ns.
+     */
+    boolean expired() {
+        if (this.expired) {
+            return true;
+        }
+        if (!this.bounded || --this.countdown > 0) {
+            return false;
+        }
+        final long now = System.nanoTime();
+        final long spent = now - this.lastCheck;
+        if (spent > TARGET_NANOS) {
+            this.interval = Math.max(1, this.interval >> 1);
+        } else if (spent < TARGET_NANOS / 2) {
+            this.interval = Math.min(MAX_INTERVAL, this.interval << 1);
+        }
+        this.countdown = this.interval;
+        this.lastCheck = now;
+        if (now - this.endNanos >= 0) {
+            this.expired = true;
+        }
+        return this.expired;
+    }
+
+    /**
+     * Vrai si l'échéance est passée ou la recherche annulée, en lisant l'horloge (à appeler entre
+     * deux étapes coûteuses, pas dans une boucle serrée).
+     */
+    boolean expiredNow() {
+        if (!this.expired && this.bounded && System.nanoTime() - this.endNanos >= 0) {
+            this.expired = true;
+        }
+        return this.expired;
+    }
+
+    /**
+     * Vrai si l'échéance a été constatée par un appel précédent (sans lire l'horloge).
+     */
+    boolean hasExpired() {
+        return this.expired;
+    }
+
+    /**
+     * Annule la recherche: les appels suivants à {@link #expired()} rendent vrai.
+     */
+    void cancel() {
+        this.expired = true;
+    }
+
+    /**
+     * Temps restant en ms ({@link Long#MAX_VALUE} sans échéance, 0 si passée).
+     */
+    long remainingMs() {
+        if (this.expired) {
+            return 0;
+        }
+        if (!this.bounded) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, (this.endNanos - System.nanoTime()) / 1_000_000L);
+    }
+}
@@ -0,0 +1,312 @@
+package fr.uga.pddl4j.examples.asp;
+
+import fr.uga.pddl4j.problem.Fluent;
+import fr.uga.pddl4j.problem.Problem;
+import fr.uga.pddl4j.problem.operator.Action;
+import fr.uga.pddl4j.problem.operator.ConditionalEffect;
+import fr.uga.pddl4j.util.BitVector;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * LandmarkGraph: landmarks et ordres « greedy-necessary » d'un problème instancié.
+ * <p>
+ * Extraction par rétro-chaînage dans le graphe de planification relâché (à la LAMA): les
+ * fluents du but sont des landmarks; pour un landmark L faux dans l'état initial, on calcule
+ * les fluents atteignables (en relâché) sans jamais rendre L vrai et on en déduit les premiers
+ * achievers possibles de L. Les préconditions communes à tous ces achievers sont des landmarks
+ * de fluents; quand chaque achiever a une précondition d'un même prédicat, l'ensemble de ces
+ * préconditions forme un landmark disjonctif (au plus {@link #MAX_DISJUNCTION} fluents). Tous
+ * sont ordonnés avant L. Les préconditions négatives sont ignorées (relaxation), ce qui ne peut
+ * qu'ajouter des achievers et donc reste correct.
+ * </p>
+ * Le graphe est construit une seule fois par {@link Problem} et partagé par toutes les
+ * instances de {@link LandmarkHeuristic} du même problème.
+ */
+final class LandmarkGraph {
+
+    private static final Logger LOGGER = LogManager.getLogger(LandmarkGraph.class.getName());
+
+    /**
+     * Taille maximale d'un landmark disjonctif (au-delà, il n'aide plus l'heuristique).
+     */
+    static final int MAX_DISJUNCTION = 4;
+
+    private static final Map<Problem, LandmarkGraph> CACHE = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * Fluents de chaque landmark: le landmark est atteint quand l'un d'eux est vrai.
+     */
+    final BitVector[] facts;
+
+    /**
+     * Landmarks à atteindre avant chaque landmark (ordres greedy-necessary).
+     */
+    final int[][] predecessors;
+
+    /**
+     * Landmarks qui sont des fluents du but.
+     */
+    final BitVector goals;
+
+    private LandmarkGraph(final BitVector[] facts, final int[][] predecessors, final BitVector goals) {
+        this.facts = facts;
+        this.predecessors = predecessors;
+        this.goals = goals;
+    }
+
+    /**
+     * Nombre de landmarks.
+     */
+    int size() {
+        return this.facts.length;
+    }
+
+    /**
+     * Vrai si le landmark est atteint dans l'état.
+     */
+    boolean holds(final int landmark, final BitVector state) {
+        return this.facts[landmark].intersects(state);
+    }
+
+    /**
+     * Retourne le graphe de landmarks du problème, construit au premier appel.
+     *
+     * @param problem le problème instancié (et éventuellement réduit).
+     * @return le graphe de landmarks.
+     */
+    static LandmarkGraph of(final Problem problem) {
+        synchronized (CACHE) {
+            return CACHE.computeIfAbsent(problem, LandmarkGraph::build);
+        }
+    }
+
+    private static LandmarkGraph build(final Problem problem) {
+        final long t0 = System.currentTimeMillis();
+        final List<Fluent> allFluents = problem.getFluents();
+        final RelaxedOperators ops = new RelaxedOperators(problem, allFluents.size());
+        final BitVector init = problem.getInitialState().getPositiveFluents();
+
+        final List<BitVector> facts = new ArrayList<>();
+        final List<List<Integer>> preds = new ArrayList<>();
+        final Map<BitVector, Integer> ids = new HashMap<>();
+        final BitVector factLandmarks = new BitVector();
+        final BitVector goals = new BitVector();
+        final Deque<Integer> queue = new ArrayDeque<>();
+
+        final BitVector goal = problem.getGoal().getPositiveFluents();
+        for (int p = goal.nextSetBit(0); p >= 0; p = goal.nextSetBit(p + 1)) {
+            final BitVector fact = new BitVector();
+            fact.set(p);
+            goals.set(facts.size());
+            add(fact, facts, preds, ids, queue);
+            factLandmarks.set(p);
+        }
+
+        while (!queue.isEmpty()) {
+            final int l = queue.poll();
+            final BitVector target = facts.get(l);
+            if (target.intersects(init)) {
+                continue;
+            }
+            // Premiers achievers possibles: applicables sans avoir jamais rendu L vrai
+            final boolean[] reached = ops.reachableWithout(init, target);
+            final List<Integer> first = new ArrayList<>();
+            for (int f = target.nextSetBit(0); f >= 0; f = target.nextSetBit(f + 1)) {
+                for (int o : ops.achievers[f]) {
+                    if (ops.applicable(o, reached) && !first.contains(o)) {
+                        first.add(o);
+                    }
+                }
+            }
+            if (first.isEmpty()) {
+                continue; // L inatteignable: rien à rétro-chaîner
+            }
+
+            // Landmarks de fluents: préconditions communes à tous les premiers achievers
+            final BitVector common = new BitVector(ops.pre[first.get(0)]);
+            for (int o : first) {
+                common.and(ops.pre[o]);
+            }
+            for (int q = common.nextSetBit(0); q >= 0; q = common.nextSetBit(q + 1)) {
+                final BitVector fact = new BitVector();
+                fact.set(q);
+                preds.get(l).add(add(fact, facts, preds, ids, queue));
+                factLandmarks.set(q);
+            }
+
+            // Landmarks disjonctifs: une précondition du même prédicat pour chaque achiever
+            final Map<Integer, BitVector> bySymbol = new HashMap<>();
+            final Map<Integer, Integer> count = new HashMap<>();
+            for (int o : first) {
+                final Set<Integer> seen = new HashSet<>();
+                for (int q = ops.pre[o].nextSetBit(0); q >= 0; q = ops.pre[o].nextSetBit(q + 1)) {
+                    if (common.get(q)) {
+                        continue;
+                    }
+                    final int symbol = allFluents.get(q).getSymbol();
+                    bySymbol.computeIfAbsent(symbol, k -> new BitVector()).set(q);
+                    if (seen.add(symbol)) {
+                        count.merge(symbol, 1, Integer::sum);
+                    }
+                }
+            }
+            for (Map.Entry<Integer, BitVector> e : bySymbol.entrySet()) {
+                final BitVector disjunction = e.getValue();
+                if (count.get(e.getKey()) == first.size()
+                        && disjunction.cardinality() <= MAX_DISJUNCTION
+                        && !disjunction.intersects(init)
+                        && !disjunction.intersects(factLandmarks)) {
+                    preds.get(l).add(add(disjunction, facts, preds, ids, queue));
+                }
+            }
+        }
+
+        final BitVector[] array = facts.toArray(new BitVector[0]);
+        final int[][] predecessors = new int[array.length][];
+        for (int l = 0; l < array.length; l++) {
+            predecessors[l] = preds.get(l).stream().distinct().mapToInt(Integer::intValue).toArray();
+        }
+        LOGGER.info("* Landmark graph: {} landmarks ({} disjunctive) built in {} ms\n", array.length,
+                array.length - factLandmarks.cardinality(), System.currentTimeMillis() - t0);
+        return new LandmarkGraph(array, predecessors, goals);
+    }
+
+    /**
+     * Ajoute un landmark s'il n'existe pas encore et retourne son indice.
+     */
+    private static int add(final BitVector fact, final List<BitVector> facts, final List<List<Integer>> preds,
+                           final Map<BitVector, Integer> ids, final Deque<Integer> queue) {
+        final Integer id = ids.get(fact);
+        if (id != null) {
+            return id;
+        }
+        final int l = facts.size();
+        facts.add(fact);
+        preds.add(new ArrayList<>());
+        ids.put(fact, l);
+        queue.add(l);
+        return l;
+    }
+
+    /**
+     * Opérateurs relâchés: un par effet conditionnel qui ajoute des fluents, avec pour
+     * préconditions les fluents positifs de la précondition de l'action et de la condition
+     * de l'effet.
+     */
+    private static final class RelaxedOperators {
+        final BitVector[] pre;
+        final int[][] adds;
+        final int[] preCount;
+        final int[][] consumers;
+        final int[][] achievers;
+
+        RelaxedOperators(final Problem problem, final int nbFluents) {
+            final List<BitVector> preList = new ArrayList<>();
+            final List<int[]> addList = new ArrayList<>();
+            for (Action a : problem.getActions()) {
+                for (ConditionalEffect ce : a.getConditionalEffects()) {
+                    final BitVector add = ce.getEffect().getPositiveFluents();
+                    if (add.isEmpty()) {
+                        continue;
+                    }
+                    final BitVector p = new BitVector(a.getPrecondition().getPositiveFluents());
+                    p.or(ce.getCondition().getPositiveFluents());
+                    preList.add(p);
+                    addList.add(add.stream().toArray());
+                }
+            }
+            this.pre = preList.toArray(new BitVector[0]);
+            this.adds = addList.toArray(new int[0][]);
+            this.preCount = new int[this.pre.length];
+            final List<List<Integer>> cons = new ArrayList<>(nbFluents);
+            final List<List<Integer>> ach = new ArrayList<>(nbFluents);
+            for (int f = 0; f < nbFluents; f++) {
+                cons.add(new ArrayList<>());
+                ach.add(new ArrayList<>());
+            }
+            for (int o = 0; o < this.pre.length; o++) {
+                this.preCount[o] = this.pre[o].cardinality();
+                for (int f = this.pre[o].nextSetBit(0); f >= 0; f = this.pre[o].nextSetBit(f + 1)) {
+                    cons.get(f).add(o);
+                }
+                for (int f : this.adds[o]) {
+                    ach.get(f).add(o);
+                }
+            }
+            this.consumers = toArrays(cons);
+            this.achievers = toArrays(ach);
+        }
+
+        /**
+         * Fluents atteignables depuis l'état initial sans utiliser d'opérateur qui ajoute un
+         * fluent de {@code excluded} (propagation par compteurs de préconditions).
+         */
+        boolean[] reachableWithout(final BitVector init, final BitVector excluded) {
+            final boolean[] reached = new boolean[this.consumers.length];
+            final int[] missing = this.preCount.clone();
+            final Deque<Integer> queue = new ArrayDeque<>();
+            for (int f = init.nextSetBit(0); f >= 0; f = init.nextSetBit(f + 1)) {
+                reached[f] = true;
+                queue.add(f);
+            }
+            for (int o = 0; o < missing.length; o++) {
+                if (missing[o] == 0) {
+                    fire(o, excluded, reached, queue);
+                }
+            }
+            while (!queue.isEmpty()) {
+                final int f = queue.poll();
+                for (int o : this.consumers[f]) {
+                    if (--missing[o] == 0) {
+                        fire(o, excluded, reached, queue);
+                    }
+                }
+            }
+            return reached;
+        }
+
+        private void fire(final int o, final BitVector excluded, final boolean[] reached,
+                          final Deque<Integer> queue) {
+            for (int f : this.adds[o]) {
+                if (excluded.get(f)) {
+                    return;
+                }
+            }
+            for (int f : this.adds[o]) {
+                if (!reached[f]) {
+                    reached[f] = true;
+                    queue.add(f);
+                }
+            }
+        }
+
+        boolean applicable(final int o, final boolean[] reached) {
+            for (int f = this.pre[o].nextSetBit(0); f >= 0; f = this.pre[o].nextSetBit(f + 1)) {
+                if (!reached[f]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static int[][] toArrays(final List<List<Integer>> lists) {
+            final int[][] arrays = new int[lists.size()][];
+            for (int i = 0; i < arrays.length; i++) {
+                arrays[i] = lists.get(i).stream().mapToInt(Integer::intValue).toArray();
+            }
+            return arrays;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package fr.uga.pddl4j.examples.asp;
+
+import fr.uga.pddl4j.heuristics.state.StateHeuristic;
+import fr.uga.pddl4j.planners.statespace.search.Node;
+import fr.uga.pddl4j.problem.Problem;
+import fr.uga.pddl4j.problem.State;
+import fr.uga.pddl4j.problem.operator.Condition;
+import fr.uga.pddl4j.util.BitVector;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * LandmarkHeuristic: heuristique « landmark count » (style LAMA) sur un {@link LandmarkGraph}.
+ * <p>
+ * Un landmark est accepté dans un état s'il y est atteint (l'un de ses fluents est vrai) et que
+ * tous ses prédécesseurs étaient acceptés dans l'état parent; l'ensemble accepté est hérité le
+ * long du chemin de recherche au lieu d'être recalculé. La valeur est le nombre de landmarks non
+ * acceptés plus le nombre de landmarks acceptés mais requis à nouveau (non atteints dans l'état
+ * et soit but, soit prédécesseur d'un landmark non accepté). L'heuristique n'est pas admissible.
+ * </p>
+ * Deux façons de suivre les chemins:
+ * <ul>
+ *     <li>{@link #estimate(Node, Condition)}: l'ensemble accepté du parent est retrouvé via
+ *     {@link Node#getParent()} (recherche de type A*);</li>
+ *     <li>{@link #accept(BitVector, State)} et {@link #value(State, BitVector)}: le planner
+ *     transporte lui-même l'ensemble accepté (random walks de RWPlanner).</li>
+ * </ul>
+ * {@link #estimate(State, Condition)} n'a pas de chemin: il considère comme acceptés les
+ * landmarks atteints dans l'état.
+ * <p>
+ * Dans le premier mode, l'ensemble accepté d'un nœud n'est utile que jusqu'à l'évaluation de ses
+ * successeurs: les recherches appellent {@link #release(StateHeuristic, Node)} sur chaque nœud
+ * développé ou écarté, la table ne garde donc que la frontière de la recherche.
+ * </p>
+ */
+final class LandmarkHeuristic implements StateHeuristic {
+
+    private static final long serialVersionUID = 1L;
+
+    private final LandmarkGraph graph;
+
+    /**
+     * Ensemble accepté de chaque nœud évalué et pas encore libéré (clé: identité du nœud, pas son
+     * état). Synchronisée: la recherche en faisceau évalue les nœuds d'une couche en parallèle.
+     */
+    private final transient Map<Node, BitVector> accepted = Collections.synchronizedMap(new IdentityHashMap<>());
+
+    /**
+     * Crée l'heuristique; le graphe de landmarks est construit une seule fois par problème.
+     *
+     * @param problem le problème à résoudre.
+     */
+    LandmarkHeuristic(final Problem problem) {
+        this.graph = LandmarkGraph.of(problem);
+    }
+
+    /**
+     * Landmarks acceptés dans l'état initial d'un chemin: ceux qui y sont atteints.
+     *
+     * @param state l'état racine.
+     * @return l'ensemble des landmarks acceptés.
+     */
+    BitVector initialAccepted(final State state) {
+        final BitVector acc = new BitVector(this.graph.size());
+        for (int l = 0; l < this.graph.size(); l++) {
+            if (this.graph.holds(l, state)) {
+                acc.set(l);
+            }
+        }
+        return acc;
+    }
+
+    /**
+     * Landmarks acceptés dans un successeur, à partir de ceux acceptés dans son parent.
+     *
+     * @param parent l'ensemble accepté du parent (non modifié).
+     * @param state  l'état successeur.
+     * @return l'ensemble accepté du successeur.
+     */
+    BitVector accept(final BitVector parent, final State state) {
+        final BitVector acc = new BitVector(parent);
+        for (int l = 0; l < this.graph.size(); l++) {
+            if (!parent.get(l) && this.graph.holds(l, state)
+                    && allAccepted(this.graph.predecessors[l], parent)) {
+                acc.set(l);
+            }
+        }
+        return acc;
+    }
+
+    /**
+     * Valeur heuristique d'un état connaissant son ensemble accepté.
+     *
+     * @param state l'état.
+     * @param acc   les landmarks acceptés sur le chemin menant à l'état.
+     * @return le nombre de landmarks encore à atteindre.
+     */
+    int value(final State state, final BitVector acc) {
+        // Landmarks à atteindre avant un landmark non encore accepté
+        final BitVector needed = new BitVector(this.graph.size());
+        for (int m = acc.nextClearBit(0); m < this.graph.size(); m = acc.nextClearBit(m + 1)) {
+            for (int p : this.graph.predecessors[m]) {
+                needed.set(p);
+            }
+        }
+        needed.or(this.graph.goals);
+        int h = this.graph.size() - acc.cardinality();
+        for (int l = acc.nextSetBit(0); l >= 0; l = acc.nextSetBit(l + 1)) {
+            if (needed.get(l) && !this.graph.holds(l, state)) {
+                h++;
+            }
+        }
+        return h;
+    }
+
+    @Override
+    public int estimate(final State state, final Condition goal) {
+        return this.value(state, this.initialAccepted(state));
+    }
+
+    @Override
+    public double estimate(final Node node, final Condition goal) {
+        final BitVector parent = node.getParent() == null ? null : this.accepted.get(node.getParent());
+        final BitVector acc = parent == null ? this.initialAccepted(node) : this.accept(parent, node);
+        this.accepted.put(node, acc);
+        return this.value(node, acc);
+    }
+
+    /**
+     * Oublie l'ensemble accepté d'un nœud: à appeler quand le nœud est écarté (doublon, sans issue,
+     * élagué) ou quand tous ses successeurs ont été évalués. Sans effet si l'heuristique n'est pas
+     * un LandmarkHeuristic.
+     *
+     * @param heuristic l'heuristique de la recherche.
+     * @param node      le nœud.
+     */
+    static void release(final StateHeuristic heuristic, final Node node) {
+        if (heuristic instanceof LandmarkHeuristic) {
+            ((LandmarkHeuristic) heuristic).accepted.remove(node);
+        }
+    }
+
+    @Override
+    public boolean isAdmissible() {
+        return false;
+    }
+
+    private static boolean allAccepted(final int[] landmarks, final BitVector acc) {
+        for (int l : landmarks) {
+            if (!acc.get(l)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,251 @@
+package fr.uga.pddl4j.examples.asp;
+
+import fr.uga.pddl4j.heuristics.state.StateHeuristic;
+import fr.uga.pddl4j.planners.statespace.search.Node;
+import fr.uga.pddl4j.problem.Problem;
+import fr.uga.pddl4j.problem.State;
+import fr.uga.pddl4j.problem.operator.Action;
+import fr.uga.pddl4j.problem.operator.ConditionalEffect;
+import fr.uga.pddl4j.util.BitVector;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * LazySearch: recherche meilleur d'abord à évaluation différée (lazy greedy / weighted).
+ * <p>
+ * Les successeurs d'un nœud ne sont ni générés ni évalués à son expansion: la file reçoit des
+ * couples (parent, action) ordonnés par g + weight * h(parent). L'état n'est construit et évalué
+ * que lorsqu'il est retiré de la file, ce qui économise l'évaluation des successeurs jamais
+ * développés (environ le facteur de branchement). Les actions utiles du plan relâché du parent
+ * (preferred operators) sont insérées en premier (ordre FIFO à clé égale) et aussi dans une file
+ * préférée, alternée avec la file normale et boostée à chaque progrès de l'heuristique.
+ * </p>
+ * Sans heuristique explicite, la longueur du plan relâché (FF) sert d'heuristique: un seul calcul
+ * par expansion donne à la fois h et les actions utiles.
+ */
+final class LazySearch {
+
+    private static final Logger LOGGER = LogManager.getLogger(LazySearch.class.getName());
+
+    private final Problem problem;
+    private final StateHeuristic heuristic;
+    private final double weight;
+    private final RelaxedPlan relaxed;
+    private final int boost;
+    private final SearchMetrics metrics;
+    private final StubbornSets stubborn;
+    private final Symmetries symmetries;
+
+    /**
+     * Successeurs élagués par la réduction d'ordre partiel lors de la dernière recherche.
+     */
+    private long porPruned;
+
+    /**
+     * Temps passé à calculer les stubborn sets lors de la dernière recherche, en ns.
+     */
+    private long porNanos;
+
+    /**
+     * Temps passé à générer et évaluer les successeurs lors de la dernière recherche, en ns.
+     */
+    private long successorNanos;
+
+    /**
+     * Successeur non encore généré: l'action appliquée au parent et la clé héritée du parent.
+     * {@code pending} est partagé par les entrées d'un même parent: le nombre de retraits de file
+     * restants avant que les landmarks acceptés du parent puissent être libérés.
+     */
+    private static final class Entry {
+        final Node parent;
+        final int action;
+        final double key;
+        final long order;
+        final int[] pending;
+
+        Entry(final Node parent, final int action, final double key, final long order, final int[] pending) {
+            this.parent = parent;
+            this.action = action;
+            this.key = key;
+            this.order = order;
+            this.pending = pending;
+        }
+    }
+
+    /**
+     * Crée la recherche.
+     *
+     * @param problem    le problème à résoudre.
+     * @param heuristic  l'heuristique évaluée au retrait de la file, ou null pour la longueur du
+     *                   plan relâché.
+     * @param weight     le poids de l'heuristique.
+     * @param boost      la baisse de priorité de la file préférée à chaque progrès.
+     * @param metrics    les compteurs d'effort à mettre à jour.
+     * @param stubborn   la réduction d'ordre partiel, ou null.
+     * @param symmetries les symétries d'objets pour la détection des doublons, ou null.
+     */
+    LazySearch(final Problem problem, final StateHeuristic heuristic, final double weight, final int boost,
+               final SearchMetrics metrics, final StubbornSets stubborn, final Symmetries symmetries) {
+        this.problem = problem;
+        this.heuristic = heuristic;
+        this.weight = weight;
+        this.relaxed = new RelaxedPlan(problem);
+        this.boost = boost;
+        this.metrics = metrics;
+        this.stubborn = stubborn;
+        this.symmetries = symmetries;
+    }
+
+    /**
+     * Cherche un nœud but.
+     *
+     * @param deadline l'échéance de la recherche.
+     * @return le nœud but, ou null si l'espace est épuisé ou le temps écoulé.
+     */
+    Node search(final Deadline deadline) {
+        final PriorityQueue<Entry> regular = new PriorityQueue<>(LazySearch::compare);
+        final PriorityQueue<Entry> preferred = new PriorityQueue<>(LazySearch::compare);
+        final Set<State> close = new HashSet<>();
+        final List<Action> actions = this.problem.getActions();
+        final int[] applicable = new int[actions.size()];
+        final BitVector helpful = new BitVector();
+        final int[] priority = new int[2];
+        long order = 0;
+        long evaluations = 0;
+        double best = Double.MAX_VALUE;
+        this.porPruned = 0;
+        this.porNanos = 0;
+        this.successorNanos = 0;
+
+        Node current = new Node(new State(this.problem.getInitialState()), null, -1, 0, 0);
+        Entry entry = null;
+        while (true) {
+            if (close.add(this.symmetries == null ? current : this.symmetries.canonical(current))) {
+                this.metrics.nodesGenerated++;
+                if (current.satisfy(this.problem.getGoal())) {
+                    LOGGER.info("* Lazy search: {} evaluations\n", evaluations);
+                    return current;
+                }
+                // Évaluation différée: h et actions utiles du nœud retiré
+                final long t0 = System.nanoTime();
+                final int ff = this.relaxed.compute(current, helpful);
+                final double h = this.heuristic == null ? ff : this.heuristic.estimate(current, this.problem.getGoal());
+                this.successorNanos += System.nanoTime() - t0;
+                this.metrics.heuristicCalls++;
+                evaluations++;
+                if (h >= Integer.MAX_VALUE) {
+                    LandmarkHeuristic.release(this.heuristic, current);
+                } else {
+                    current.setHeuristic(h);
+                    if (h < best) {
+                        best = h;
+                        priority[1] -= this.boost;
+                    }
+                    this.metrics.nodesExpanded++;
+                    this.metrics.applicableChecks += actions.size();
+                    int count = 0;
+                    for (int i = 0; i < actions.size(); i++) {
+                        if (actions.get(i).isApplicable(current)) {
+                            applicable[count++] = i;
+                        }
+                    }
+                    if (this.stubborn != null) {
+                        final long t1 = System.nanoTime();
+                        final int kept = this.stubborn.prune(current, applicable, count);
+                        this.porNanos += System.nanoTime() - t1;
+                        this.porPruned += count - kept;
+                        count = kept;
+                    }
+                    final double key = current.getCost() + 1 + this.weight * h;
+                    final int[] pending = {count};
+                    // Les actions utiles d'abord
+                    for (int k = 0; k < count; k++) {
+                        if (helpful.get(applicable[k])) {
+                            final Entry e = new Entry(current, applicable[k], key, order++, pending);
+                            regular.add(e);
+                            preferred.add(e);
+                            pending[0]++;
+                        }
+                    }
+                    for (int k = 0; k < count; k++) {
+                        if (!helpful.get(applicable[k])) {
+                            regular.add(new Entry(current, applicable[k], key, order++, pending));
+                        }
+                    }
+                    if (count == 0) {
+                        LandmarkHeuristic.release(this.heuristic, current);
+                    }
+                }
+            }
+            // Le parent n'est plus utile une fois toutes ses entrées retirées (et leur nœud évalué)
+            if (entry != null && --entry.pending[0] == 0) {
+                LandmarkHeuristic.release(this.heuristic, entry.parent);
+            }
+            if (deadline.expired()) {
+                break;
+            }
+
+            // Alternance entre la file normale et la file préférée
+            final int q = preferred.isEmpty() ? 0 : regular.isEmpty() ? 1 : priority[0] <= priority[1] ? 0 : 1;
+            entry = (q == 0 ? regular : preferred).poll();
+            if (entry == null) {
+                break;
+            }
+            priority[q]++;
+            final long t0 = System.nanoTime();
+            current = this.successor(entry);
+            this.successorNanos += System.nanoTime() - t0;
+        }
+        LOGGER.info("* Lazy search: {} evaluations\n", evaluations);
+        return null;
+    }
+
+    /**
+     * Successeurs élagués par la réduction d'ordre partiel lors de la dernière recherche.
+     */
+    long porPruned() {
+        return this.porPruned;
+    }
+
+    /**
+     * Temps passé à calculer les stubborn sets lors de la dernière recherche, en ns.
+     */
+    long porNanos() {
+        return this.porNanos;
+    }
+
+    /**
+     * Temps passé à générer et évaluer les successeurs lors de la dernière recherche, en ns.
+     */
+    long successorNanos() {
+        return this.successorNanos;
+    }
+
+    /**
+     * Génère le nœud d'une entrée, avec la valeur heuristique de son parent.
+     */
+    private Node successor(final Entry entry) {
+        final Node parent = entry.parent;
+        final Node next = new Node(parent);
+        for (ConditionalEffect ce : this.problem.getActions().get(entry.action).getConditionalEffects()) {
+            if (parent.satisfy(ce.getCondition())) {
+                next.apply(ce.getEffect());
+            }
+        }
+        next.setCost(parent.getCost() + 1);
+        next.setParent(parent);
+        next.setAction(entry.action);
+        next.setHeuristic(parent.getHeuristic());
+        return next;
+    }
+
+    private static int compare(final Entry e1, final Entry e2) {
+        final int c = Double.compare(e1.key, e2.key);
+        return c != 0 ? c : Long.compare(e1.order, e2.order);
+    }
+}
@@ -0,0 +1,135 @@
+package fr.uga.pddl4j.examples.asp;
+
+import fr.uga.pddl4j.util.BitVector;
+
+import java.util.Arrays;
+
+/**
+ * LongHashSet: ensemble de long à adressage ouvert (sondage linéaire), sans objet par élément.
+ * <p>
+ * Sert d'ensemble de visités compact: un état y est représenté par son empreinte 64 bits
+ * ({@link #fingerprint(BitVector)}), soit 8 octets par état au lieu d'une copie de l'état dans
+ * un {@code HashSet}. Deux états distincts de même empreinte sont confondus; avec des empreintes
+ * de 64 bits, la probabilité d'une collision parmi n états est de l'ordre de n² / 2^65.
+ * </p>
+ */
+final class LongHashSet {
+
+    /**
+     * Valeur des cases vides; la clé 0 est stockée à part.
+     */
+    private static final long EMPTY = 0L;
+
+    private long[] table;
+    private int size;
+    private boolean containsZero;
+
+    /**
+     * Crée un ensemble vide.
+     *
+     * @param expected le nombre d'éléments attendu.
+     */
+    LongHashSet(final int expected) {
+        this.table = new long[Integer.highestOneBit(Math.max(16, expected * 2 - 1)) << 1];
+    }
+
+    /**
+     * Ajoute une clé.
+     *
+     * @param key la clé.
+     * @return vrai si la clé n'était pas déjà présente.
+     */
+    boolean add(final long key) {
+        if (key == EMPTY) {
+            if (this.containsZero) {
+                return false;
+            }
+            this.containsZero = true;
+            this.size++;
+            return true;
+        }
+        if (2 * (this.size + 1) > this.table.length) {
+            this.grow();
+        }
+        final int mask = this.table.length - 1;
+        int i = (int) mix(key) & mask;
+        while (this.table[i] != EMPTY) {
+            if (this.table[i] == key) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        this.table[i] = key;
+        this.size++;
+        return true;
+    }
+
+    /**
+     * Vrai si la clé est présente.
+     */
+    boolean contains(final long key) {
+        if (key == EMPTY) {
+            return this.containsZero;
+        }
+        final int mask = this.table.length - 1;
+        int i = (int) mix(key) & mask;
+        while (this.table[i] != EMPTY) {
+            if (this.table[i] == key) {
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Nombre de clés.
+     */
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * Vide l'ensemble (la capacité est conservée).
+     */
+    void clear() {
+        Arrays.fill(this.table, EMPTY);
+        this.size = 0;
+        this.containsZero = false;
+    }
+
+    private void grow() {
+        final long[] old = this.table;
+        this.table = new long[old.length << 1];
+        this.size = this.containsZero ? 1 : 0;
+        for (long key : old) {
+            if (key != EMPTY) {
+                this.add(key);
+            }
+        }
+    }
+
+    /**
+     * Empreinte 64 bits d'un ensemble de fluents (somme de hachages indépendants des fluents vrais).
+     *
+     * @param state l'état.
+     * @return l'empreinte de l'état.
+     */
+    static long fingerprint(final BitVector state) {
+        long h = 0;
+        for (int f = state.nextSetBit(0); f >= 0; f = state.nextSetBit(f + 1)) {
+            h += mix(f + 0x9E3779B97F4A7C15L);
+        }
+        return h;
+    }
+
+    /**
+     * Fonction de mélange de SplitMix64.
+     */
+    private static long mix(final long x) {
+        long z = x * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -13,9 +13,12 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import picocli.CommandLine;
 
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.Set;
 
 /**
  * MCTSPlanner: Monte Carlo Tree Search planner
@@ -34,20 +37,30 @@ import java.util.Random;
         synopsisHeading = "%n",
         descriptionHeading = "%nDescription:%n%n",
         parameterListHeading = "%nParameters:%n",
-        optionListHeading = "%nOptions:%n"
+        optionListHeading = "%nOptions:%n",
+        defaultValueProvider = ParameterProfile.Defaults.class
 )
-public class MCTSPlanner extends AbstractPlanner {
+public class MCTSPlanner extends AbstractPlanner implements ParameterProfile.Profiled {
 
     private static final Logger LOGGER = LogManager.getLogger(MCTSPlanner.class.getName());
 
-    // RNG seed
+    // RNG (graine: --seed)
     private final Random rng = new Random(0);
 
+    // Compteurs d'effort (RESULT: NODES_EXPANDED=..., ROLLOUTS=..., ...)
+    private final SearchMetrics metrics = new SearchMetrics();
+
     // MCTS params
     private int iterations = 1000;       // nombre d'itérations MCTS
     private int rolloutDepth = 80;      // profondeur max des rollouts
     private int maxPlanLength = 1500;    // sécurité pour éviter boucle infinie
     private double explorationC = 1.6;  // constante UCB
+    private Path cacheDir = null;       // cache des problèmes instanciés (désactivé)
+    private boolean pruning = true;     // élagage atteignabilité / pertinence (ProblemReducer)
+    private Deadline deadline;          // échéance de la recherche en cours (-t, en secondes)
+    private PreconditionMatrix preconditions; // préconditions empaquetées du problème en cours
+    private long[] applicable;          // bitmap des actions applicables (dernier état testé)
+    private Map<String, String> profile = Map.of(); // profil du domaine (--profile)
 
     @CommandLine.Option(names = {"--iterations", "-I"}, defaultValue = "300",
             paramLabel = "<int>",
@@ -81,6 +94,38 @@ public class MCTSPlanner extends AbstractPlanner {
         this.explorationC = c;
     }
 
+    @CommandLine.Option(names = {"--seed"}, defaultValue = "0",
+            paramLabel = "<long>",
+            description = "Graine du générateur aléatoire (0 par défaut).")
+    public void setSeed(final long seed) {
+        this.rng.setSeed(seed);
+    }
+
+    @CommandLine.Option(names = {"--profile"}, paramLabel = "<file>",
+            description = "Profil de paramètres du domaine (BenchmarkRunner --tune, clés MCTS.<option>): "
+                    + "remplace les valeurs par défaut, les options données explicitement l'emportent.")
+    public void setProfile(final Path file) {
+        this.profile = ParameterProfile.load(file, "MCTS",
+                Set.of("iterations", "rolloutDepth", "maxPlanLength", "exploration"));
+    }
+
+    @Override
+    public String profileValue(final String option) {
+        return this.profile.get(option);
+    }
+
+    @CommandLine.Option(names = {"--cacheDir"}, paramLabel = "<dir>",
+            description = "Dossier du cache des problèmes instanciés (désactivé par défaut).")
+    public void setCacheDir(final Path dir) {
+        this.cacheDir = dir;
+    }
+
+    @CommandLine.Option(names = {"--noPruning"},
+            description = "Désactive l'élagage des actions inatteignables ou non pertinentes.")
+    public void setNoPruning(final boolean noPruning) {
+        this.pruning = !noPruning;
+    }
+
     // Structure pour rollouts
 
     private static class WalkResult {
@@ -133,8 +178,18 @@ public class MCTSPlanner extends AbstractPlanner {
 
     @Override
     public Problem instantiate(DefaultParsedProblem problem) {
-        final Problem pb = new DefaultProblem(problem);
-        pb.instantiate();
+        final PlannerEvents.Instantiate event = new PlannerEvents.Instantiate();
+        event.begin();
+        final Problem pb = ProblemCache.instantiate(problem, this.getDomainFile(), this.getProblemFile(),
+                this.cacheDir);
+        if (this.pruning) {
+            ProblemReducer.reduce(pb);
+        }
+        event.planner = "MCTS";
+        event.parseTimeMs = this.getStatistics().getTimeToParse();
+        event.actions = pb.getActions().size();
+        event.fluents = pb.getFluents().size();
+        event.commit();
         return pb;
     }
 
@@ -143,17 +198,27 @@ public class MCTSPlanner extends AbstractPlanner {
         return s.satisfy(pb.getGoal());
     }
 
+    /**
+     * Teste toutes les actions dans un état: remplit la bitmap {@code applicable} (bit i: action i
+     * applicable) et rend le nombre d'actions applicables.
+     */
+    private int testApplicable(final State state) {
+        metrics.nodesExpanded++;
+        metrics.applicableChecks += this.preconditions.size();
+        return this.preconditions.applicable(state, this.applicable);
+    }
+
     private List<Action> getApplicableActions(final State state, final List<Action> allActions) {
-        final List<Action> applicable = new ArrayList<>();
-        for (Action a : allActions) {
-            if (state.satisfy(a.getPrecondition())) {
-                applicable.add(a);
-            }
+        final List<Action> applicable = new ArrayList<>(testApplicable(state));
+        for (int i = PreconditionMatrix.nextSetBit(this.applicable, 0); i >= 0;
+             i = PreconditionMatrix.nextSetBit(this.applicable, i + 1)) {
+            applicable.add(allActions.get(i));
         }
         return applicable;
     }
 
     private State applyAction(final State s, final Action a) {
+        metrics.nodesGenerated++;
         final State next = new State(s);
         next.apply(a.getUnconditionalEffect());
         next.apply(a.getConditionalEffects());
@@ -169,20 +234,27 @@ public class MCTSPlanner extends AbstractPlanner {
                                          final List<Action> allActions,
                                          final int maxLen) {
 
+        metrics.rollouts++;
         State current = new State(start);
 
         for (int j = 0; j < maxLen; j++) {
             if (isGoal(problem, current)) {
                 return new WalkResult(current, false, true);
             }
+            // échéance: rollout interrompu, sans récompense
+            if (this.deadline.expired()) {
+                return new WalkResult(current, false, false);
+            }
 
-            final List<Action> applicable = getApplicableActions(current, allActions);
-            if (applicable.isEmpty()) {
+            final int count = testApplicable(current);
+            if (count == 0) {
                 return new WalkResult(current, true, false);
             }
 
-            final Action chosen = applicable.get(rng.nextInt(applicable.size()));
+            // même tirage que dans la liste des actions applicables
+            final Action chosen = allActions.get(PreconditionMatrix.nthSetBit(this.applicable, rng.nextInt(count)));
             current = applyAction(current, chosen);
+            metrics.rolloutSteps++;
         }
 
         return new WalkResult(current, false, isGoal(problem, current));
@@ -215,18 +287,25 @@ public class MCTSPlanner extends AbstractPlanner {
                                     final State rootState,
                                     final List<Action> allActions) {
 
+        final PlannerEvents.MctsDecision event = new PlannerEvents.MctsDecision();
+        event.begin();
+
         final List<Action> rootApplicable = getApplicableActions(rootState, allActions);
         if (rootApplicable.isEmpty()) return null;
 
         final MCTSNode root = new MCTSNode(null, null, new ArrayList<>(rootApplicable));
 
-        for (int it = 0; it < this.iterations; it++) {
+        int it = 0;
+        for (; it < this.iterations; it++) {
+            if (this.deadline.expired()) {
+                break;
+            }
 
             State sim = new State(rootState);
             MCTSNode node = root;
 
             // Selection
-            while (node.isFullyExpanded() && node.hasChildren()) {
+            while (node.isFullyExpanded() && node.hasChildren() && !this.deadline.expired()) {
                 node = bestChildUCB(node, this.explorationC);
                 sim = applyAction(sim, node.actionFromParent);
             }
@@ -266,6 +345,13 @@ public class MCTSPlanner extends AbstractPlanner {
             }
         }
 
+        // Evenement JFR (ignoré si aucun enregistrement n'est actif)
+        event.iterations = it;
+        event.applicableActions = rootApplicable.size();
+        event.bestVisits = bestVisits;
+        event.bestWins = (best == null) ? 0.0 : best.wins;
+        event.commit();
+
         return (best == null) ? null : best.actionFromParent;
     }
 
@@ -277,7 +363,11 @@ public class MCTSPlanner extends AbstractPlanner {
         final List<Action> actions = pb.getActions();
 
         final long startTime = System.currentTimeMillis();
-        final long timeoutMs = this.getTimeout();
+        // -t est en secondes (AbstractPlanner)
+        this.deadline = Deadline.ofSeconds(this.getTimeout());
+        this.preconditions = new PreconditionMatrix(actions);
+        this.applicable = this.preconditions.newBitmap();
+        this.metrics.start();
 
         State s = new State(pb.getInitialState());
         SequentialPlan plan = new SequentialPlan();
@@ -286,27 +376,34 @@ public class MCTSPlanner extends AbstractPlanner {
         LOGGER.info("\n========== MCTSPlanner ==========\n");
         LOGGER.info("iterations={} rolloutDepth={} maxPlanLength={} explorationC={}\n",
                 this.iterations, this.rolloutDepth, this.maxPlanLength, this.explorationC);
-        LOGGER.info("Timeout(ms)={} actions={}\n", timeoutMs, actions.size());
+        LOGGER.info("Timeout(s)={} actions={}\n", this.getTimeout(), actions.size());
 
         while (!isGoal(pb, s) && t < this.maxPlanLength) {
 
             // timeout
-            if (timeoutMs > 0 && System.currentTimeMillis() - startTime > timeoutMs) {
+            if (this.deadline.expiredNow()) {
                 long runtime = System.currentTimeMillis() - startTime;
-                LOGGER.info("Timeout reached -> returning null");
+                LOGGER.info("Timeout reached -> returning null\n");
+                this.metrics.timedOut = true;
                 System.out.println("RESULT: FAILURE");
                 System.out.println("RESULT: PLAN_LENGTH=0");
                 System.out.println("RESULT: RUNTIME_MS=" + runtime);
+                this.metrics.print(this.getStatistics());
                 return null;
             }
 
             final Action next = mctsChooseAction(pb, s, actions);
+            // la décision interrompue par l'échéance n'est pas jouée
+            if (this.deadline.hasExpired()) {
+                continue;
+            }
             if (next == null) {
                 long runtime = System.currentTimeMillis() - startTime;
-                LOGGER.info("No applicable action / MCTS couldn't choose -> failure");
+                LOGGER.info("No applicable action / MCTS couldn't choose -> failure\n");
                 System.out.println("RESULT: FAILURE");
                 System.out.println("RESULT: PLAN_LENGTH=0");
                 System.out.println("RESULT: RUNTIME_MS=" + runtime);
+                this.metrics.print(this.getStatistics());
                 return null;
             }
 
@@ -324,12 +421,14 @@ public class MCTSPlanner extends AbstractPlanner {
             System.out.println("RESULT: SUCCESS");
             System.out.println("RESULT: PLAN_LENGTH=" + t);
             System.out.println("RESULT: RUNTIME_MS=" + runtime);
+            this.metrics.print(this.getStatistics());
             return plan;
         } else {
-            LOGGER.info("Max plan length reached without goal -> failure");
+            LOGGER.info("Max plan length reached without goal -> failure\n");
             System.out.println("RESULT: FAILURE");
             System.out.println("RESULT: PLAN_LENGTH=0");
             System.out.println("RESULT: RUNTIME_MS=" + runtime);
+            this.metrics.print(this.getStatistics());
             return null;
         }
     }
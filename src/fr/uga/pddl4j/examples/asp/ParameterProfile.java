@@ -0,0 +1,139 @@
+package fr.uga.pddl4j.examples.asp;
+
+import picocli.CommandLine;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * ParameterProfile: profil de paramètres d'un domaine, écrit par {@code BenchmarkRunner --tune} et lu
+ * par l'option {@code --profile} de MCTSPlanner et RWPlanner.
+ * <p>
+ * Un profil est un fichier properties ({@code profiles/<domain>.properties}) dont les clés sont
+ * {@code <PLANNER>.<option longue>}, par exemple {@code MCTS.iterations=1000} ou
+ * {@code RW.walkLength=40}; chaque planner ne lit que ses propres clés. Les lignes de commentaire
+ * {@code # <PLANNER>: ...} résument la course qui a produit les valeurs.
+ * </p>
+ * Picocli applique les valeurs par défaut des options absentes de la ligne de commande après
+ * l'analyse: le profil est donc appliqué comme fournisseur de valeurs par défaut ({@link Defaults}),
+ * et les options données explicitement l'emportent toujours sur lui.
+ */
+final class ParameterProfile {
+
+    private ParameterProfile() {
+    }
+
+    /**
+     * Planner qui accepte un profil ({@code --profile}).
+     */
+    interface Profiled {
+
+        /**
+         * La valeur du profil chargé pour une option, ou null.
+         *
+         * @param option le nom long de l'option, sans {@code --}.
+         */
+        String profileValue(String option);
+    }
+
+    /**
+     * Fournisseur de valeurs par défaut des planners {@link Profiled}: la valeur du profil, sinon
+     * celle de l'annotation.
+     */
+    static final class Defaults implements CommandLine.IDefaultValueProvider {
+
+        @Override
+        public String defaultValue(final CommandLine.Model.ArgSpec arg) {
+            final Object planner = arg.command() == null ? null : arg.command().userObject();
+            if (arg.isOption() && planner instanceof Profiled) {
+                final String name = ((CommandLine.Model.OptionSpec) arg).longestName().replaceFirst("^--", "");
+                return ((Profiled) planner).profileValue(name);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Lit les paramètres d'un planner.
+     *
+     * @param file    le fichier du profil.
+     * @param planner le préfixe des clés du planner (MCTS ou RW).
+     * @return les valeurs par nom d'option longue (sans {@code --}), dans l'ordre des noms.
+     * @throws IllegalArgumentException si le fichier est illisible.
+     */
+    static Map<String, String> load(final Path file, final String planner) {
+        return load(file, planner, null);
+    }
+
+    /**
+     * Lit les paramètres d'un planner en vérifiant les noms.
+     *
+     * @param file    le fichier du profil.
+     * @param planner le préfixe des clés du planner (MCTS ou RW).
+     * @param known   les noms d'options acceptés (null: tous).
+     * @return les valeurs par nom d'option longue (sans {@code --}), dans l'ordre des noms.
+     * @throws IllegalArgumentException si le fichier est illisible ou contient un nom inconnu.
+     */
+    static Map<String, String> load(final Path file, final String planner, final Set<String> known) {
+        final Properties properties = new Properties();
+        try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(in);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("cannot read profile " + file + ": " + e.getMessage());
+        }
+        final Map<String, String> params = new TreeMap<>();
+        final String prefix = planner + ".";
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith(prefix)) {
+                final String name = key.substring(prefix.length());
+                if (known != null && !known.contains(name)) {
+                    throw new IllegalArgumentException("unknown parameter " + key + " in " + file);
+                }
+                params.put(name, properties.getProperty(key).trim());
+            }
+        }
+        return params;
+    }
+
+    /**
+     * Ecrit (ou remplace) les paramètres d'un planner dans un profil, sans toucher à ceux des autres
+     * planners.
+     *
+     * @param file    le fichier du profil.
+     * @param domain  le domaine du profil (pour l'en-tête).
+     * @param planner le préfixe des clés du planner (MCTS ou RW).
+     * @param params  les valeurs par nom d'option longue.
+     * @param summary une ligne de résumé de la course.
+     * @throws IOException si le fichier ne peut pas être écrit.
+     */
+    static void write(final Path file, final String domain, final String planner, final Map<String, String> params,
+                      final String summary) throws IOException {
+        final String header = "# Profil de paramètres: " + domain + " (BenchmarkRunner --tune)";
+        final List<String> lines = new ArrayList<>();
+        lines.add(header);
+        if (Files.exists(file)) {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                if (!line.equals(header) && !line.startsWith(planner + ".") && !line.startsWith("# " + planner + ":")) {
+                    lines.add(line);
+                }
+            }
+        }
+        lines.add("# " + planner + ": " + summary);
+        for (Map.Entry<String, String> e : params.entrySet()) {
+            lines.add(planner + "." + e.getKey() + "=" + e.getValue());
+        }
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Files.write(file, lines, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,421 @@
+package fr.uga.pddl4j.examples.asp;
+
+import fr.uga.pddl4j.problem.Problem;
+import fr.uga.pddl4j.problem.State;
+import fr.uga.pddl4j.problem.operator.Action;
+import fr.uga.pddl4j.problem.operator.Condition;
+import fr.uga.pddl4j.problem.operator.ConditionalEffect;
+import fr.uga.pddl4j.util.BitVector;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntConsumer;
+
+/**
+ * PatternDatabase: table des distances au but dans la projection d'un problème sur un motif
+ * (pattern) de fluents.
+ * <p>
+ * Un état abstrait est le masque des fluents du motif vrais dans l'état: ce masque est un
+ * hachage parfait vers l'indice de la table. Chaque action est projetée sur le motif (les
+ * préconditions hors motif sont ignorées; un effet conditionnel dont la condition sort du motif
+ * peut se déclencher ou non, les deux successeurs sont gardés), puis toutes les transitions
+ * abstraites sont énumérées et les distances calculées par parcours en largeur arrière depuis
+ * les états abstraits qui satisfont le but. La projection ne fait que relâcher le problème, la
+ * distance abstraite est donc admissible (coût unitaire, comme l'A* d'ASP).
+ * </p>
+ * Les distances sont stockées dans un {@code byte[]} (ou un {@code short[]} si une distance
+ * dépasse 254), la valeur maximale codant « inatteignable ». Avec un dossier de stockage, la
+ * table est écrite sur disque sous le SHA-256 de la projection (masques des actions projetées
+ * et du but), si bien que les problèmes d'un même domaine qui donnent la même projection
+ * partagent la table.
+ */
+final class PatternDatabase {
+
+    private static final Logger LOGGER = LogManager.getLogger(PatternDatabase.class.getName());
+
+    private static final int MAGIC = 0x50444254; // "PDBT"
+    private static final int FORMAT_VERSION = 1;
+
+    private static final String EXTENSION = ".pdb";
+
+    /**
+     * Au-delà, les sous-ensembles d'effets incertains d'une action ne sont plus énumérés.
+     */
+    private static final int MAX_UNCERTAIN_EFFECTS = 8;
+
+    private static final int BYTE_INFINITY = 0xFF;
+    private static final int SHORT_INFINITY = 0xFFFF;
+
+    /**
+     * Fluents du motif (le bit i du masque abstrait correspond à pattern[i]).
+     */
+    final int[] pattern;
+
+    /**
+     * Actions concrètes qui modifient au moins un fluent du motif (pour l'additivité).
+     */
+    final BitVector affectedBy;
+
+    private final byte[] bytes;
+    private final short[] shorts;
+
+    private PatternDatabase(final int[] pattern, final BitVector affectedBy, final byte[] bytes,
+                            final short[] shorts) {
+        this.pattern = pattern;
+        this.affectedBy = affectedBy;
+        this.bytes = bytes;
+        this.shorts = shorts;
+    }
+
+    /**
+     * Distance abstraite au but de l'état.
+     *
+     * @param state l'état concret.
+     * @return la distance, ou {@link Integer#MAX_VALUE} si le but est inatteignable dans la projection.
+     */
+    int lookup(final State state) {
+        int rank = 0;
+        for (int i = 0; i < this.pattern.length; i++) {
+            if (state.get(this.pattern[i])) {
+                rank |= 1 << i;
+            }
+        }
+        if (this.bytes != null) {
+            final int d = this.bytes[rank] & 0xFF;
+            return d == BYTE_INFINITY ? Integer.MAX_VALUE : d;
+        }
+        final int d = this.shorts[rank] & 0xFFFF;
+        return d == SHORT_INFINITY ? Integer.MAX_VALUE : d;
+    }
+
+    /**
+     * Construit (ou relit sur disque) la table d'un motif.
+     *
+     * @param problem le problème instancié.
+     * @param pattern les fluents du motif (au plus 30).
+     * @param dir     le dossier de stockage des tables, ou null pour ne rien écrire.
+     * @return la table du motif, ou null si la projection est trop coûteuse à énumérer.
+     */
+    static PatternDatabase build(final Problem problem, final int[] pattern, final Path dir) {
+        final Projection projection = Projection.of(problem, pattern);
+        if (projection == null) {
+            return null;
+        }
+        final Path file = dir == null ? null : dir.resolve(projection.key() + EXTENSION);
+        if (file != null && Files.exists(file)) {
+            try {
+                return load(pattern, projection.affectedBy, file);
+            } catch (IOException | RuntimeException e) {
+                LOGGER.warn("Ignoring unreadable pattern database {}: {}\n", file, e.getMessage());
+            }
+        }
+
+        final int[] dist = projection.distances();
+        int max = 0;
+        for (int d : dist) {
+            max = Math.max(max, d);
+        }
+        final PatternDatabase pdb;
+        if (max < BYTE_INFINITY) {
+            final byte[] table = new byte[dist.length];
+            for (int s = 0; s < dist.length; s++) {
+                table[s] = (byte) (dist[s] < 0 ? BYTE_INFINITY : dist[s]);
+            }
+            pdb = new PatternDatabase(pattern, projection.affectedBy, table, null);
+        } else {
+            final short[] table = new short[dist.length];
+            for (int s = 0; s < dist.length; s++) {
+                table[s] = (short) (dist[s] < 0 || dist[s] >= SHORT_INFINITY ? SHORT_INFINITY : dist[s]);
+            }
+            pdb = new PatternDatabase(pattern, projection.affectedBy, null, table);
+        }
+        if (file != null) {
+            try {
+                pdb.store(file);
+            } catch (IOException e) {
+                LOGGER.warn("Cannot write pattern database {}: {}\n", file, e.getMessage());
+            }
+        }
+        return pdb;
+    }
+
+    private void store(final Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        final Path tmp = Files.createTempFile(file.getParent(), "pdb", ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(this.pattern.length);
+            if (this.bytes != null) {
+                out.writeInt(1);
+                out.write(this.bytes);
+            } else {
+                out.writeInt(2);
+                for (short d : this.shorts) {
+                    out.writeShort(d);
+                }
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static PatternDatabase load(final int[] pattern, final BitVector affectedBy, final Path file)
+            throws IOException {
+        final MappedByteBuffer buf;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+        }
+        if (buf.getInt() != MAGIC || buf.getInt() != FORMAT_VERSION || buf.getInt() != pattern.length) {
+            throw new IOException("bad header");
+        }
+        final int size = 1 << pattern.length;
+        if (buf.getInt() == 1) {
+            final byte[] table = new byte[size];
+            buf.get(table);
+            return new PatternDatabase(pattern, affectedBy, table, null);
+        }
+        final short[] table = new short[size];
+        buf.asShortBuffer().get(table);
+        return new PatternDatabase(pattern, affectedBy, null, table);
+    }
+
+    /**
+     * Projection du problème sur un motif: actions abstraites (dédoublonnées) et but abstrait,
+     * sous forme de masques.
+     */
+    private static final class Projection {
+        final int size;
+        final int goalPos;
+        final int goalNeg;
+        final List<int[]> actions;
+        final BitVector affectedBy;
+
+        private Projection(final int size, final int goalPos, final int goalNeg, final List<int[]> actions,
+                           final BitVector affectedBy) {
+            this.size = size;
+            this.goalPos = goalPos;
+            this.goalNeg = goalNeg;
+            this.actions = actions;
+            this.affectedBy = affectedBy;
+        }
+
+        /**
+         * Une action abstraite est codée {prePos, preNeg, nbEffets, puis pour chaque effet
+         * condPos, condNeg, exact (0/1), add, del}.
+         */
+        static Projection of(final Problem problem, final int[] pattern) {
+            final int[] bitOf = new int[problem.getFluents().size()];
+            Arrays.fill(bitOf, -1);
+            for (int i = 0; i < pattern.length; i++) {
+                bitOf[pattern[i]] = i;
+            }
+            final Set<Key> seen = new HashSet<>();
+            final List<int[]> actions = new ArrayList<>();
+            final BitVector affectedBy = new BitVector();
+            final List<Action> all = problem.getActions();
+            for (int a = 0; a < all.size(); a++) {
+                final Action action = all.get(a);
+                final List<Integer> code = new ArrayList<>();
+                code.add(mask(action.getPrecondition().getPositiveFluents(), bitOf));
+                code.add(mask(action.getPrecondition().getNegativeFluents(), bitOf));
+                code.add(0);
+                int uncertain = 0;
+                for (ConditionalEffect ce : action.getConditionalEffects()) {
+                    final int add = mask(ce.getEffect().getPositiveFluents(), bitOf);
+                    final int del = mask(ce.getEffect().getNegativeFluents(), bitOf);
+                    if (add == 0 && del == 0) {
+                        continue;
+                    }
+                    final Condition c = ce.getCondition();
+                    final boolean exact = inside(c.getPositiveFluents(), bitOf) && inside(c.getNegativeFluents(), bitOf);
+                    uncertain += exact ? 0 : 1;
+                    code.add(mask(c.getPositiveFluents(), bitOf));
+                    code.add(mask(c.getNegativeFluents(), bitOf));
+                    code.add(exact ? 1 : 0);
+                    code.add(add);
+                    code.add(del);
+                    code.set(2, code.get(2) + 1);
+                }
+                if (code.get(2) == 0) {
+                    continue; // l'action ne change pas l'état abstrait
+                }
+                if (uncertain > MAX_UNCERTAIN_EFFECTS) {
+                    return null;
+                }
+                affectedBy.set(a);
+                final int[] encoded = code.stream().mapToInt(Integer::intValue).toArray();
+                if (seen.add(new Key(encoded))) {
+                    actions.add(encoded);
+                }
+            }
+            actions.sort(Arrays::compare);
+            return new Projection(pattern.length, mask(problem.getGoal().getPositiveFluents(), bitOf),
+                    mask(problem.getGoal().getNegativeFluents(), bitOf), actions, affectedBy);
+        }
+
+        /**
+         * Clé de stockage: SHA-256 du format, du but et des actions abstraites (triées).
+         */
+        String key() {
+            try {
+                final MessageDigest md = MessageDigest.getInstance("SHA-256");
+                final ByteBuffer buf = ByteBuffer.allocate(4);
+                final int[] header = {FORMAT_VERSION, this.size, this.goalPos, this.goalNeg, this.actions.size()};
+                for (int v : header) {
+                    md.update(buf.clear().putInt(v).array());
+                }
+                for (int[] action : this.actions) {
+                    md.update(buf.clear().putInt(action.length).array());
+                    for (int v : action) {
+                        md.update(buf.clear().putInt(v).array());
+                    }
+                }
+                final StringBuilder hex = new StringBuilder();
+                for (byte b : md.digest()) {
+                    hex.append(String.format("%02x", b));
+                }
+                return hex.toString();
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        /**
+         * Distances au but de tous les états abstraits (-1 si inatteignable): énumération des
+         * transitions dans des tableaux d'adjacence inverse, puis parcours en largeur arrière.
+         */
+        int[] distances() {
+            final int n = 1 << this.size;
+            // 1) Nombre de prédécesseurs de chaque état, puis positions (CSR)
+            final int[] start = new int[n + 1];
+            for (int s = 0; s < n; s++) {
+                for (int[] a : this.actions) {
+                    successors(s, a, (t) -> start[t + 1]++);
+                }
+            }
+            for (int s = 0; s < n; s++) {
+                start[s + 1] += start[s];
+            }
+            final int[] preds = new int[start[n]];
+            final int[] fill = Arrays.copyOf(start, n);
+            for (int s = 0; s < n; s++) {
+                final int from = s;
+                for (int[] a : this.actions) {
+                    successors(s, a, (t) -> preds[fill[t]++] = from);
+                }
+            }
+
+            // 2) Parcours en largeur arrière depuis les états abstraits buts
+            final int[] dist = new int[n];
+            Arrays.fill(dist, -1);
+            final int[] queue = new int[n];
+            int head = 0;
+            int tail = 0;
+            for (int s = 0; s < n; s++) {
+                if ((s & this.goalPos) == this.goalPos && (s & this.goalNeg) == 0) {
+                    dist[s] = 0;
+                    queue[tail++] = s;
+                }
+            }
+            while (head < tail) {
+                final int t = queue[head++];
+                for (int i = start[t]; i < start[t + 1]; i++) {
+                    final int p = preds[i];
+                    if (dist[p] < 0) {
+                        dist[p] = dist[t] + 1;
+                        queue[tail++] = p;
+                    }
+                }
+            }
+            return dist;
+        }
+
+        private static void successors(final int s, final int[] a, final IntConsumer out) {
+            if ((s & a[0]) != a[0] || (s & a[1]) != 0) {
+                return;
+            }
+            int add = 0;
+            int del = 0;
+            final int[] uncertain = new int[a[2]];
+            int u = 0;
+            for (int e = 0, i = 3; e < a[2]; e++, i += 5) {
+                if ((s & a[i]) == a[i] && (s & a[i + 1]) == 0) {
+                    if (a[i + 2] == 1) {
+                        add |= a[i + 3];
+                        del |= a[i + 4];
+                    } else {
+                        uncertain[u++] = i;
+                    }
+                }
+            }
+            for (int subset = 0; subset < 1 << u; subset++) {
+                int sa = add;
+                int sd = del;
+                for (int j = 0; j < u; j++) {
+                    if ((subset & (1 << j)) != 0) {
+                        sa |= a[uncertain[j] + 3];
+                        sd |= a[uncertain[j] + 4];
+                    }
+                }
+                final int t = (s & ~sd) | sa;
+                if (t != s) {
+                    out.accept(t);
+                }
+            }
+        }
+
+        private static int mask(final BitVector bits, final int[] bitOf) {
+            int m = 0;
+            for (int f = bits.nextSetBit(0); f >= 0; f = bits.nextSetBit(f + 1)) {
+                if (f < bitOf.length && bitOf[f] >= 0) {
+                    m |= 1 << bitOf[f];
+                }
+            }
+            return m;
+        }
+
+        private static boolean inside(final BitVector bits, final int[] bitOf) {
+            for (int f = bits.nextSetBit(0); f >= 0; f = bits.nextSetBit(f + 1)) {
+                if (f >= bitOf.length || bitOf[f] < 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final class Key {
+        private final int[] values;
+
+        Key(final int[] values) {
+            this.values = values;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            return o instanceof Key && Arrays.equals(this.values, ((Key) o).values);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(this.values);
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package fr.uga.pddl4j.examples.asp;
+
+import fr.uga.pddl4j.heuristics.state.StateHeuristic;
+import fr.uga.pddl4j.planners.statespace.search.Node;
+import fr.uga.pddl4j.problem.Problem;
+import fr.uga.pddl4j.problem.State;
+import fr.uga.pddl4j.problem.operator.Action;
+import fr.uga.pddl4j.problem.operator.Condition;
+import fr.uga.pddl4j.problem.operator.ConditionalEffect;
+import fr.uga.pddl4j.util.BitVector;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * PdbHeuristic: heuristique admissible par bases de motifs ({@link PatternDatabase}).
+ * <p>
+ * Sélection automatique des motifs: un motif par fluent du but, construit en partant de ce
+ * fluent et en ajoutant, en largeur d'abord dans le graphe causal, les préconditions des actions
+ * qui modifient les fluents du motif, jusqu'à la taille maximale. Deux motifs dont aucune action
+ * ne modifie les deux à la fois sont additifs: les motifs sont répartis en groupes deux à deux
+ * additifs, la valeur est le maximum sur les groupes de la somme des distances abstraites du
+ * groupe (admissible et cohérente).
+ * </p>
+ */
+final class PdbHeuristic implements StateHeuristic {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger LOGGER = LogManager.getLogger(PdbHeuristic.class.getName());
+
+    /**
+     * Taille maximale d'un motif (le masque abstrait tient dans un int, et 2^k entrées en mémoire).
+     */
+    static final int MAX_PATTERN_SIZE = 24;
+
+    private final transient PatternDatabase[][] groups;
+
+    /**
+     * Construit les tables des motifs du problème.
+     *
+     * @param problem   le problème instancié.
+     * @param maxStates nombre maximal d'états abstraits par table (puissance de 2 arrondie en dessous).
+     * @param dir       le dossier où partager les tables entre problèmes, ou null.
+     */
+    PdbHeuristic(final Problem problem, final int maxStates, final Path dir) {
+        final long t0 = System.currentTimeMillis();
+        final int size = Math.max(1, Math.min(MAX_PATTERN_SIZE, 31 - Integer.numberOfLeadingZeros(maxStates)));
+        final List<PatternDatabase> pdbs = new ArrayList<>();
+        long entries = 0;
+        for (int[] pattern : selectPatterns(problem, size)) {
+            final PatternDatabase pdb = PatternDatabase.build(problem, pattern, dir);
+            if (pdb != null) {
+                pdbs.add(pdb);
+                entries += 1L << pattern.length;
+            }
+        }
+
+        // Groupes de motifs deux à deux additifs (un motif peut appartenir à plusieurs groupes)
+        final List<List<PatternDatabase>> additive = new ArrayList<>();
+        for (PatternDatabase pdb : pdbs) {
+            boolean placed = false;
+            for (List<PatternDatabase> group : additive) {
+                boolean independent = true;
+                for (PatternDatabase other : group) {
+                    if (other.affectedBy.intersects(pdb.affectedBy)) {
+                        independent = false;
+                        break;
+                    }
+                }
+                if (independent) {
+                    group.add(pdb);
+                    placed = true;
+                }
+            }
+            if (!placed) {
+                final List<PatternDatabase> group = new ArrayList<>();
+                group.add(pdb);
+                additive.add(group);
+            }
+        }
+        this.groups = new PatternDatabase[additive.size()][];
+        for (int g = 0; g < this.groups.length; g++) {
+            this.groups[g] = additive.get(g).toArray(new PatternDatabase[0]);
+        }
+        LOGGER.info("* Pattern databases: {} patterns of at most {} fluents, {} additive groups, "
+                + "{} entries built in {} ms\n", pdbs.size(), size, this.groups.length, entries,
+                System.currentTimeMillis() - t0);
+    }
+
+    @Override
+    public int estimate(final State state, final Condition goal) {
+        int best = 0;
+        for (PatternDatabase[] group : this.groups) {
+            int sum = 0;
+            for (PatternDatabase pdb : group) {
+                final int d = pdb.lookup(state);
+                if (d == Integer.MAX_VALUE) {
+                    return Integer.MAX_VALUE; // dead-end, prouvé par la projection
+                }
+                sum += d;
+            }
+            best = Math.max(best, sum);
+        }
+        return best;
+    }
+
+    @Override
+    public double estimate(final Node node, final Condition goal) {
+        return this.estimate((State) node, goal);
+    }
+
+    @Override
+    public boolean isAdmissible() {
+        return true;
+    }
+
+    /**
+     * Deux collections de motifs, une graine par fluent du but:
+     * <ul>
+     *     <li>motifs additifs: les motifs grandissent à tour de rôle et un fluent n'est ajouté
+     *     que si aucune action qui le modifie ne modifie aussi un fluent d'un autre motif (les
+     *     ressources partagées, comme la position du robot, reviennent au premier motif);</li>
+     *     <li>motifs riches: croissance libre, utile quand le but est fortement couplé.</li>
+     * </ul>
+     */
+    private static List<int[]> selectPatterns(final Problem problem, final int size) {
+        final int nbFluents = problem.getFluents().size();
+        final List<Action> actions = problem.getActions();
+        // Actions qui modifient chaque fluent, et préconditions de chaque action
+        final BitVector[] changers = new BitVector[nbFluents];
+        for (int f = 0; f < nbFluents; f++) {
+            changers[f] = new BitVector();
+        }
+        final BitVector[] pre = new BitVector[actions.size()];
+        for (int a = 0; a < actions.size(); a++) {
+            final Action action = actions.get(a);
+            for (ConditionalEffect ce : action.getConditionalEffects()) {
+                final BitVector changed = new BitVector(ce.getEffect().getPositiveFluents());
+                changed.or(ce.getEffect().getNegativeFluents());
+                for (int f = changed.nextSetBit(0); f >= 0; f = changed.nextSetBit(f + 1)) {
+                    changers[f].set(a);
+                }
+            }
+            pre[a] = new BitVector(action.getPrecondition().getPositiveFluents());
+            pre[a].or(action.getPrecondition().getNegativeFluents());
+        }
+
+        final BitVector goal = new BitVector(problem.getGoal().getPositiveFluents());
+        goal.or(problem.getGoal().getNegativeFluents());
+        final List<Growth> additive = new ArrayList<>();
+        for (int g = goal.nextSetBit(0); g >= 0; g = goal.nextSetBit(g + 1)) {
+            additive.add(new Growth(g, changers));
+        }
+
+        // Croissance à tour de rôle sous contrainte d'additivité
+        boolean grown = true;
+        while (grown) {
+            grown = false;
+            for (Growth p : additive) {
+                grown |= p.grow(size, pre, changers, additive);
+            }
+        }
+        final List<int[]> patterns = new ArrayList<>();
+        for (Growth p : additive) {
+            patterns.add(p.toArray());
+        }
+
+        // Croissance libre
+        for (Growth p : additive) {
+            final Growth rich = new Growth(p.pattern.get(0), changers);
+            while (rich.grow(size, pre, changers, null)) {
+                // jusqu'à la taille maximale ou la fin du graphe causal
+            }
+            if (rich.pattern.size() > p.pattern.size()) {
+                patterns.add(rich.toArray());
+            }
+        }
+        return patterns;
+    }
+
+    /**
+     * Motif en cours de construction, parcouru en largeur d'abord dans le graphe causal.
+     */
+    private static final class Growth {
+        final List<Integer> pattern = new ArrayList<>();
+        final BitVector in = new BitVector();
+        final BitVector affected = new BitVector();
+        final Deque<Integer> candidates = new ArrayDeque<>();
+        final BitVector seen = new BitVector();
+        int next;
+
+        Growth(final int seed, final BitVector[] changers) {
+            this.add(seed, changers);
+            this.seen.set(seed);
+        }
+
+        private void add(final int f, final BitVector[] changers) {
+            this.pattern.add(f);
+            this.in.set(f);
+            this.affected.or(changers[f]);
+        }
+
+        /**
+         * Ajoute le prochain candidat compatible; faux si le motif ne peut plus grandir.
+         */
+        boolean grow(final int size, final BitVector[] pre, final BitVector[] changers, final List<Growth> others) {
+            while (this.pattern.size() < size) {
+                if (this.candidates.isEmpty()) {
+                    if (this.next >= this.pattern.size()) {
+                        return false;
+                    }
+                    // Préconditions des actions qui modifient le prochain fluent du motif
+                    final BitVector ops = changers[this.pattern.get(this.next++)];
+                    for (int a = ops.nextSetBit(0); a >= 0; a = ops.nextSetBit(a + 1)) {
+                        for (int q = pre[a].nextSetBit(0); q >= 0; q = pre[a].nextSetBit(q + 1)) {
+                            if (!this.seen.get(q)) {
+                                this.seen.set(q);
+                                this.candidates.add(q);
+                            }
+                        }
+                    }
+                    continue;
+                }
+                final int q = this.candidates.poll();
+                if (others == null || this.compatible(q, changers, others)) {
+                    this.add(q, changers);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean compatible(final int q, final BitVector[] changers, final List<Growth> others) {
+            for (Growth other : others) {
+                if (other != this && (other.in.get(q) || other.affected.intersects(changers[q]))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        int[] toArray() {
+            return this.pattern.stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+}
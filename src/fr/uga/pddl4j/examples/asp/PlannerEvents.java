@@ -0,0 +1,148 @@
+package fr.uga.pddl4j.examples.asp;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+
+/**
+ * PlannerEvents: événements Java Flight Recorder émis par les planners pendant leurs phases.
+ * <p>
+ * Les événements ne coûtent presque rien quand aucun enregistrement JFR n'est actif. Pour les
+ * capturer: {@code java -XX:StartFlightRecording=filename=run.jfr ...} ou
+ * {@code BenchmarkRunner --jfr}, puis ouvrir le fichier avec JDK Mission Control ou
+ * {@code jfr print --categories Planner run.jfr}.
+ * </p>
+ */
+final class PlannerEvents {
+
+    private PlannerEvents() {
+    }
+
+    /**
+     * Parsing + instanciation du problème (la durée couvre l'instanciation, le parsing est un champ).
+     */
+    @Name("fr.uga.pddl4j.examples.asp.Instantiate")
+    @Label("Instantiate Problem")
+    @Category({"Planner", "Preprocessing"})
+    @StackTrace(false)
+    static final class Instantiate extends Event {
+        @Label("Planner")
+        String planner;
+
+        @Label("Parse Time (ms)")
+        long parseTimeMs;
+
+        @Label("Actions")
+        int actions;
+
+        @Label("Fluents")
+        int fluents;
+    }
+
+    /**
+     * Initialisation de l'heuristique (RWPlanner.solve).
+     */
+    @Name("fr.uga.pddl4j.examples.asp.HeuristicInit")
+    @Label("Heuristic Initialization")
+    @Category({"Planner", "Preprocessing"})
+    @StackTrace(false)
+    static final class HeuristicInit extends Event {
+        @Label("Heuristic")
+        String heuristic;
+
+        @Label("Initial h")
+        int initialH;
+    }
+
+    /**
+     * Une décision MCTS (un appel à mctsChooseAction).
+     */
+    @Name("fr.uga.pddl4j.examples.asp.MctsDecision")
+    @Label("MCTS Decision")
+    @Category({"Planner", "Search"})
+    @StackTrace(false)
+    static final class MctsDecision extends Event {
+        @Label("Iterations")
+        int iterations;
+
+        @Label("Applicable Actions")
+        int applicableActions;
+
+        @Label("Best Child Visits")
+        int bestVisits;
+
+        @Label("Best Child Wins")
+        double bestWins;
+    }
+
+    /**
+     * Un lot de random walks (un appel à pureRandomWalk).
+     */
+    @Name("fr.uga.pddl4j.examples.asp.RandomWalkBatch")
+    @Label("Random Walk Batch")
+    @Category({"Planner", "Search"})
+    @StackTrace(false)
+    static final class RandomWalkBatch extends Event {
+        @Label("Walks")
+        int walks;
+
+        @Label("Steps")
+        long steps;
+
+        @Label("Applicability Checks")
+        @Description("Precondition tests performed by the walks of the batch")
+        long applicabilityChecks;
+
+        @Label("Best h")
+        int bestH;
+
+        @Label("Reached Goal")
+        boolean reachedGoal;
+    }
+
+    /**
+     * Restart de RWPlanner (plateau trop long ou dead-end).
+     */
+    @Name("fr.uga.pddl4j.examples.asp.Restart")
+    @Label("Restart")
+    @Category({"Planner", "Search"})
+    @StackTrace(false)
+    static final class Restart extends Event {
+        @Label("Reason")
+        String reason;
+
+        @Label("Discarded Plan Length")
+        int discardedPlanLength;
+
+        @Label("Best h Before Restart")
+        int hmin;
+    }
+
+    /**
+     * Point de progression de l'A* d'ASP, échantillonné périodiquement pendant la recherche.
+     */
+    @Name("fr.uga.pddl4j.examples.asp.AStarProgress")
+    @Label("A* Progress")
+    @Category({"Planner", "Search"})
+    @Period("1 s")
+    @StackTrace(false)
+    static final class AStarProgress extends Event {
+        @Label("Elapsed (ms)")
+        long elapsedMs;
+
+        @Label("Created Nodes")
+        long createdNodes;
+
+        @Label("Expanded Nodes")
+        @Description("Number of expanded nodes so far (-1 if unknown)")
+        long expandedNodes;
+
+        @Label("Best h")
+        @Description("Smallest heuristic value popped so far (-1 if unknown)")
+        double bestH;
+    }
+}
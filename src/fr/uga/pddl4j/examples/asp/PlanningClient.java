@@ -0,0 +1,114 @@
+package fr.uga.pddl4j.examples.asp;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * PlanningClient: envoie des requêtes à un {@link PlanningServer} et affiche les réponses.
+ * <p>
+ * Usage: {@code PlanningClient (--port N | --socket PATH) [<planner> [options] <domain> <problem>]}.
+ * Avec une requête en arguments, la sortie est celle du planner (sans préfixe). Sans requête, les
+ * requêtes sont lues sur stdin, une par ligne ({@code <planner> [options] <domain> <problem>}),
+ * numérotées à partir de 1 et envoyées d'un coup; les réponses sont affichées préfixées par leur
+ * numéro, dans l'ordre d'arrivée.
+ * </p>
+ * Les chemins du domaine et du problème (deux derniers arguments) sont rendus absolus: le serveur
+ * peut tourner dans un autre répertoire. Code de sortie: 0 si toutes les requêtes ont réussi.
+ */
+public class PlanningClient {
+
+    public static void main(String[] args) throws IOException {
+        final List<String> argList = new ArrayList<>(Arrays.asList(args));
+        final String port = take(argList, "--port");
+        final String socket = take(argList, "--socket");
+        if (port == null && socket == null) {
+            System.err.println("Usage: PlanningClient (--port N | --socket PATH) "
+                    + "[<planner> [options] <domain> <problem>]");
+            System.exit(2);
+        }
+
+        final List<String> requests = new ArrayList<>();
+        if (!argList.isEmpty()) {
+            requests.add(request(argList));
+        } else {
+            final BufferedReader in = new BufferedReader(
+                    new InputStreamReader(System.in, StandardCharsets.UTF_8));
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (!line.isBlank()) {
+                    requests.add(request(Arrays.asList(line.trim().split("\\s+"))));
+                }
+            }
+        }
+        final boolean single = !argList.isEmpty();
+
+        try (SocketChannel channel = socket != null ? SocketChannel.open(UnixDomainSocketAddress.of(socket))
+                : SocketChannel.open(new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                Integer.parseInt(port)))) {
+            final PlanningServer.ChannelOutput out = new PlanningServer.ChannelOutput(channel);
+            final StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < requests.size(); i++) {
+                sb.append(i + 1).append(' ').append(requests.get(i)).append('\n');
+            }
+            out.write(sb.toString().getBytes(StandardCharsets.UTF_8));
+            channel.shutdownOutput();
+
+            // Réponses jusqu'à la ligne END de chaque requête
+            final BufferedReader in = new BufferedReader(new InputStreamReader(
+                    new PlanningServer.ChannelInput(channel), StandardCharsets.UTF_8));
+            final Set<String> succeeded = new HashSet<>();
+            int done = 0;
+            String line;
+            while (done < requests.size() && (line = in.readLine()) != null) {
+                final int space = line.indexOf(' ');
+                final String id = space < 0 ? line : line.substring(0, space);
+                final String text = space < 0 ? "" : line.substring(space + 1);
+                if (text.equals("END")) {
+                    done++;
+                    continue;
+                }
+                if (text.trim().equals("RESULT: SUCCESS")) {
+                    succeeded.add(id);
+                }
+                System.out.println(single ? text : line);
+            }
+            System.exit(succeeded.size() == requests.size() ? 0 : 1);
+        }
+    }
+
+    /**
+     * Ligne de requête (sans id), domaine et problème en chemins absolus.
+     */
+    private static String request(final List<String> args) {
+        final List<String> tokens = new ArrayList<>(args);
+        for (int i = Math.max(1, tokens.size() - 2); i < tokens.size(); i++) {
+            tokens.set(i, Paths.get(tokens.get(i)).toAbsolutePath().toString());
+        }
+        return String.join(" ", tokens);
+    }
+
+    /**
+     * Retire une option et sa valeur de la liste des arguments.
+     */
+    private static String take(final List<String> args, final String name) {
+        final int i = args.indexOf(name);
+        if (i < 0 || i + 1 >= args.size()) {
+            return null;
+        }
+        final String value = args.get(i + 1);
+        args.subList(i, i + 2).clear();
+        return value;
+    }
+}
@@ -0,0 +1,406 @@
+package fr.uga.pddl4j.examples.asp;
+
+import fr.uga.pddl4j.parser.DefaultParsedProblem;
+import fr.uga.pddl4j.parser.Message;
+import fr.uga.pddl4j.parser.ParsedDomain;
+import fr.uga.pddl4j.parser.ParsedProblem;
+import fr.uga.pddl4j.parser.Parser;
+import fr.uga.pddl4j.plan.Plan;
+import fr.uga.pddl4j.planners.AbstractPlanner;
+import fr.uga.pddl4j.planners.LogLevel;
+import fr.uga.pddl4j.planners.ProblemNotSupportedException;
+import fr.uga.pddl4j.planners.Statistics;
+import fr.uga.pddl4j.problem.Problem;
+import org.openjdk.jol.info.GraphLayout;
+import picocli.CommandLine;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * PlanningServer: serveur de planification longue durée (JVM et JIT chauds, domaines en cache).
+ * <p>
+ * Chaque requête est une ligne {@code <id> <planner> [options] <domain> <problem>}, avec
+ * planner parmi ASP, MCTS (MCTSPlanner) et RW (RWPlanner) et les options de la ligne de commande
+ * du planner. La réponse est la sortie du planner (lignes RESULT, logs, plan), chaque ligne
+ * préfixée par l'id, puis la ligne {@code <id> END}. Les requêtes tournent sur un pool de
+ * workers: les réponses de requêtes différentes peuvent s'entrelacer, ligne par ligne.
+ * </p>
+ * Entrées possibles:
+ * <ul>
+ *     <li>{@code --port N}: TCP sur l'interface locale;</li>
+ *     <li>{@code --socket PATH}: socket Unix;</li>
+ *     <li>par défaut: stdin, réponses sur stdout (le serveur s'arrête en fin d'entrée).</li>
+ * </ul>
+ * Autres options: {@code --workers N} (par défaut le nombre de cœurs) et {@code -l LEVEL}
+ * (niveau de log de tous les planners, par défaut ERROR: le niveau log4j est global, l'option
+ * {@code -l} d'une requête est ignorée).
+ * <p>
+ * Les domaines analysés sont gardés en cache (clé: chemin, date de modification et taille).
+ * PDDL4J renomme les variables du domaine à l'instanciation: l'analyse du problème et
+ * l'instanciation sont faites sous le verrou du domaine, seule la recherche est parallèle.
+ * </p>
+ * System.out est remplacé par un flux qui redirige chaque thread vers la sortie de sa requête;
+ * les threads hors requête écrivent sur stderr.
+ */
+public class PlanningServer {
+
+    /**
+     * Planners disponibles (aussi ceux de {@link Replanner}).
+     */
+    static final Map<String, Supplier<AbstractPlanner>> PLANNERS = Map.of(
+            "ASP", ASP::new,
+            "MCTS", MCTSPlanner::new,
+            "MCTSPlanner", MCTSPlanner::new,
+            "RW", RWPlanner::new,
+            "RWPlanner", RWPlanner::new
+    );
+
+    /**
+     * Sortie de la requête traitée par le thread courant (null hors requête).
+     */
+    private static final ThreadLocal<OutputStream> ROUTE = new ThreadLocal<>();
+
+    /**
+     * Domaines analysés: le parser garde le domaine, il sert à analyser les problèmes.
+     */
+    private static final Map<String, DomainEntry> DOMAINS = new ConcurrentHashMap<>();
+
+    private static final class DomainEntry {
+        final Parser parser;
+        final ParsedDomain domain;
+
+        DomainEntry(final Parser parser, final ParsedDomain domain) {
+            this.parser = parser;
+            this.domain = domain;
+        }
+    }
+
+    private static LogLevel logLevel = LogLevel.ERROR;
+
+    public static void main(String[] args) throws Exception {
+        // Avant toute utilisation de log4j: l'appender console garde le System.out courant
+        final PrintStream stdout = System.out;
+        System.setOut(new PrintStream(new RoutingStream(System.err), true, StandardCharsets.UTF_8));
+
+        final List<String> argList = Arrays.asList(args);
+        final int workers = Integer.parseInt(option(argList, "--workers",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        logLevel = new LogLevel(option(argList, "-l", "ERROR"));
+        final String port = option(argList, "--port", null);
+        final String socket = option(argList, "--socket", null);
+        final ExecutorService pool = Executors.newFixedThreadPool(workers);
+
+        if (port == null && socket == null) {
+            final Connection connection = new Connection(stdout);
+            serve(System.in, connection, pool);
+            pool.shutdown();
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            return;
+        }
+        final ServerSocketChannel server;
+        if (socket != null) {
+            final Path path = Path.of(socket);
+            Files.deleteIfExists(path);
+            server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+            server.bind(UnixDomainSocketAddress.of(path));
+            path.toFile().deleteOnExit();
+        } else {
+            server = ServerSocketChannel.open();
+            server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(port)));
+        }
+        System.err.println("PlanningServer listening on " + server.getLocalAddress()
+                + " (" + workers + " workers)");
+        while (true) {
+            final SocketChannel channel = server.accept();
+            final Thread reader = new Thread(() -> {
+                try (channel) {
+                    serve(new ChannelInput(channel), new Connection(new ChannelOutput(channel)), pool);
+                } catch (IOException e) {
+                    System.err.println("Connection closed: " + e.getMessage());
+                }
+            }, "connection-" + channel.hashCode());
+            reader.setDaemon(true);
+            reader.start();
+        }
+    }
+
+    /**
+     * Lit les requêtes d'une entrée et les soumet au pool; rend la main quand toutes les requêtes
+     * de l'entrée ont répondu.
+     */
+    private static void serve(final InputStream in, final Connection connection, final ExecutorService pool)
+            throws IOException {
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        final List<Future<?>> pending = new ArrayList<>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            final String[] tokens = line.trim().split("\\s+");
+            if (tokens.length == 0 || tokens[0].isEmpty()) {
+                continue;
+            }
+            if (tokens[0].equals("QUIT")) {
+                break;
+            }
+            pending.add(pool.submit(() -> handle(tokens, connection)));
+        }
+        for (Future<?> f : pending) {
+            try {
+                f.get();
+            } catch (Exception e) {
+                // la requête a déjà répondu
+            }
+        }
+    }
+
+    /**
+     * Traite une requête dans un worker, sortie redirigée vers la connexion.
+     */
+    private static void handle(final String[] tokens, final Connection connection) {
+        final String id = tokens[0];
+        final RequestOutput out = new RequestOutput(id, connection);
+        ROUTE.set(out);
+        try {
+            if (tokens.length < 2 || !PLANNERS.containsKey(tokens[1])) {
+                System.out.println("ERROR unknown planner, expected one of " + PLANNERS.keySet());
+                System.out.println("RESULT: FAILURE");
+                return;
+            }
+            solve(PLANNERS.get(tokens[1]).get(), Arrays.copyOfRange(tokens, 2, tokens.length));
+        } catch (Exception | OutOfMemoryError e) {
+            System.out.println("ERROR " + e);
+            System.out.println("RESULT: FAILURE");
+        } finally {
+            System.out.flush();
+            ROUTE.remove();
+            connection.line(id + " END");
+        }
+    }
+
+    /**
+     * Résout un problème avec le domaine en cache, comme {@link AbstractPlanner#solve()}.
+     */
+    private static void solve(final AbstractPlanner planner, final String[] args)
+            throws IOException, ProblemNotSupportedException {
+        new CommandLine(planner).parseArgs(args);
+        planner.setLogLevel(logLevel);
+        final long t0 = System.currentTimeMillis();
+        final boolean[] cached = {true};
+        final File domainFile = planner.getDomainFile();
+        final DomainEntry entry = DOMAINS.computeIfAbsent(key(domainFile), k -> {
+            cached[0] = false;
+            final Parser parser = new Parser();
+            try {
+                final ParsedDomain domain = parser.parseDomain(domainFile);
+                return parser.getErrorManager().isEmpty() ? new DomainEntry(parser, domain) : null;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        if (entry == null) {
+            System.out.println("ERROR cannot parse domain " + domainFile);
+            System.out.println("RESULT: FAILURE");
+            return;
+        }
+        final Problem problem;
+        synchronized (entry) {
+            entry.parser.getErrorManager().clear();
+            final ParsedProblem parsed = entry.parser.parseProblem(planner.getProblemFile());
+            if (!entry.parser.getErrorManager().isEmpty()) {
+                for (Message m : entry.parser.getErrorManager().getMessages()) {
+                    System.out.println("ERROR " + m);
+                }
+                System.out.println("RESULT: FAILURE");
+                return;
+            }
+            final long t1 = System.currentTimeMillis();
+            planner.getStatistics().setTimeToParse(t1 - t0);
+            problem = planner.instantiate(new DefaultParsedProblem(entry.domain, parsed));
+            planner.getStatistics().setTimeToEncode(System.currentTimeMillis() - t1);
+        }
+        // Statistiques d'encodage, comme AbstractPlanner.solve()
+        final Statistics statistics = planner.getStatistics();
+        statistics.setMemoryUsedForProblemRepresentation(GraphLayout.parseInstance(problem).totalSize());
+        statistics.setNumberOfActions(problem.getActions().size());
+        statistics.setNumberOfRelevantFluents(problem.getFluents().size());
+        System.out.println("RESULT: DOMAIN_CACHED=" + (cached[0] ? 1 : 0));
+        final Plan plan = planner.solve(problem);
+        if (plan != null) {
+            System.out.println(problem.toString(plan));
+        }
+    }
+
+    /**
+     * Clé du cache: le domaine est analysé à nouveau s'il a été modifié.
+     */
+    private static String key(final File file) throws IOException {
+        return file.getCanonicalPath() + ":" + file.lastModified() + ":" + file.length();
+    }
+
+    private static String option(final List<String> args, final String name, final String defaultValue) {
+        final int i = args.indexOf(name);
+        return i >= 0 && i + 1 < args.size() ? args.get(i + 1) : defaultValue;
+    }
+
+    /**
+     * Sortie d'une connexion: les lignes des requêtes y sont écrites une à une.
+     */
+    private static final class Connection {
+        private final OutputStream out;
+
+        Connection(final OutputStream out) {
+            this.out = out;
+        }
+
+        synchronized void line(final String line) {
+            try {
+                this.out.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+                this.out.flush();
+            } catch (IOException e) {
+                // client parti: la sortie est perdue, la recherche se termine quand même
+            }
+        }
+    }
+
+    /**
+     * Sortie d'une requête: découpe en lignes et préfixe chaque ligne par l'id de la requête.
+     */
+    private static final class RequestOutput extends OutputStream {
+        private final String id;
+        private final Connection connection;
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+        RequestOutput(final String id, final Connection connection) {
+            this.id = id;
+            this.connection = connection;
+        }
+
+        @Override
+        public void write(final int b) {
+            if (b == '\n') {
+                this.connection.line(this.id + " " + this.buffer.toString(StandardCharsets.UTF_8));
+                this.buffer.reset();
+            } else if (b != '\r') {
+                this.buffer.write(b);
+            }
+        }
+
+        @Override
+        public void flush() {
+            if (this.buffer.size() > 0) {
+                this.write('\n');
+            }
+        }
+    }
+
+    /**
+     * System.out du serveur: écrit dans la sortie de la requête du thread courant.
+     */
+    private static final class RoutingStream extends OutputStream {
+        private final OutputStream fallback;
+
+        RoutingStream(final OutputStream fallback) {
+            this.fallback = fallback;
+        }
+
+        private OutputStream target() {
+            final OutputStream out = ROUTE.get();
+            return out == null ? this.fallback : out;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            this.target().write(b);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            final OutputStream out = this.target();
+            for (int i = off; i < off + len; i++) {
+                out.write(b[i]);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            // la sortie d'une requête est vidée ligne par ligne
+            if (ROUTE.get() == null) {
+                this.fallback.flush();
+            }
+        }
+    }
+
+    /**
+     * Lecture directe sur le canal: Channels.newInputStream verrouille le canal pendant une lecture
+     * bloquante, ce qui bloquerait les réponses écrites par les workers.
+     */
+    static final class ChannelInput extends InputStream {
+        private final SocketChannel channel;
+
+        ChannelInput(final SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final byte[] b = new byte[1];
+            return this.read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            return len == 0 ? 0 : this.channel.read(ByteBuffer.wrap(b, off, len));
+        }
+    }
+
+    /**
+     * Écriture directe sur le canal (voir {@link ChannelInput}).
+     */
+    static final class ChannelOutput extends OutputStream {
+        private final SocketChannel channel;
+
+        ChannelOutput(final SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            this.write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            final ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+            while (buffer.hasRemaining()) {
+                this.channel.write(buffer);
+            }
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package fr.uga.pddl4j.examples.asp;
+
+import fr.uga.pddl4j.problem.operator.Action;
+import fr.uga.pddl4j.problem.operator.Condition;
+import fr.uga.pddl4j.util.BitVector;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * PreconditionMatrix: préconditions de toutes les actions d'un problème, empaquetées pour tester un
+ * état contre toutes les actions d'un coup.
+ * <p>
+ * {@code State.satisfy(Condition)} copie l'état à chaque appel ({@code BitVector.include}); appelé
+ * action par action, il alloue un état par action et par nœud. Ici chaque action est une ligne de
+ * mots de 64 bits: pour chaque mot non nul de sa précondition, l'indice du mot, le masque positif et
+ * le masque négatif, stockés à la suite dans trois tableaux contigus (ligne {@code a} entre
+ * {@code rowStart[a]} et {@code rowStart[a + 1]}). Une action est applicable si, pour chaque mot
+ * {@code w} de sa ligne, {@code (positive & ~state[w]) | (negative & state[w])} est nul. Seuls les
+ * mots non nuls sont gardés: une précondition touche quelques fluents, une ligne dense aurait
+ * autant de mots que l'état.
+ * </p>
+ * Comme {@code State.satisfy}, le test ne porte que sur les fluents positifs et négatifs (les
+ * préconditions instanciées par PDDL4J sont des conjonctions, les disjonctions étant éclatées en
+ * plusieurs actions). La matrice est immuable et peut être partagée entre threads.
+ */
+final class PreconditionMatrix {
+
+    private final int size;
+    private final int[] rowStart;
+    private final int[] word;
+    private final long[] positive;
+    private final long[] negative;
+
+    /**
+     * Empaquette les préconditions des actions, dans l'ordre de la liste.
+     *
+     * @param actions les actions du problème.
+     */
+    PreconditionMatrix(final List<Action> actions) {
+        this.size = actions.size();
+        this.rowStart = new int[this.size + 1];
+        final long[][] pos = new long[this.size][];
+        final long[][] neg = new long[this.size][];
+        int entries = 0;
+        for (int a = 0; a < this.size; a++) {
+            final Condition pre = actions.get(a).getPrecondition();
+            pos[a] = pre.getPositiveFluents().toLongArray();
+            neg[a] = pre.getNegativeFluents().toLongArray();
+            for (int w = 0; w < Math.max(pos[a].length, neg[a].length); w++) {
+                if (wordOf(pos[a], w) != 0 || wordOf(neg[a], w) != 0) {
+                    entries++;
+                }
+            }
+        }
+        this.word = new int[entries];
+        this.positive = new long[entries];
+        this.negative = new long[entries];
+        int k = 0;
+        for (int a = 0; a < this.size; a++) {
+            this.rowStart[a] = k;
+            for (int w = 0; w < Math.max(pos[a].length, neg[a].length); w++) {
+                final long p = wordOf(pos[a], w);
+                final long n = wordOf(neg[a], w);
+                if (p != 0 || n != 0) {
+                    this.word[k] = w;
+                    this.positive[k] = p;
+                    this.negative[k] = n;
+                    k++;
+                }
+            }
+        }
+        this.rowStart[this.size] = k;
+    }
+
+    /**
+     * Nombre d'actions (de lignes).
+     */
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * Bitmap vide, à la taille attendue par {@link #applicable(BitVector, long[])}.
+     */
+    long[] newBitmap() {
+        return new long[(this.size + 63) >>> 6];
+    }
+
+    /**
+     * Teste un état contre toutes les actions.
+     *
+     * @param state  l'état.
+     * @param bitmap la bitmap résultat (de {@link #newBitmap()}): le bit {@code a} est mis si
+     *               l'action {@code a} est applicable, les autres sont effacés.
+     * @return le nombre d'actions applicables.
+     */
+    int applicable(final BitVector state, final long[] bitmap) {
+        final long[] s = state.toLongArray();
+        Arrays.fill(bitmap, 0L);
+        int count = 0;
+        for (int a = 0; a < this.size; a++) {
+            long violated = 0;
+            for (int k = this.rowStart[a]; k < this.rowStart[a + 1]; k++) {
+                final long sw = wordOf(s, this.word[k]);
+                violated |= (this.positive[k] & ~sw) | (this.negative[k] & sw);
+            }
+            if (violated == 0) {
+                bitmap[a >>> 6] |= 1L << a;
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Indice du premier bit mis à partir de {@code from}, ou -1.
+     */
+    static int nextSetBit(final long[] bitmap, final int from) {
+        int w = from >>> 6;
+        if (w >= bitmap.length) {
+            return -1;
+        }
+        long bits = bitmap[w] & (-1L << from);
+        while (bits == 0) {
+            if (++w >= bitmap.length) {
+                return -1;
+            }
+            bits = bitmap[w];
+        }
+        return (w << 6) + Long.numberOfTrailingZeros(bits);
+    }
+
+    /**
+     * Indice du n-ième bit mis (à partir de 0), c'est-à-dire de la n-ième action applicable dans
+     * l'ordre des actions, ou -1.
+     */
+    static int nthSetBit(final long[] bitmap, int n) {
+        for (int w = 0; w < bitmap.length; w++) {
+            long bits = bitmap[w];
+            final int c = Long.bitCount(bits);
+            if (n >= c) {
+                n -= c;
+                continue;
+            }
+            for (; n > 0; n--) {
+                bits &= bits - 1;
+            }
+            return (w << 6) + Long.numberOfTrailingZeros(bits);
+        }
+        return -1;
+    }
+
+    private static long wordOf(final long[] words, final int w) {
+        return w < words.length ? words[w] : 0L;
+    }
+}
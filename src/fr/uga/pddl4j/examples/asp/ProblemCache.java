@@ -0,0 +1,391 @@
+package fr.uga.pddl4j.examples.asp;
+
+import fr.uga.pddl4j.parser.DefaultParsedProblem;
+import fr.uga.pddl4j.parser.RequireKey;
+import fr.uga.pddl4j.problem.DefaultProblem;
+import fr.uga.pddl4j.problem.FinalizedProblem;
+import fr.uga.pddl4j.problem.Fluent;
+import fr.uga.pddl4j.problem.Goal;
+import fr.uga.pddl4j.problem.InitialState;
+import fr.uga.pddl4j.problem.Problem;
+import fr.uga.pddl4j.problem.operator.AbstractFluentDescription;
+import fr.uga.pddl4j.problem.operator.Action;
+import fr.uga.pddl4j.problem.operator.Condition;
+import fr.uga.pddl4j.problem.operator.ConditionalEffect;
+import fr.uga.pddl4j.problem.operator.DurativeAction;
+import fr.uga.pddl4j.problem.operator.Effect;
+import fr.uga.pddl4j.util.BitVector;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * ProblemCache: cache disque des problèmes instanciés, partagé par les méthodes
+ * {@code instantiate(DefaultParsedProblem)} d'ASP, MCTSPlanner et RWPlanner.
+ * <p>
+ * Le premier run écrit les fluents, les actions instanciées, l'état initial et le but dans un
+ * fichier binaire compact (indices de fluents en listes creuses) nommé d'après le SHA-256 du
+ * domaine et du problème. Les runs suivants relisent ce fichier par un mapping mémoire et
+ * sautent toute l'instanciation de PDDL4J: seule la phase d'initialisation (tables de types,
+ * constantes et prédicats, utilisées pour l'affichage du plan) est rejouée.
+ * </p>
+ * Les problèmes numériques, temporels ou hiérarchiques ne sont pas mis en cache.
+ * <p>
+ * Dépend de PDDL4J 4.0.0 ({@code lib/pddl4j-4.0.0.jar}): les champs de {@link FinalizedProblem}
+ * sont privés et renseignés par réflexion (voir {@code CachedProblem}). Au chargement, chaque
+ * champ de FinalizedProblem doit être l'un de ceux connus pour cette version, dans l'état qu'une
+ * instanciation normale lui donne pour un problème mis en cache; sinon (autre version de PDDL4J)
+ * le fichier est ignoré et le problème instancié normalement.
+ * </p>
+ */
+final class ProblemCache {
+
+    private static final Logger LOGGER = LogManager.getLogger(ProblemCache.class.getName());
+
+    /**
+     * Identifie le format des fichiers (à incrémenter si le format change).
+     */
+    private static final int MAGIC = 0x50444743; // "PDGC"
+    private static final int FORMAT_VERSION = 1;
+
+    private static final String EXTENSION = ".gpb";
+
+    private static final Set<RequireKey> UNSUPPORTED = Set.of(
+            RequireKey.FLUENTS, RequireKey.NUMERIC_FLUENTS, RequireKey.OBJECT_FLUENTS, RequireKey.ACTION_COSTS,
+            RequireKey.DURATIVE_ACTIONS, RequireKey.TIMED_INITIAL_LITERALS, RequireKey.DERIVED_PREDICATES,
+            RequireKey.HIERARCHY);
+
+    private ProblemCache() {
+    }
+
+    /**
+     * Instancie un problème en passant par le cache si un dossier de cache est fourni.
+     *
+     * @param parsed      le problème parsé.
+     * @param domainFile  le fichier de domaine (pour la clé du cache).
+     * @param problemFile le fichier de problème (pour la clé du cache).
+     * @param cacheDir    le dossier du cache, ou null pour instancier sans cache.
+     * @return le problème instancié.
+     */
+    static Problem instantiate(final DefaultParsedProblem parsed, final File domainFile,
+                               final File problemFile, final Path cacheDir) {
+        if (cacheDir == null || domainFile == null || problemFile == null) {
+            return ground(parsed);
+        }
+
+        final Path file;
+        try {
+            file = cacheDir.resolve(key(domainFile, problemFile) + EXTENSION);
+        } catch (IOException e) {
+            LOGGER.warn("Problem cache disabled: {}\n", e.getMessage());
+            return ground(parsed);
+        }
+
+        if (Files.exists(file)) {
+            try {
+                final long t0 = System.currentTimeMillis();
+                final Problem pb = load(parsed, file);
+                LOGGER.info("* Problem loaded from cache {} in {} ms\n", file, System.currentTimeMillis() - t0);
+                return pb;
+            } catch (IOException | RuntimeException e) {
+                LOGGER.warn("Ignoring unreadable cache file {}: {}\n", file, e.getMessage());
+            }
+        }
+
+        final Problem pb = ground(parsed);
+        if (isCacheable(pb)) {
+            try {
+                store(pb, file);
+            } catch (IOException e) {
+                LOGGER.warn("Cannot write cache file {}: {}\n", file, e.getMessage());
+            }
+        }
+        return pb;
+    }
+
+    /**
+     * Instanciation standard de PDDL4J.
+     */
+    private static Problem ground(final DefaultParsedProblem parsed) {
+        final Problem pb = new DefaultProblem(parsed);
+        pb.instantiate();
+        return pb;
+    }
+
+    private static boolean isCacheable(final Problem pb) {
+        for (RequireKey key : UNSUPPORTED) {
+            if (pb.getRequirements().contains(key)) {
+                return false;
+            }
+        }
+        return pb.getGoal() != null;
+    }
+
+    /**
+     * Clé du cache: SHA-256 de la version du format, du domaine et du problème.
+     */
+    private static String key(final File domainFile, final File problemFile) throws IOException {
+        try {
+            final MessageDigest md = MessageDigest.getInstance("SHA-256");
+            md.update(ByteBuffer.allocate(4).putInt(FORMAT_VERSION).array());
+            md.update(Files.readAllBytes(domainFile.toPath()));
+            md.update((byte) 0);
+            md.update(Files.readAllBytes(problemFile.toPath()));
+            final StringBuilder hex = new StringBuilder();
+            for (byte b : md.digest()) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+    }
+
+    // ---------- Ecriture ----------
+
+    private static void store(final Problem pb, final Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        final Path tmp = Files.createTempFile(file.getParent(), "pb", ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+
+            final List<Fluent> fluents = pb.getFluents();
+            out.writeInt(fluents.size());
+            for (Fluent f : fluents) {
+                out.writeInt(f.getSymbol());
+                writeInts(out, f.getArguments());
+            }
+
+            final List<Action> actions = pb.getActions();
+            out.writeInt(actions.size());
+            for (Action a : actions) {
+                final byte[] name = a.getName().getBytes(StandardCharsets.UTF_8);
+                out.writeInt(name.length);
+                out.write(name);
+                writeInts(out, a.getParameters());
+                writeInts(out, a.getInstantiations());
+                out.writeDouble(a.getCost() == null ? 1.0 : a.getCost().getValue());
+                writeDescription(out, a.getPrecondition());
+                out.writeInt(a.getConditionalEffects().size());
+                for (ConditionalEffect ce : a.getConditionalEffects()) {
+                    writeDescription(out, ce.getCondition());
+                    writeDescription(out, ce.getEffect());
+                }
+            }
+
+            writeDescription(out, pb.getInitialState());
+            writeDescription(out, pb.getGoal());
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        LOGGER.info("* Problem written to cache {} ({} bytes)\n", file, Files.size(file));
+    }
+
+    private static void writeInts(final DataOutputStream out, final int[] values) throws IOException {
+        out.writeInt(values.length);
+        for (int v : values) {
+            out.writeInt(v);
+        }
+    }
+
+    private static void writeDescription(final DataOutputStream out, final AbstractFluentDescription d)
+            throws IOException {
+        writeBits(out, d.getPositiveFluents());
+        writeBits(out, d.getNegativeFluents());
+    }
+
+    /**
+     * Un BitVector est écrit comme la liste de ses bits à 1 (les préconditions sont creuses).
+     */
+    private static void writeBits(final DataOutputStream out, final BitVector bits) throws IOException {
+        out.writeInt(bits.cardinality());
+        for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+            out.writeInt(i);
+        }
+    }
+
+    // ---------- Lecture (mapping mémoire) ----------
+
+    private static Problem load(final DefaultParsedProblem parsed, final Path file) throws IOException {
+        final MappedByteBuffer buf;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+        }
+        if (buf.getInt() != MAGIC || buf.getInt() != FORMAT_VERSION) {
+            throw new IOException("bad header");
+        }
+
+        final int nbFluents = buf.getInt();
+        final List<Fluent> fluents = new ArrayList<>(nbFluents);
+        for (int i = 0; i < nbFluents; i++) {
+            final int symbol = buf.getInt();
+            fluents.add(new Fluent(symbol, readInts(buf)));
+        }
+
+        final int nbActions = buf.getInt();
+        final List<Action> actions = new ArrayList<>(nbActions);
+        for (int i = 0; i < nbActions; i++) {
+            final byte[] name = new byte[buf.getInt()];
+            buf.get(name);
+            final int[] parameters = readInts(buf);
+            final int[] instantiations = readInts(buf);
+            final Action a = new Action(new String(name, StandardCharsets.UTF_8), parameters.length);
+            for (int p = 0; p < parameters.length; p++) {
+                a.setTypeOfParameter(p, parameters[p]);
+                a.setValueOfParameter(p, instantiations[p]);
+            }
+            a.getCost().setValue(buf.getDouble());
+            a.setPrecondition(new Condition(readBits(buf), readBits(buf)));
+            final int nbEffects = buf.getInt();
+            for (int e = 0; e < nbEffects; e++) {
+                final Condition condition = new Condition(readBits(buf), readBits(buf));
+                final Effect effect = new Effect(readBits(buf), readBits(buf));
+                a.addConditionalEffect(new ConditionalEffect(condition, effect));
+            }
+            actions.add(a);
+        }
+
+        final InitialState init = new InitialState();
+        init.getPositiveFluents().or(readBits(buf));
+        init.getNegativeFluents().or(readBits(buf));
+        final Goal goal = new Goal(new Condition(readBits(buf), readBits(buf)));
+
+        final CachedProblem pb = new CachedProblem(parsed, fluents, actions, init, goal);
+        pb.instantiate();
+        return pb;
+    }
+
+    private static int[] readInts(final ByteBuffer buf) {
+        final int[] values = new int[buf.getInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = buf.getInt();
+        }
+        return values;
+    }
+
+    private static BitVector readBits(final ByteBuffer buf) {
+        final int n = buf.getInt();
+        final BitVector bits = new BitVector();
+        for (int i = 0; i < n; i++) {
+            bits.set(buf.getInt());
+        }
+        return bits;
+    }
+
+    /**
+     * Problème reconstruit depuis le cache: seule l'initialisation de PDDL4J est rejouée, les
+     * phases d'instanciation sont remplacées par l'installation des données lues sur disque.
+     */
+    private static final class CachedProblem extends DefaultProblem {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Champs de FinalizedProblem (PDDL4J 4.0.0) laissés à null: nuls aussi après une
+         * instanciation normale d'un problème mis en cache (numérique, hiérarchique), ou lus
+         * seulement par les étapes de finalization() remplacées ici (intExpFluents,
+         * mapOfFluentIndex).
+         */
+        private static final Set<String> UNUSED_FIELDS = Set.of("numericFluents", "intExpFluents",
+                "mapOfFluentIndex", "intExpNumericFluents", "mapOfNumericFluentIndex", "mapOfTasksIndex",
+                "initialTaskNetwork", "taskResolvers", "methods", "durativeMethods", "tasks");
+
+        private final transient List<Fluent> cachedFluents;
+        private final transient List<Action> cachedActions;
+        private final transient InitialState cachedInit;
+        private final transient Goal cachedGoal;
+
+        CachedProblem(final DefaultParsedProblem parsed, final List<Fluent> fluents, final List<Action> actions,
+                      final InitialState init, final Goal goal) {
+            super(parsed);
+            this.cachedFluents = fluents;
+            this.cachedActions = actions;
+            this.cachedInit = init;
+            this.cachedGoal = goal;
+        }
+
+        @Override
+        protected void preinstantiation() {
+            // déjà fait lors de l'écriture du cache
+        }
+
+        @Override
+        protected void instantiation() {
+            // déjà fait lors de l'écriture du cache
+        }
+
+        @Override
+        protected void postinstantiation() {
+            // déjà fait lors de l'écriture du cache
+        }
+
+        /**
+         * Les accesseurs de FinalizedProblem sont finals et ses champs privés: on les renseigne
+         * par réflexion, puis on vérifie que tous les autres sont inutilisés.
+         */
+        @Override
+        protected void finalization() {
+            set("fluents", this.cachedFluents);
+            set("actions", this.cachedActions);
+            set("initialState", this.cachedInit);
+            set("goal", this.cachedGoal);
+            set("durativeActions", new ArrayList<DurativeAction>());
+            this.checkUnusedFields();
+        }
+
+        private void set(final String name, final Object value) {
+            try {
+                final Field field = FinalizedProblem.class.getDeclaredField(name);
+                field.setAccessible(true);
+                field.set(this, value);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Incompatible PDDL4J version: " + e.getMessage(), e);
+            }
+        }
+
+        /**
+         * Vérifie que les champs de FinalizedProblem non renseignés sont ceux connus pour PDDL4J
+         * 4.0.0 et qu'ils sont nuls.
+         *
+         * @throws IllegalStateException si un champ est inconnu ou renseigné (autre version).
+         */
+        private void checkUnusedFields() {
+            for (Field field : FinalizedProblem.class.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers())) {
+                    continue;
+                }
+                final Object value;
+                try {
+                    field.setAccessible(true);
+                    value = field.get(this);
+                } catch (ReflectiveOperationException e) {
+                    throw new IllegalStateException("Incompatible PDDL4J version: " + e.getMessage(), e);
+                }
+                final boolean unused = UNUSED_FIELDS.contains(field.getName());
+                if (value == null ? !unused : unused) {
+                    throw new IllegalStateException("Incompatible PDDL4J version: unexpected state of field "
+                            + field.getName());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,349 @@
+package fr.uga.pddl4j.examples.asp;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * ProblemGenerator: générateurs de problèmes paramétrés pour les 4 domaines du benchmark.
+ * <p>
+ * Les problèmes utilisent les domaines fournis (blocks/strips-typed, gripper/strips,
+ * logistics/strips-round1, depots/strips-automatic), copiés à côté des problèmes générés:
+ * {@code <dir>/<domain>/domain.pddl} et {@code <dir>/<domain>/n<size>.pddl}. Tous les problèmes
+ * générés ont une solution et au moins un atome du but faux dans l'état initial (le but aléatoire
+ * est retiré tant qu'il est déjà atteint): aucun plan n'est vide, même pour les petites tailles.
+ * Une même graine donne le même problème.
+ * </p>
+ * Taille d'un problème (un seul paramètre, pour les balayages de {@link BenchmarkRunner}):
+ * <ul>
+ *     <li>blocks: n blocs, tours initiales et finales aléatoires (pour n = 1, seule configuration
+ *     possible, le but est de tenir le bloc);</li>
+ *     <li>gripper: n balles à déplacer de rooma à roomb;</li>
+ *     <li>logistics: n villes, n paquets, n camions (au moins un par ville), 1 + n / 4 avions;</li>
+ *     <li>depots: n caisses, 1 dépôt, 1 + n / 3 distributeurs, 1 + n / 4 camions, une palette et
+ *     un treuil par lieu.</li>
+ * </ul>
+ * Usage: {@code ProblemGenerator <blocks|gripper|logistics|depots> <size> [seed] [dir]}.
+ */
+public final class ProblemGenerator {
+
+    /**
+     * Domaines générés.
+     */
+    static final List<String> DOMAINS = List.of("blocks", "gripper", "logistics", "depots");
+
+    private static final Path PDDL_ROOT = Paths.get("resources/benchmarks/pddl");
+
+    private ProblemGenerator() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: ProblemGenerator <blocks|gripper|logistics|depots> <size> [seed] [dir]");
+            System.exit(2);
+        }
+        final long seed = args.length > 2 ? Long.parseLong(args[2]) : 1;
+        final Path dir = args.length > 3 ? Paths.get(args[3]) : Paths.get("results", "generated");
+        System.out.println(generate(args[0], Integer.parseInt(args[1]), seed, dir));
+    }
+
+    /**
+     * Génère un problème et copie son domaine.
+     *
+     * @param domain le domaine (blocks, gripper, logistics ou depots).
+     * @param size   la taille du problème (au moins 1).
+     * @param seed   la graine des choix aléatoires.
+     * @param dir    le répertoire de travail.
+     * @return le fichier du problème; le domaine est {@code domain.pddl} dans le même répertoire.
+     * @throws IOException si l'écriture échoue.
+     * @throws IllegalArgumentException si le domaine est inconnu ou la taille inférieure à 1.
+     */
+    static Path generate(final String domain, final int size, final long seed, final Path dir) throws IOException {
+        if (size < 1) {
+            throw new IllegalArgumentException("size < 1");
+        }
+        final Random rng = new Random(seed);
+        final String pddl;
+        final Path source;
+        switch (domain) {
+            case "blocks":
+                pddl = blocks(size, rng);
+                source = PDDL_ROOT.resolve("blocks/strips-typed/domain.pddl");
+                break;
+            case "gripper":
+                pddl = gripper(size);
+                source = PDDL_ROOT.resolve("gripper/strips/domain.pddl");
+                break;
+            case "logistics":
+                pddl = logistics(size, size, size, 1 + size / 4, rng);
+                source = PDDL_ROOT.resolve("logistics/strips-round1/domain.pddl");
+                break;
+            case "depots":
+                pddl = depots(1 + size / 3, 1 + size / 4, size, rng);
+                source = PDDL_ROOT.resolve("depots/strips-automatic/domain.pddl");
+                break;
+            default:
+                throw new IllegalArgumentException("unknown domain: " + domain);
+        }
+        final Path out = dir.resolve(domain);
+        Files.createDirectories(out);
+        Files.copy(source, out.resolve("domain.pddl"), StandardCopyOption.REPLACE_EXISTING);
+        final Path problem = out.resolve("n" + size + ".pddl");
+        Files.writeString(problem, pddl, StandardCharsets.UTF_8);
+        return problem;
+    }
+
+    /**
+     * Blocks: n blocs en tours aléatoires, but: d'autres tours aléatoires, différentes des tours
+     * initiales.
+     */
+    static String blocks(final int n, final Random rng) {
+        final List<String> blocks = new ArrayList<>();
+        for (int i = 1; i <= n; i++) {
+            blocks.add("b" + i);
+        }
+        final StringBuilder sb = new StringBuilder();
+        sb.append("(define (problem blocks-n").append(n).append(")\n(:domain BLOCKS)\n(:objects");
+        for (String b : blocks) {
+            sb.append(' ').append(b);
+        }
+        sb.append(" - block)\n(:init (handempty)");
+        final List<List<String>> init = towers(blocks, rng);
+        for (List<String> tower : init) {
+            sb.append(towerAtoms(tower));
+            sb.append(" (clear ").append(tower.get(tower.size() - 1)).append(')');
+        }
+        final Set<String> initTowers = new HashSet<>();
+        for (List<String> tower : init) {
+            initTowers.add(towerAtoms(tower));
+        }
+        // But tiré à nouveau tant que ses tours sont toutes des tours initiales; avec un seul bloc,
+        // la seule configuration de tours est l'état initial
+        final StringBuilder goal = new StringBuilder();
+        if (n == 1) {
+            goal.append(" (holding b1)");
+        } else {
+            List<List<String>> towers;
+            do {
+                towers = towers(blocks, rng);
+            } while (initTowers.containsAll(towers.stream().map(ProblemGenerator::towerAtoms)
+                    .collect(Collectors.toList())));
+            for (List<String> tower : towers) {
+                goal.append(towerAtoms(tower));
+            }
+        }
+        sb.append(")\n(:goal (and").append(goal).append("))\n)\n");
+        return sb.toString();
+    }
+
+    /**
+     * Gripper: n balles dans rooma, à porter dans roomb.
+     */
+    static String gripper(final int n) {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("(define (problem gripper-n").append(n).append(")\n(:domain gripper-strips)\n");
+        sb.append("(:objects rooma roomb left right");
+        for (int i = 1; i <= n; i++) {
+            sb.append(" ball").append(i);
+        }
+        sb.append(")\n(:init (room rooma) (room roomb) (gripper left) (gripper right) (free left) (free right)");
+        sb.append(" (at-robby rooma)");
+        for (int i = 1; i <= n; i++) {
+            sb.append(" (ball ball").append(i).append(") (at ball").append(i).append(" rooma)");
+        }
+        sb.append(")\n(:goal (and");
+        for (int i = 1; i <= n; i++) {
+            sb.append(" (at ball").append(i).append(" roomb)");
+        }
+        sb.append("))\n)\n");
+        return sb.toString();
+    }
+
+    /**
+     * Logistics: chaque ville a un lieu ({@code cityI-1}) et un aéroport ({@code cityI-2}); les
+     * camions sont répartis sur les villes (au moins un par ville), les avions sur les aéroports,
+     * les paquets et leurs destinations sur les lieux.
+     */
+    static String logistics(final int cities, final int packages, final int trucks, final int planes,
+                            final Random rng) {
+        final int nbTrucks = Math.max(trucks, cities);
+        final List<String> locations = new ArrayList<>();
+        final StringBuilder objects = new StringBuilder();
+        final StringBuilder init = new StringBuilder();
+        for (int c = 1; c <= cities; c++) {
+            final String city = "city" + c;
+            objects.append(' ').append(city).append(' ').append(city).append("-1 ").append(city).append("-2");
+            init.append(" (city ").append(city).append(')');
+            for (int k = 1; k <= 2; k++) {
+                final String loc = city + "-" + k;
+                locations.add(loc);
+                init.append(" (location ").append(loc).append(") (in-city ").append(loc).append(' ')
+                        .append(city).append(')');
+            }
+            init.append(" (airport ").append(city).append("-2)");
+        }
+        for (int t = 1; t <= nbTrucks; t++) {
+            final int c = (t - 1) % cities + 1;
+            objects.append(" truck").append(t);
+            init.append(" (truck truck").append(t).append(") (at truck").append(t).append(" city").append(c)
+                    .append("-1)");
+        }
+        for (int p = 1; p <= planes; p++) {
+            objects.append(" plane").append(p);
+            init.append(" (airplane plane").append(p).append(") (at plane").append(p).append(" city")
+                    .append(1 + rng.nextInt(cities)).append("-2)");
+        }
+        final int[] origin = new int[packages];
+        final int[] destination = new int[packages];
+        for (int p = 0; p < packages; p++) {
+            origin[p] = rng.nextInt(locations.size());
+            destination[p] = rng.nextInt(locations.size());
+            objects.append(" package").append(p + 1);
+            init.append(" (obj package").append(p + 1).append(") (at package").append(p + 1).append(' ')
+                    .append(locations.get(origin[p])).append(')');
+        }
+        // Destinations tirées à nouveau tant que tous les paquets sont déjà à destination
+        while (Arrays.equals(origin, destination)) {
+            for (int p = 0; p < packages; p++) {
+                destination[p] = rng.nextInt(locations.size());
+            }
+        }
+        final StringBuilder goal = new StringBuilder();
+        for (int p = 0; p < packages; p++) {
+            goal.append(" (at package").append(p + 1).append(' ').append(locations.get(destination[p])).append(')');
+        }
+        return "(define (problem logistics-c" + cities + "-p" + packages + ")\n(:domain logistics-strips)\n"
+                + "(:objects" + objects + ")\n(:init" + init + ")\n(:goal (and" + goal + "))\n)\n";
+    }
+
+    /**
+     * Depots: un dépôt et des distributeurs, une palette et un treuil par lieu, des camions placés
+     * au hasard; les caisses sont empilées au hasard sur les palettes, le but est un autre
+     * empilement aléatoire, différent de l'empilement initial.
+     */
+    static String depots(final int distributors, final int trucks, final int crates, final Random rng) {
+        final List<String> places = new ArrayList<>();
+        places.add("depot0");
+        for (int i = 0; i < distributors; i++) {
+            places.add("distributor" + i);
+        }
+        final List<String> crateList = new ArrayList<>();
+        for (int i = 0; i < crates; i++) {
+            crateList.add("crate" + i);
+        }
+        final StringBuilder sb = new StringBuilder();
+        sb.append("(define (problem depots-n").append(crates).append(") (:domain Depot)\n(:objects\n");
+        sb.append("\tdepot0 - depot\n\t");
+        for (int i = 0; i < distributors; i++) {
+            sb.append("distributor").append(i).append(' ');
+        }
+        sb.append("- distributor\n\t");
+        for (int i = 0; i < trucks; i++) {
+            sb.append("truck").append(i).append(' ');
+        }
+        sb.append("- truck\n\t");
+        for (int i = 0; i < places.size(); i++) {
+            sb.append("pallet").append(i).append(' ');
+        }
+        sb.append("- pallet\n\t");
+        for (String c : crateList) {
+            sb.append(c).append(' ');
+        }
+        sb.append("- crate\n\t");
+        for (int i = 0; i < places.size(); i++) {
+            sb.append("hoist").append(i).append(' ');
+        }
+        sb.append("- hoist)\n(:init\n");
+        for (int i = 0; i < places.size(); i++) {
+            sb.append("\t(at pallet").append(i).append(' ').append(places.get(i)).append(")\n");
+            sb.append("\t(at hoist").append(i).append(' ').append(places.get(i)).append(") (available hoist")
+                    .append(i).append(")\n");
+        }
+        for (int i = 0; i < trucks; i++) {
+            sb.append("\t(at truck").append(i).append(' ').append(places.get(rng.nextInt(places.size())))
+                    .append(")\n");
+        }
+        // Piles initiales: chaque caisse sur une palette ou sur le sommet d'une pile
+        final String[] top = new String[places.size()];
+        for (int i = 0; i < places.size(); i++) {
+            top[i] = "pallet" + i;
+        }
+        final Map<String, String> initOn = new HashMap<>();
+        for (String c : crateList) {
+            final int p = rng.nextInt(places.size());
+            sb.append("\t(at ").append(c).append(' ').append(places.get(p)).append(") (on ").append(c).append(' ')
+                    .append(top[p]).append(")\n");
+            initOn.put(c, top[p]);
+            top[p] = c;
+        }
+        for (String t : top) {
+            sb.append("\t(clear ").append(t).append(")\n");
+        }
+        sb.append(")\n(:goal (and\n");
+        // Empilement tiré à nouveau tant qu'il est celui de l'état initial
+        final Map<String, String> goalOn = new LinkedHashMap<>();
+        do {
+            goalOn.clear();
+            final List<String> shuffled = new ArrayList<>(crateList);
+            Collections.shuffle(shuffled, rng);
+            for (int i = 0; i < places.size(); i++) {
+                top[i] = "pallet" + i;
+            }
+            for (String c : shuffled) {
+                final int p = rng.nextInt(places.size());
+                goalOn.put(c, top[p]);
+                top[p] = c;
+            }
+        } while (goalOn.equals(initOn));
+        for (Map.Entry<String, String> on : goalOn.entrySet()) {
+            sb.append("\t(on ").append(on.getKey()).append(' ').append(on.getValue()).append(")\n");
+        }
+        sb.append(")))\n");
+        return sb.toString();
+    }
+
+    /**
+     * Atomes ontable et on d'une tour (de bas en haut).
+     */
+    private static String towerAtoms(final List<String> tower) {
+        final StringBuilder sb = new StringBuilder();
+        sb.append(" (ontable ").append(tower.get(0)).append(')');
+        for (int i = 1; i < tower.size(); i++) {
+            sb.append(" (on ").append(tower.get(i)).append(' ').append(tower.get(i - 1)).append(')');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Répartit les blocs, dans un ordre aléatoire, en tours de hauteurs aléatoires.
+     */
+    private static List<List<String>> towers(final List<String> blocks, final Random rng) {
+        final List<String> order = new ArrayList<>(blocks);
+        Collections.shuffle(order, rng);
+        final List<List<String>> towers = new ArrayList<>();
+        List<String> tower = new ArrayList<>();
+        for (String b : order) {
+            if (!tower.isEmpty() && rng.nextInt(3) == 0) {
+                towers.add(tower);
+                tower = new ArrayList<>();
+            }
+            tower.add(b);
+        }
+        towers.add(tower);
+        return towers;
+    }
+}
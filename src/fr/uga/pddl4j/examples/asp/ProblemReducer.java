@@ -0,0 +1,249 @@
+package fr.uga.pddl4j.examples.asp;
+
+import fr.uga.pddl4j.parser.RequireKey;
+import fr.uga.pddl4j.problem.Fluent;
+import fr.uga.pddl4j.problem.Problem;
+import fr.uga.pddl4j.problem.operator.AbstractFluentDescription;
+import fr.uga.pddl4j.problem.operator.Action;
+import fr.uga.pddl4j.problem.operator.Condition;
+import fr.uga.pddl4j.problem.operator.ConditionalEffect;
+import fr.uga.pddl4j.problem.operator.Effect;
+import fr.uga.pddl4j.util.BitVector;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * ProblemReducer: élagage des actions et fluents instanciés, entre l'instanciation et la recherche.
+ * <p>
+ * Deux passes sur le problème instancié:
+ * </p>
+ * <ol>
+ *     <li>atteignabilité relâchée en avant depuis l'état initial: un fluent peut devenir vrai
+ *     (resp. faux) s'il l'est dans l'état initial ou si une action atteignable l'ajoute (resp. le
+ *     supprime). Les actions jamais applicables sont retirées, les fluents qui ne changent
+ *     jamais de valeur (statiques) sont retirés des préconditions et du but;</li>
+ *     <li>pertinence en arrière depuis le but: une action est pertinente si elle ajoute un fluent
+ *     requis vrai ou supprime un fluent requis faux par le but ou par une action pertinente.
+ *     Les fluents des conditions d'effets conditionnels sont requis dans les deux sens, car les
+ *     changer modifie les effets déclenchés.</li>
+ * </ol>
+ * Les fluents et actions restants sont ré-indexés de façon dense, directement dans les listes
+ * du problème, pour que les planners et les heuristiques de PDDL4J travaillent sur le problème
+ * réduit. Tout plan du problème réduit est un plan du problème d'origine, et retirer une
+ * action non pertinente d'un plan le laisse valide, donc les plans optimaux sont conservés.
+ */
+final class ProblemReducer {
+
+    private static final Logger LOGGER = LogManager.getLogger(ProblemReducer.class.getName());
+
+    /**
+     * Les préconditions et effets numériques ou temporels ne sont pas pris en compte par les
+     * deux passes: ces problèmes ne sont pas réduits.
+     */
+    private static final Set<RequireKey> UNSUPPORTED = Set.of(
+            RequireKey.FLUENTS, RequireKey.NUMERIC_FLUENTS, RequireKey.OBJECT_FLUENTS, RequireKey.ACTION_COSTS,
+            RequireKey.DURATIVE_ACTIONS, RequireKey.TIMED_INITIAL_LITERALS, RequireKey.DERIVED_PREDICATES,
+            RequireKey.HIERARCHY);
+
+    private ProblemReducer() {
+    }
+
+    /**
+     * Réduit le problème sur place.
+     *
+     * @param pb le problème instancié (ses listes d'actions et de fluents doivent être modifiables).
+     */
+    static void reduce(final Problem pb) {
+        if (pb.getGoal() == null || !isSupported(pb)) {
+            return;
+        }
+        final long t0 = System.currentTimeMillis();
+        final List<Action> actions = pb.getActions();
+        final List<Fluent> fluents = pb.getFluents();
+        final int nbActions = actions.size();
+        final int nbFluents = fluents.size();
+
+        // 1) Atteignabilité relâchée: point fixe sur les fluents pouvant être vrais / faux
+        final BitVector canTrue = new BitVector(pb.getInitialState().getPositiveFluents());
+        final BitVector canFalse = new BitVector(nbFluents);
+        canFalse.set(0, nbFluents);
+        canFalse.andNot(canTrue);
+        final boolean[] reachable = new boolean[nbActions];
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = 0; i < nbActions; i++) {
+                final Action a = actions.get(i);
+                if (!reachable[i]) {
+                    if (!holds(a.getPrecondition(), canTrue, canFalse)) {
+                        continue;
+                    }
+                    reachable[i] = true;
+                    changed = true;
+                }
+                // Un effet conditionnel peut devenir déclenchable après coup: on le revisite
+                for (ConditionalEffect ce : a.getConditionalEffects()) {
+                    if (holds(ce.getCondition(), canTrue, canFalse)) {
+                        changed |= addAll(canTrue, ce.getEffect().getPositiveFluents());
+                        changed |= addAll(canFalse, ce.getEffect().getNegativeFluents());
+                    }
+                }
+            }
+        }
+
+        final Condition goal = pb.getGoal();
+        if (!holds(goal, canTrue, canFalse)) {
+            LOGGER.info("* Goal unreachable in the relaxed problem, pruning skipped\n");
+            return;
+        }
+
+        // 2) Pertinence: point fixe en arrière depuis le but
+        final BitVector relPos = new BitVector(goal.getPositiveFluents());
+        final BitVector relNeg = new BitVector(goal.getNegativeFluents());
+        final boolean[] relevant = new boolean[nbActions];
+        changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = 0; i < nbActions; i++) {
+                if (!reachable[i] || relevant[i]) {
+                    continue;
+                }
+                final Action a = actions.get(i);
+                boolean useful = false;
+                for (ConditionalEffect ce : a.getConditionalEffects()) {
+                    if (holds(ce.getCondition(), canTrue, canFalse)
+                            && (ce.getEffect().getPositiveFluents().intersects(relPos)
+                            || ce.getEffect().getNegativeFluents().intersects(relNeg))) {
+                        useful = true;
+                        break;
+                    }
+                }
+                if (!useful) {
+                    continue;
+                }
+                relevant[i] = true;
+                changed = true;
+                relPos.or(a.getPrecondition().getPositiveFluents());
+                relNeg.or(a.getPrecondition().getNegativeFluents());
+                for (ConditionalEffect ce : a.getConditionalEffects()) {
+                    final Condition c = ce.getCondition();
+                    relPos.or(c.getPositiveFluents());
+                    relPos.or(c.getNegativeFluents());
+                    relNeg.or(c.getPositiveFluents());
+                    relNeg.or(c.getNegativeFluents());
+                }
+            }
+        }
+
+        // 3) Fluents conservés: ceux qui changent de valeur et dont la valeur compte
+        final BitVector kept = new BitVector(canTrue);
+        kept.and(canFalse);
+        final BitVector needed = new BitVector(relPos);
+        needed.or(relNeg);
+        kept.and(needed);
+        final int[] index = new int[nbFluents];
+        final List<Fluent> newFluents = new ArrayList<>(kept.cardinality());
+        for (int f = 0; f < nbFluents; f++) {
+            if (kept.get(f)) {
+                index[f] = newFluents.size();
+                newFluents.add(fluents.get(f));
+            } else {
+                index[f] = -1;
+            }
+        }
+
+        final List<Action> newActions = new ArrayList<>();
+        for (int i = 0; i < nbActions; i++) {
+            if (!relevant[i]) {
+                continue;
+            }
+            final Action a = actions.get(i);
+            // Nouvelles conditions et effets: PDDL4J peut partager ces objets entre actions
+            a.setPrecondition(new Condition(remapped(a.getPrecondition().getPositiveFluents(), index),
+                    remapped(a.getPrecondition().getNegativeFluents(), index)));
+            final List<ConditionalEffect> effects = new ArrayList<>(a.getConditionalEffects().size());
+            for (ConditionalEffect ce : a.getConditionalEffects()) {
+                if (holds(ce.getCondition(), canTrue, canFalse)) {
+                    final Condition c = ce.getCondition();
+                    final Effect e = ce.getEffect();
+                    effects.add(new ConditionalEffect(
+                            new Condition(remapped(c.getPositiveFluents(), index),
+                                    remapped(c.getNegativeFluents(), index)),
+                            new Effect(remapped(e.getPositiveFluents(), index),
+                                    remapped(e.getNegativeFluents(), index))));
+                }
+            }
+            a.setConditionalEffects(effects);
+            newActions.add(a);
+        }
+        remap(pb.getInitialState(), index);
+        remap(goal, index);
+
+        actions.clear();
+        actions.addAll(newActions);
+        fluents.clear();
+        fluents.addAll(newFluents);
+
+        LOGGER.info("* Pruning: {}/{} actions, {}/{} fluents kept in {} ms\n", newActions.size(), nbActions,
+                newFluents.size(), nbFluents, System.currentTimeMillis() - t0);
+    }
+
+    /**
+     * Vrai si le problème n'utilise que des exigences propositionnelles (ni fluents numériques,
+     * ni actions durables, ni prédicats dérivés, ni hiérarchie).
+     */
+    static boolean isSupported(final Problem pb) {
+        for (RequireKey key : UNSUPPORTED) {
+            if (pb.getRequirements().contains(key)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Vrai si la condition peut être satisfaite dans le problème relâché.
+     */
+    private static boolean holds(final Condition c, final BitVector canTrue, final BitVector canFalse) {
+        return canTrue.include(c.getPositiveFluents()) && canFalse.include(c.getNegativeFluents());
+    }
+
+    /**
+     * Ajoute {@code bits} à {@code target} et indique si {@code target} a changé.
+     */
+    private static boolean addAll(final BitVector target, final BitVector bits) {
+        if (target.include(bits)) {
+            return false;
+        }
+        target.or(bits);
+        return true;
+    }
+
+    /**
+     * Ré-indexe sur place les fluents positifs et négatifs (les fluents retirés disparaissent).
+     */
+    private static void remap(final AbstractFluentDescription d, final int[] index) {
+        remap(d.getPositiveFluents(), index);
+        remap(d.getNegativeFluents(), index);
+    }
+
+    private static void remap(final BitVector bits, final int[] index) {
+        final BitVector remapped = remapped(bits, index);
+        bits.clear();
+        bits.or(remapped);
+    }
+
+    private static BitVector remapped(final BitVector bits, final int[] index) {
+        final BitVector remapped = new BitVector();
+        for (int f = bits.nextSetBit(0); f >= 0; f = bits.nextSetBit(f + 1)) {
+            if (f < index.length && index[f] >= 0) {
+                remapped.set(index[f]);
+            }
+        }
+        return remapped;
+    }
+}
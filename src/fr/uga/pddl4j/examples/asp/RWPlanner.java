@@ -9,6 +9,7 @@ import fr.uga.pddl4j.problem.operator.Action;
 import fr.uga.pddl4j.problem.Goal;
 import fr.uga.pddl4j.plan.SequentialPlan;
 import fr.uga.pddl4j.heuristics.state.StateHeuristic;
+import fr.uga.pddl4j.util.BitVector;
 
 
 import org.apache.logging.log4j.LogManager;
@@ -16,9 +17,18 @@ import org.apache.logging.log4j.Logger;
 import picocli.CommandLine;
 
 
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Random;
+import java.util.Set;
 
 
 /**
@@ -34,20 +44,36 @@ import java.util.Random;
         synopsisHeading = "%n",
         descriptionHeading = "%nDescription:%n%n",
         parameterListHeading = "%nParameters:%n",
-        optionListHeading = "%nOptions:%n"
+        optionListHeading = "%nOptions:%n",
+        defaultValueProvider = ParameterProfile.Defaults.class
 )
-public class RWPlanner extends AbstractPlanner {
+public class RWPlanner extends AbstractPlanner implements ParameterProfile.Profiled {
 
     private static final Logger LOGGER = LogManager.getLogger(RWPlanner.class.getName());
 
-    // RNG pour les random walks
+    // RNG pour les random walks (graine: --seed)
     private final Random rng = new Random(0);
     private int walkLength = 20;        // LENGTH_WALK
     private int numWalks = 200;         // NUM_WALK
     private int maxStepsNoImprove = 50; // MAX_STEPS (counter)
     private StateHeuristic.Name heuristicName = StateHeuristic.Name.FAST_FORWARD;
+    private Path cacheDir = null;       // cache des problèmes instanciés (désactivé)
+    private boolean pruning = true;     // élagage atteignabilité / pertinence (ProblemReducer)
+    private boolean landmarks = false;  // heuristique landmark count à la place de -H
+    private Search search = Search.RW;  // stratégie de recherche
+    private boolean quiet = false;      // pas de lignes RESULT (appel depuis un autre planner)
+    private Deadline givenDeadline;     // échéance imposée par l'appelant (sinon -t, en secondes)
+    private Deadline deadline;          // échéance de la recherche en cours
+    private PreconditionMatrix preconditions; // préconditions empaquetées du problème en cours
+    private long[] applicable;          // bitmap des actions applicables (dernier état testé)
+    private Map<String, String> profile = Map.of(); // profil du domaine (--profile)
 
     private StateHeuristic heuristic;
+    private LandmarkHeuristic landmarkHeuristic; // non null si --landmarks
+
+    // Compteurs d'effort (RESULT: NODES_EXPANDED=..., HEURISTIC_CALLS=..., ...)
+    private final SearchMetrics metrics = new SearchMetrics();
+
     @CommandLine.Option(names = {"--walkLength", "-L"}, defaultValue = "20",
             paramLabel = "<int>",
             description = "Longueur maximale d'une random walk (LENGTH_WALK).")
@@ -79,6 +105,78 @@ public class RWPlanner extends AbstractPlanner {
         this.heuristicName = h;
     }
 
+    @CommandLine.Option(names = {"--seed"}, defaultValue = "0",
+            paramLabel = "<long>",
+            description = "Graine du générateur aléatoire (0 par défaut).")
+    public void setSeed(final long seed) {
+        this.rng.setSeed(seed);
+    }
+
+    @CommandLine.Option(names = {"--profile"}, paramLabel = "<file>",
+            description = "Profil de paramètres du domaine (BenchmarkRunner --tune, clés RW.<option>): "
+                    + "remplace les valeurs par défaut, les options données explicitement l'emportent.")
+    public void setProfile(final Path file) {
+        this.profile = ParameterProfile.load(file, "RW", Set.of("walkLength", "numWalks", "maxNoImprove"));
+    }
+
+    @Override
+    public String profileValue(final String option) {
+        return this.profile.get(option);
+    }
+
+    @CommandLine.Option(names = {"--cacheDir"}, paramLabel = "<dir>",
+            description = "Dossier du cache des problèmes instanciés (désactivé par défaut).")
+    public void setCacheDir(final Path dir) {
+        this.cacheDir = dir;
+    }
+
+    @CommandLine.Option(names = {"--noPruning"},
+            description = "Désactive l'élagage des actions inatteignables ou non pertinentes.")
+    public void setNoPruning(final boolean noPruning) {
+        this.pruning = !noPruning;
+    }
+
+    @CommandLine.Option(names = {"--landmarks"},
+            description = "Heuristique landmark count (landmarks acceptés suivis le long des walks) à la place de -H.")
+    public void setLandmarks(final boolean landmarks) {
+        this.landmarks = landmarks;
+    }
+
+    @CommandLine.Option(names = {"--search"}, defaultValue = "RW", paramLabel = "<RW|EHC>",
+            description = "Stratégie: RW (random walks) ou EHC (enforced hill climbing, repli sur une "
+                    + "recherche complète).")
+    public void setSearch(final Search search) {
+        this.search = search;
+    }
+
+    /**
+     * Supprime les lignes RESULT: le planner est lancé par un autre planner (incumbent d'ASP).
+     */
+    void setQuiet(final boolean quiet) {
+        this.quiet = quiet;
+    }
+
+    /**
+     * Impose l'échéance de la recherche à la place du timeout {@code -t} (incumbent d'ASP).
+     */
+    void setDeadline(final Deadline deadline) {
+        this.givenDeadline = deadline;
+    }
+
+    /**
+     * Stratégies de recherche du planner.
+     */
+    public enum Search {
+        /**
+         * Random walks depuis l'état courant, restarts sans amélioration (Arvand).
+         */
+        RW,
+        /**
+         * Enforced hill climbing (FF): largeur d'abord jusqu'à un h strictement meilleur.
+         */
+        EHC
+    }
+
 
     /**
      * Résultat d'une seule random walk (rollout).
@@ -86,32 +184,76 @@ public class RWPlanner extends AbstractPlanner {
     private static class WalkResult {
         final State endState;
         final List<Action> actions;
+        final BitVector accepted; // landmarks acceptés en fin de walk (null sans --landmarks)
         final boolean deadEnd;
         final boolean reachedGoal;
 
-        WalkResult(State endState, List<Action> actions, boolean deadEnd, boolean reachedGoal) {
+        WalkResult(State endState, List<Action> actions, BitVector accepted, boolean deadEnd, boolean reachedGoal) {
             this.endState = endState;
             this.actions = actions;
+            this.accepted = accepted;
             this.deadEnd = deadEnd;
             this.reachedGoal = reachedGoal;
         }
     }
 
 
+    /**
+     * Nœud des recherches EHC et de repli: l'état, le chemin depuis la racine et les landmarks
+     * acceptés (null sans --landmarks).
+     */
+    private static class SearchNode {
+        final State state;
+        final SearchNode parent;
+        final Action action;
+        final BitVector accepted;
+        final int h;
+
+        SearchNode(State state, SearchNode parent, Action action, BitVector accepted, int h) {
+            this.state = state;
+            this.parent = parent;
+            this.action = action;
+            this.accepted = accepted;
+            this.h = h;
+        }
+
+        /**
+         * Actions depuis la racine de la recherche.
+         */
+        List<Action> path() {
+            final List<Action> path = new ArrayList<>();
+            for (SearchNode n = this; n.parent != null; n = n.parent) {
+                path.add(n.action);
+            }
+            Collections.reverse(path);
+            return path;
+        }
+    }
+
+
     /**
      * Retourne la liste des actions dans un état donné.
      * Random walk: on prend ensuite une action au hasard.
      */
     private List<Action> getApplicableActions(final State state, final List<Action> allActions) {
-        final List<Action> applicable = new ArrayList<>();
-        for (Action a : allActions) {
-            if (state.satisfy(a.getPrecondition())) {
-                applicable.add(a);
-            }
+        final List<Action> applicable = new ArrayList<>(testApplicable(state));
+        for (int i = PreconditionMatrix.nextSetBit(this.applicable, 0); i >= 0;
+             i = PreconditionMatrix.nextSetBit(this.applicable, i + 1)) {
+            applicable.add(allActions.get(i));
         }
         return applicable;
     }
 
+    /**
+     * Teste toutes les actions dans un état: remplit la bitmap {@code applicable} (bit i: action i
+     * applicable) et rend le nombre d'actions applicables.
+     */
+    private int testApplicable(final State state) {
+        metrics.nodesExpanded++;
+        metrics.applicableChecks += this.preconditions.size();
+        return this.preconditions.applicable(state, this.applicable);
+    }
+
     @Override
     public boolean isSupported(Problem problem) {
         return true;
@@ -128,37 +270,65 @@ public class RWPlanner extends AbstractPlanner {
      */
     @Override
     public Problem instantiate(DefaultParsedProblem problem) {
-        final Problem pb = new DefaultProblem(problem);
-        pb.instantiate();
+        final PlannerEvents.Instantiate event = new PlannerEvents.Instantiate();
+        event.begin();
+        final Problem pb = ProblemCache.instantiate(problem, this.getDomainFile(), this.getProblemFile(),
+                this.cacheDir);
+        if (this.pruning) {
+            ProblemReducer.reduce(pb);
+        }
+        event.planner = "RW";
+        event.parseTimeMs = this.getStatistics().getTimeToParse();
+        event.actions = pb.getActions().size();
+        event.fluents = pb.getFluents().size();
+        event.commit();
         return pb;
     }
 
-    private int h(final Problem problem, final State s) {
+    private int h(final Problem problem, final State s, final BitVector accepted) {
         final DefaultProblem pb = (DefaultProblem) problem;
+        metrics.heuristicCalls++;
+        if (this.landmarkHeuristic != null) {
+            return this.landmarkHeuristic.value(s, accepted);
+        }
         return this.heuristic.estimate(s, pb.getGoal());
     }
 
+    /**
+     * Landmarks acceptés à la racine d'un chemin (null sans --landmarks).
+     */
+    private BitVector rootAccepted(final State s) {
+        return this.landmarkHeuristic == null ? null : this.landmarkHeuristic.initialAccepted(s);
+    }
+
     /**
      * Une seule rollout de longueur maxLen
      * À chaque pas: A = actions applicables(s), choisir une action au hasard, appliquer.
      * Si A est vide alors dead-end et on s'arrête.
      */
-    private WalkResult randomWalkRollout(final Problem problem,final State start, final List<Action> allActions, final int maxLen) {
+    private WalkResult randomWalkRollout(final Problem problem,final State start, final BitVector startAccepted,
+                                         final List<Action> allActions, final int maxLen) {
 
+        metrics.rollouts++;
         State current = new State(start);
+        BitVector accepted = startAccepted;
         final List<Action> seq = new ArrayList<>();
 
         for (int j = 0; j < maxLen; j++) {
-            final List<Action> applicable = getApplicableActions(current, allActions);
+            // échéance: la marche s'arrête comme sur un dead-end
+            if (this.deadline.expired()) {
+                return new WalkResult(current, seq, accepted, true, false);
+            }
+            final int count = testApplicable(current);
 
             // dead-end: aucune action applicable
-            if (applicable.isEmpty()) {
-                return new WalkResult(current, seq, true,false);
+            if (count == 0) {
+                return new WalkResult(current, seq, accepted, true,false);
             }
 
-            // choix d'une action applicable
-            final int idx = rng.nextInt(applicable.size());
-            final Action chosen = applicable.get(idx);
+            // choix d'une action applicable (la idx-ième dans l'ordre des actions)
+            final int idx = rng.nextInt(count);
+            final Action chosen = allActions.get(PreconditionMatrix.nthSetBit(this.applicable, idx));
             seq.add(chosen);
 
             final State next = new State(current);
@@ -166,15 +336,20 @@ public class RWPlanner extends AbstractPlanner {
             next.apply(chosen.getUnconditionalEffect());
             // appliquer les effets conditionnels (ADL)
             next.apply(chosen.getConditionalEffects());
+            metrics.nodesGenerated++;
+            metrics.rolloutSteps++;
 
             current = next;
+            if (this.landmarkHeuristic != null) {
+                accepted = this.landmarkHeuristic.accept(accepted, current);
+            }
 
             if(isGoal(problem,current)){
-                return new WalkResult(current,seq,false,true);
+                return new WalkResult(current,seq,accepted,false,true);
             }
 
         }
-        return new WalkResult(current, seq, false, false);
+        return new WalkResult(current, seq, accepted, false, false);
     }
 
 
@@ -185,20 +360,27 @@ public class RWPlanner extends AbstractPlanner {
      */
     private WalkResult pureRandomWalk(final Problem problem,
                                       final State start,
+                                      final BitVector startAccepted,
                                       final List<Action> allActions) {
 
+        final PlannerEvents.RandomWalkBatch event = new PlannerEvents.RandomWalkBatch();
+        event.begin();
+        final long stepsBefore = metrics.rolloutSteps;
+        final long checksBefore = metrics.applicableChecks;
+
         WalkResult best = null;
         int bestH = Integer.MAX_VALUE;
 
-        for (int i = 0; i < this.numWalks; i++) {
-            WalkResult wr = randomWalkRollout(problem, start, allActions, this.walkLength);
+        for (int i = 0; i < this.numWalks && !this.deadline.hasExpired(); i++) {
+            WalkResult wr = randomWalkRollout(problem, start, startAccepted, allActions, this.walkLength);
 
             if (wr.reachedGoal) {
+                commitBatchEvent(event, i + 1, stepsBefore, checksBefore, 0, true);
                 return wr;
             }
 
             if (!wr.deadEnd) {
-                int hv = h(problem,wr.endState); // endpoint evaluation uniquement
+                int hv = h(problem,wr.endState,wr.accepted); // endpoint evaluation uniquement
                 if (hv < bestH) {
                     bestH = hv;
                     best = wr;
@@ -206,12 +388,226 @@ public class RWPlanner extends AbstractPlanner {
             }
         }
 
+        commitBatchEvent(event, this.numWalks, stepsBefore, checksBefore, bestH, false);
+
         if (best == null) {
-            return new WalkResult(new State(start), new ArrayList<>(), true, false);
+            return new WalkResult(new State(start), new ArrayList<>(), startAccepted, true, false);
         }
         return best;
     }
 
+    /**
+     * Evenement JFR d'un lot de random walks (ignoré si aucun enregistrement n'est actif).
+     */
+    private void commitBatchEvent(final PlannerEvents.RandomWalkBatch event, final int walks,
+                                  final long stepsBefore, final long checksBefore,
+                                  final int bestH, final boolean reachedGoal) {
+        if (!event.shouldCommit()) {
+            return;
+        }
+        event.walks = walks;
+        event.steps = metrics.rolloutSteps - stepsBefore;
+        event.applicabilityChecks = metrics.applicableChecks - checksBefore;
+        event.bestH = bestH;
+        event.reachedGoal = reachedGoal;
+        event.commit();
+    }
+
+    /**
+     * Evenement JFR d'un restart.
+     */
+    private void commitRestartEvent(final String reason, final int planLength, final int hmin) {
+        final PlannerEvents.Restart event = new PlannerEvents.Restart();
+        if (event.shouldCommit()) {
+            event.reason = reason;
+            event.discardedPlanLength = planLength;
+            event.hmin = hmin;
+            event.commit();
+        }
+    }
+
+    /**
+     * Ajoute des actions à la fin du plan.
+     *
+     * @return la nouvelle longueur du plan.
+     */
+    private static int append(final SequentialPlan plan, int t, final List<Action> actions) {
+        for (Action a : actions) {
+            plan.add(t, a);
+            t++;
+        }
+        return t;
+    }
+
+    private Plan success(final SequentialPlan plan, final int length, final long startTime) {
+        final long runtime = System.currentTimeMillis() - startTime;
+        this.getStatistics().setTimeToSearch(runtime);
+        if (this.quiet) {
+            return plan;
+        }
+        System.out.println("RESULT: SUCCESS");
+        System.out.println("RESULT: PLAN_LENGTH=" + length);
+        System.out.println("RESULT: RUNTIME_MS=" + runtime);
+        this.metrics.print(this.getStatistics());
+        return plan;
+    }
+
+    private Plan failure(final long startTime) {
+        this.metrics.timedOut = this.deadline.hasExpired();
+        if (this.quiet) {
+            return null;
+        }
+        System.out.println("RESULT: FAILURE");
+        System.out.println("RESULT: PLAN_LENGTH=0");
+        System.out.println("RESULT: RUNTIME_MS=" + (System.currentTimeMillis() - startTime));
+        this.metrics.print(this.getStatistics());
+        return null;
+    }
+
+    /**
+     * Successeur d'un nœud par une action (landmarks acceptés mis à jour, h évalué).
+     */
+    private SearchNode successor(final Problem problem, final SearchNode node, final Action a) {
+        final State next = new State(node.state);
+        next.apply(a.getUnconditionalEffect());
+        next.apply(a.getConditionalEffects());
+        metrics.nodesGenerated++;
+        final BitVector acc = this.landmarkHeuristic == null ? null : this.landmarkHeuristic.accept(node.accepted, next);
+        return new SearchNode(next, node, a, acc, h(problem, next, acc));
+    }
+
+    /**
+     * Enforced hill climbing: depuis l'état courant, recherche en largeur d'abord d'un état de h
+     * strictement meilleur, d'abord avec les seules actions utiles du plan relâché, puis avec
+     * toutes les actions. Les états vus pendant une recherche en largeur sont retenus par leur
+     * empreinte dans un {@link LongHashSet}. Si aucun état meilleur n'est atteignable (dead-end
+     * ou temps écoulé), repli sur une recherche meilleur d'abord complète depuis l'état initial.
+     */
+    private Plan solveEhc(final Problem problem, final PlannerEvents.HeuristicInit initEvent,
+                          final long startTime) {
+        final RelaxedPlan relaxed = new RelaxedPlan(problem);
+        final LongHashSet visited = new LongHashSet(1024);
+        final State init = new State(problem.getInitialState());
+        final BitVector initAccepted = rootAccepted(init);
+        SearchNode current = new SearchNode(init, null, null, initAccepted, h(problem, init, initAccepted));
+        initEvent.initialH = current.h;
+        initEvent.commit();
+        final SequentialPlan plan = new SequentialPlan();
+        int t = 0;
+        while (!isGoal(problem, current.state)) {
+            if (this.deadline.expiredNow()) {
+                LOGGER.info("Timeout reached -> returning null\n");
+                return failure(startTime);
+            }
+            SearchNode better = improve(problem, current, relaxed, true, visited);
+            if (better == null && !this.deadline.hasExpired()) {
+                better = improve(problem, current, relaxed, false, visited);
+            }
+            if (better == null && this.deadline.hasExpired()) {
+                LOGGER.info("Timeout reached -> returning null\n");
+                return failure(startTime);
+            }
+            if (better == null) {
+                LOGGER.info("EHC stuck at h={} -> complete search\n", current.h);
+                metrics.restarts++;
+                commitRestartEvent("ehc-failed", t, current.h);
+                final SearchNode goal = completeSearch(problem);
+                if (goal == null) {
+                    return failure(startTime);
+                }
+                final SequentialPlan full = new SequentialPlan();
+                return success(full, append(full, 0, goal.path()), startTime);
+            }
+            t = append(plan, t, better.path());
+            current = new SearchNode(better.state, null, null, better.accepted, better.h);
+        }
+        LOGGER.info("Goal reached! plan length={}\n", t);
+        return success(plan, t, startTime);
+    }
+
+    /**
+     * Recherche en largeur d'abord depuis {@code root} d'un état but ou de h &lt; h(root).
+     *
+     * @return le nœud trouvé (chemin depuis root), ou null si aucun.
+     */
+    private SearchNode improve(final Problem problem, final SearchNode root, final RelaxedPlan relaxed,
+                               final boolean helpfulOnly, final LongHashSet visited) {
+        final List<Action> actions = problem.getActions();
+        final BitVector helpful = new BitVector();
+        final Deque<SearchNode> queue = new ArrayDeque<>();
+        visited.clear();
+        visited.add(LongHashSet.fingerprint(root.state));
+        queue.add(root);
+        while (!queue.isEmpty()) {
+            if (this.deadline.expired()) {
+                return null;
+            }
+            final SearchNode node = queue.poll();
+            if (helpfulOnly) {
+                relaxed.compute(node.state, helpful);
+            }
+            testApplicable(node.state);
+            for (int i = PreconditionMatrix.nextSetBit(this.applicable, 0); i >= 0 && !this.deadline.expired();
+                 i = PreconditionMatrix.nextSetBit(this.applicable, i + 1)) {
+                final Action a = actions.get(i);
+                if (helpfulOnly && !helpful.get(i)) {
+                    continue;
+                }
+                final State next = new State(node.state);
+                next.apply(a.getUnconditionalEffect());
+                next.apply(a.getConditionalEffects());
+                if (!visited.add(LongHashSet.fingerprint(next))) {
+                    continue;
+                }
+                metrics.nodesGenerated++;
+                final BitVector acc = this.landmarkHeuristic == null ? null
+                        : this.landmarkHeuristic.accept(node.accepted, next);
+                final SearchNode child = new SearchNode(next, node, a, acc, h(problem, next, acc));
+                if (child.h < root.h || isGoal(problem, next)) {
+                    return child;
+                }
+                if (child.h < Integer.MAX_VALUE) {
+                    queue.add(child);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Recherche meilleur d'abord (greedy) complète depuis l'état initial, repli de l'EHC.
+     */
+    private SearchNode completeSearch(final Problem problem) {
+        final List<Action> actions = problem.getActions();
+        final State init = new State(problem.getInitialState());
+        final BitVector initAccepted = rootAccepted(init);
+        final PriorityQueue<SearchNode> open = new PriorityQueue<>(Comparator.comparingInt(n -> n.h));
+        final Set<State> closed = new HashSet<>();
+        open.add(new SearchNode(init, null, null, initAccepted, h(problem, init, initAccepted)));
+        while (!open.isEmpty()) {
+            if (this.deadline.expired()) {
+                return null;
+            }
+            final SearchNode node = open.poll();
+            if (!closed.add(node.state)) {
+                continue;
+            }
+            if (isGoal(problem, node.state)) {
+                return node;
+            }
+            for (Action a : getApplicableActions(node.state, actions)) {
+                if (this.deadline.expired()) {
+                    return null;
+                }
+                final SearchNode child = successor(problem, node, a);
+                if (child.h < Integer.MAX_VALUE && !closed.contains(child.state)) {
+                    open.add(child);
+                }
+            }
+        }
+        return null;
+    }
+
     /**
      * Solve method: Solution
      */
@@ -220,88 +616,107 @@ public class RWPlanner extends AbstractPlanner {
         final DefaultProblem pb = (DefaultProblem) problem;
         final List<Action> actions = pb.getActions();
 
+        this.metrics.start();
+
         // Init heuristic
-        this.heuristic = StateHeuristic.getInstance(this.heuristicName, pb);
+        final PlannerEvents.HeuristicInit initEvent = new PlannerEvents.HeuristicInit();
+        initEvent.begin();
+        if (this.landmarks) {
+            this.landmarkHeuristic = new LandmarkHeuristic(pb);
+            this.heuristic = this.landmarkHeuristic;
+            initEvent.heuristic = "LANDMARK_COUNT";
+        } else {
+            this.landmarkHeuristic = null;
+            this.heuristic = StateHeuristic.getInstance(this.heuristicName, pb);
+            initEvent.heuristic = this.heuristicName.name();
+        }
 
         final long startTime = System.currentTimeMillis();
-        final long timeoutMs = this.getTimeout();
+        // -t est en secondes (AbstractPlanner)
+        this.deadline = this.givenDeadline != null ? this.givenDeadline : Deadline.ofSeconds(this.getTimeout());
+        this.preconditions = new PreconditionMatrix(actions);
+        this.applicable = this.preconditions.newBitmap();
+
+        if (this.search == Search.EHC) {
+            LOGGER.info("\n========== RWPlanner (EHC) ==========\n");
+            return solveEhc(pb, initEvent, startTime);
+        }
 
         // Algorithm 1 variables
         State s = new State(pb.getInitialState());
+        BitVector sAccepted = rootAccepted(s);
         SequentialPlan plan = new SequentialPlan();
         int t = 0;
 
-        int hmin = h(pb, s);
+        int hmin = h(pb, s, sAccepted);
         int counter = 0;
+        initEvent.initialH = hmin;
+        initEvent.commit();
 
         LOGGER.info("\n========== RWPlanner ==========\n");
         LOGGER.info("walkLength={} numWalks={} maxStepsNoImprove={} heuristic={}\n",
-                this.walkLength, this.numWalks, this.maxStepsNoImprove, this.heuristicName);
+                this.walkLength, this.numWalks, this.maxStepsNoImprove, initEvent.heuristic);
 
-        LOGGER.info("\nTimeout(ms)={} \n actions={} \n walkLength={} \n numWalks={} \n maxStepsNoImprove={}\n",
-                timeoutMs, actions.size(), this.walkLength, this.numWalks, this.maxStepsNoImprove);
+        LOGGER.info("\nTimeout(s)={} \n actions={} \n walkLength={} \n numWalks={} \n maxStepsNoImprove={}\n",
+                this.getTimeout(), actions.size(), this.walkLength, this.numWalks, this.maxStepsNoImprove);
 
         while (!isGoal(pb, s)) {
 
             // timeout check
-            if (timeoutMs > 0 && System.currentTimeMillis() - startTime > timeoutMs) {
-                LOGGER.info("Timeout reached -> returning null");
-
-                System.out.println("RESULT: FAILURE");
-                System.out.println("RESULT: PLAN_LENGTH=0");
-                System.out.println("RESULT: RUNTIME_MS=" + (System.currentTimeMillis() - startTime));
-                return null;
+            if (this.deadline.expiredNow()) {
+                LOGGER.info("Timeout reached -> returning null\n");
+                return failure(startTime);
             }
 
             // restart condition
             if (counter > this.maxStepsNoImprove) {
-                LOGGER.info("Restart (counter>{})", this.maxStepsNoImprove);
+                LOGGER.info("Restart (counter>{})\n", this.maxStepsNoImprove);
+                metrics.restarts++;
+                commitRestartEvent("no-improvement", t, hmin);
                 s = new State(pb.getInitialState());
+                sAccepted = rootAccepted(s);
                 plan = new SequentialPlan();
                 t = 0;
-                hmin = h(pb, s);
+                hmin = h(pb, s, sAccepted);
                 counter = 0;
             }
 
             // Algorithm 2
-            WalkResult wr = pureRandomWalk(pb, s, actions);
+            WalkResult wr = pureRandomWalk(pb, s, sAccepted, actions);
+            if (this.deadline.hasExpired()) {
+                LOGGER.info("Timeout reached -> returning null\n");
+                return failure(startTime);
+            }
 
             // dead-end / empty -> restart
             if (wr.deadEnd || wr.actions.isEmpty()) {
-                LOGGER.info("Dead-end or empty walk -> restart");
+                LOGGER.info("Dead-end or empty walk -> restart\n");
+                metrics.restarts++;
+                commitRestartEvent("dead-end", t, hmin);
                 s = new State(pb.getInitialState());
+                sAccepted = rootAccepted(s);
                 plan = new SequentialPlan();
                 t = 0;
-                hmin = h(pb, s);
+                hmin = h(pb, s, sAccepted);
                 counter = 0;
                 continue;
             }
 
             // Ajouter actions dans le plan
-            for (Action a : wr.actions) {
-                plan.add(t, a);
-                t++;
-            }
+            t = append(plan, t, wr.actions);
 
             // Déplacer à l'état suivant
             s = wr.endState;
+            sAccepted = wr.accepted;
 
             // Si on arrive dans le goal
             if (wr.reachedGoal || isGoal(pb, s)) {
-                long runtime = System.currentTimeMillis() - startTime;
-
                 LOGGER.info("Goal reached! plan length={}\n", t);
-                this.getStatistics().setTimeToSearch(runtime);
-
-                System.out.println("RESULT: SUCCESS");
-                System.out.println("RESULT: PLAN_LENGTH=" + t);
-                System.out.println("RESULT: RUNTIME_MS=" + runtime);
-
-                return plan;
+                return success(plan, t, startTime);
             }
 
             // Mise à jour counter
-            int hs = h(pb, s);
+            int hs = h(pb, s, sAccepted);
             if (hs < hmin) {
                 hmin = hs;
                 counter = 0;
@@ -311,17 +726,8 @@ public class RWPlanner extends AbstractPlanner {
         }
 
         // Goal satisfied at start
-        long runtime = System.currentTimeMillis() - startTime;
-        LOGGER.info("Goal already satisfied at start");
-
-        this.getStatistics().setTimeToSearch(runtime);
-
-
-        System.out.println("RESULT: SUCCESS");
-        System.out.println("RESULT: PLAN_LENGTH=" + t);
-        System.out.println("RESULT: RUNTIME_MS=" + runtime);
-
-        return plan;
+        LOGGER.info("Goal already satisfied at start\n");
+        return success(plan, t, startTime);
     }
 
     public static void main(String[] args) {
@@ -0,0 +1,215 @@
+package fr.uga.pddl4j.examples.asp;
+
+import fr.uga.pddl4j.problem.Problem;
+import fr.uga.pddl4j.problem.operator.Action;
+import fr.uga.pddl4j.problem.operator.ConditionalEffect;
+import fr.uga.pddl4j.util.BitVector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * RelaxedPlan: plan relâché (sans effets négatifs) à la FF et actions utiles (helpful actions).
+ * <p>
+ * Le coût h_add de chaque fluent est calculé depuis l'état par propagation à la Dijkstra sur
+ * les opérateurs relâchés (un par effet conditionnel qui ajoute des fluents, de préconditions
+ * les fluents positifs de la précondition de l'action et de la condition de l'effet). Le plan
+ * relâché est extrait en remontant du but par les meilleurs supports. Ses actions dont les
+ * préconditions relâchées sont vraies dans l'état sont les actions utiles: PDDL4J ne les expose
+ * pas, elles servent de « preferred operators » aux recherches d'ASP.
+ * </p>
+ * Une instance réutilise ses tableaux de travail: elle n'est pas thread-safe.
+ */
+final class RelaxedPlan {
+
+    private final int[][] pre;
+    private final int[][] adds;
+    private final int[] owner;
+    private final int[][] consumers;
+    private final int[] alwaysApplicable;
+    private final int[] goal;
+
+    private final int[] cost;
+    private final int[] supporter;
+    private final int[] missing;
+    private final int[] opCost;
+    private final boolean[] inPlan;
+    private final int[] stack;
+
+    /**
+     * Prépare les opérateurs relâchés d'un problème.
+     *
+     * @param problem le problème instancié.
+     */
+    RelaxedPlan(final Problem problem) {
+        final int nbFluents = problem.getFluents().size();
+        final List<int[]> preList = new ArrayList<>();
+        final List<int[]> addList = new ArrayList<>();
+        final List<Integer> ownerList = new ArrayList<>();
+        final List<Action> actions = problem.getActions();
+        for (int a = 0; a < actions.size(); a++) {
+            final Action action = actions.get(a);
+            for (ConditionalEffect ce : action.getConditionalEffects()) {
+                final BitVector add = ce.getEffect().getPositiveFluents();
+                if (add.isEmpty()) {
+                    continue;
+                }
+                final BitVector p = new BitVector(action.getPrecondition().getPositiveFluents());
+                p.or(ce.getCondition().getPositiveFluents());
+                preList.add(p.stream().toArray());
+                addList.add(add.stream().toArray());
+                ownerList.add(a);
+            }
+        }
+        this.pre = preList.toArray(new int[0][]);
+        this.adds = addList.toArray(new int[0][]);
+        this.owner = ownerList.stream().mapToInt(Integer::intValue).toArray();
+        final List<List<Integer>> cons = new ArrayList<>(nbFluents);
+        for (int f = 0; f < nbFluents; f++) {
+            cons.add(new ArrayList<>());
+        }
+        final List<Integer> always = new ArrayList<>();
+        for (int o = 0; o < this.pre.length; o++) {
+            for (int f : this.pre[o]) {
+                cons.get(f).add(o);
+            }
+            if (this.pre[o].length == 0) {
+                always.add(o);
+            }
+        }
+        this.consumers = new int[nbFluents][];
+        for (int f = 0; f < nbFluents; f++) {
+            this.consumers[f] = cons.get(f).stream().mapToInt(Integer::intValue).toArray();
+        }
+        this.alwaysApplicable = always.stream().mapToInt(Integer::intValue).toArray();
+        this.goal = problem.getGoal().getPositiveFluents().stream().toArray();
+        this.cost = new int[nbFluents];
+        this.supporter = new int[nbFluents];
+        this.missing = new int[this.pre.length];
+        this.opCost = new int[this.pre.length];
+        this.inPlan = new boolean[this.pre.length];
+        this.stack = new int[nbFluents];
+    }
+
+    /**
+     * Calcule le plan relâché d'un état.
+     *
+     * @param state   l'état.
+     * @param helpful reçoit les indices des actions utiles (vidé au préalable), ou null.
+     * @return le nombre d'opérateurs du plan relâché, ou {@link Integer#MAX_VALUE} si le but
+     *     n'est pas atteignable en relâché.
+     */
+    int compute(final BitVector state, final BitVector helpful) {
+        return this.compute(state, helpful, this.goal);
+    }
+
+    /**
+     * Calcule le plan relâché d'un état vers un autre but que celui du problème.
+     *
+     * @param state   l'état.
+     * @param helpful reçoit les indices des actions utiles (vidé au préalable), ou null.
+     * @param goal    les fluents du but (seuls les fluents positifs comptent en relâché).
+     * @return le nombre d'opérateurs du plan relâché, ou {@link Integer#MAX_VALUE} si le but
+     *     n'est pas atteignable en relâché.
+     */
+    int compute(final BitVector state, final BitVector helpful, final int[] goal) {
+        this.explore(state);
+        return this.extract(helpful, goal);
+    }
+
+    /**
+     * Extrait le plan relâché vers un but depuis l'état du dernier {@code compute}, sans refaire
+     * l'exploration: un même état peut ainsi être évalué vers plusieurs buts.
+     *
+     * @param helpful reçoit les indices des actions utiles (vidé au préalable), ou null.
+     * @param goal    les fluents du but (seuls les fluents positifs comptent en relâché).
+     * @return le nombre d'opérateurs du plan relâché, ou {@link Integer#MAX_VALUE} si le but
+     *     n'est pas atteignable en relâché.
+     */
+    int extract(final BitVector helpful, final int[] goal) {
+        if (helpful != null) {
+            helpful.clear();
+        }
+        for (int g : goal) {
+            if (this.cost[g] == Integer.MAX_VALUE) {
+                return Integer.MAX_VALUE;
+            }
+        }
+
+        // Extraction en remontant les meilleurs supports
+        Arrays.fill(this.inPlan, false);
+        int top = 0;
+        for (int g : goal) {
+            if (this.cost[g] > 0) {
+                this.stack[top++] = g;
+            }
+        }
+        int length = 0;
+        while (top > 0) {
+            final int f = this.stack[--top];
+            final int o = this.supporter[f];
+            if (this.inPlan[o]) {
+                continue;
+            }
+            this.inPlan[o] = true;
+            length++;
+            if (this.opCost[o] == 0) {
+                if (helpful != null) {
+                    helpful.set(this.owner[o]);
+                }
+            } else {
+                for (int p : this.pre[o]) {
+                    if (this.cost[p] > 0 && !this.inPlan[this.supporter[p]]) {
+                        this.stack[top++] = p;
+                    }
+                }
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Coûts h_add des fluents depuis l'état (Dijkstra à coûts unitaires sur les opérateurs).
+     */
+    private void explore(final BitVector state) {
+        Arrays.fill(this.cost, Integer.MAX_VALUE);
+        final PriorityQueue<long[]> queue = new PriorityQueue<>((x, y) -> Long.compare(x[0], y[0]));
+        for (int o = 0; o < this.pre.length; o++) {
+            this.missing[o] = this.pre[o].length;
+            this.opCost[o] = 0;
+        }
+        for (int f = state.nextSetBit(0); f >= 0; f = state.nextSetBit(f + 1)) {
+            this.cost[f] = 0;
+            queue.add(new long[] {0, f});
+        }
+        for (int o : this.alwaysApplicable) {
+            this.fire(o, queue);
+        }
+        while (!queue.isEmpty()) {
+            final long[] top = queue.poll();
+            final int f = (int) top[1];
+            if (top[0] > this.cost[f]) {
+                continue; // entrée périmée
+            }
+            for (int o : this.consumers[f]) {
+                this.opCost[o] += this.cost[f];
+                if (--this.missing[o] == 0) {
+                    this.fire(o, queue);
+                }
+            }
+        }
+    }
+
+    private void fire(final int o, final PriorityQueue<long[]> queue) {
+        final int c = this.opCost[o] + 1;
+        for (int f : this.adds[o]) {
+            if (c < this.cost[f]) {
+                this.cost[f] = c;
+                this.supporter[f] = o;
+                queue.add(new long[] {c, f});
+            }
+        }
+    }
+}
@@ -0,0 +1,676 @@
+package fr.uga.pddl4j.examples.asp;
+
+import fr.uga.pddl4j.parser.DefaultParsedProblem;
+import fr.uga.pddl4j.parser.Message;
+import fr.uga.pddl4j.plan.Plan;
+import fr.uga.pddl4j.plan.SequentialPlan;
+import fr.uga.pddl4j.planners.AbstractPlanner;
+import fr.uga.pddl4j.planners.ProblemNotSupportedException;
+import fr.uga.pddl4j.problem.Problem;
+import fr.uga.pddl4j.problem.State;
+import fr.uga.pddl4j.problem.operator.Action;
+import fr.uga.pddl4j.problem.operator.Condition;
+import fr.uga.pddl4j.problem.operator.ConditionalEffect;
+import fr.uga.pddl4j.util.BitVector;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import picocli.CommandLine;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Replanner: replanification à partir du plan précédent quand l'état initial ou le but du problème
+ * change de quelques faits.
+ * <p>
+ * Les pas du plan précédent sont retrouvés par nom d'action dans le nouveau problème, puis:
+ * </p>
+ * <ol>
+ *     <li>le plus long préfixe applicable depuis le nouvel état initial est gardé, coupé au premier
+ *     état but; si le plan entier s'applique et atteint le but, il est rendu tel quel
+ *     ({@link Outcome#REUSED});</li>
+ *     <li>sinon le plan est régressé depuis le nouveau but: R_j est la condition (fluents vrais et
+ *     faux) sous laquelle les pas j..n-1 s'appliquent et atteignent le but, R_n est le but. Une
+ *     recherche gloutonne bornée ({@code --repairNodes}, {@code --repairTime}) part de tous les
+ *     états du préfixe applicable (le premier pas en échec n'est pas toujours le bon point de
+ *     réparation, en particulier quand le but change) et s'arrête sur le premier état qui satisfait
+ *     un R_j; le plan réparé est le préfixe jusqu'à la racine, le chemin trouvé puis les pas
+ *     j..n-1, avec le plus grand j satisfait ({@link Outcome#REPAIRED}). Heuristique: longueur du
+ *     plan relâché ({@link RelaxedPlan}) vers le R_j le plus proche, bornée par celle du but;</li>
+ *     <li>si la réparation échoue, le planner résout le problème depuis le début
+ *     ({@link Outcome#SOLVED}).</li>
+ * </ol>
+ * La régression s'arrête (en partant de la fin) au premier pas dont l'action n'existe pas dans le
+ * nouveau problème ou a des effets conditionnels: seuls les pas suivants peuvent être rattachés.
+ * <p>
+ * Usage: {@code Replanner --previous PLAN [--output FILE] [--repairNodes N] [--repairTime MS]
+ * [--compare] <planner> [options] <domain> <problem>}, planner et options comme pour
+ * {@link PlanningServer}. Le plan précédent est au format des plans PDDL4J
+ * ({@code 0: (pick-up b) [1]}, ou simplement {@code (pick-up b)}, un pas par ligne); {@code --output}
+ * écrit le nouveau plan dans ce format. Avec {@code --compare}, une autre instance du planner résout
+ * aussi le problème depuis le début, après la replanification (JIT déjà chaud pour elle: le gain
+ * mesuré est plutôt sous-estimé), et le temps gagné est affiché ({@code RESULT: SAVED_MS}).
+ * </p>
+ * Les sorties RESULT du planner (résolution de repli, comparaison) sont supprimées: les lignes
+ * RESULT sont celles de la replanification. Code de sortie: 0 si un plan est trouvé.
+ */
+public final class Replanner {
+
+    private static final Logger LOGGER = LogManager.getLogger(Replanner.class.getName());
+
+    /**
+     * Pas d'un plan PDDL4J: {@code <t>: (<action> <args>) [<durée>]}, le temps et la durée étant
+     * optionnels.
+     */
+    private static final Pattern STEP = Pattern.compile("^\\s*(?:[0-9.]+\\s*:)?\\s*\\(([^()]*)\\)");
+
+    /**
+     * Issue d'une replanification.
+     */
+    public enum Outcome {
+        /**
+         * Le plan précédent (éventuellement raccourci) résout le nouveau problème.
+         */
+        REUSED,
+        /**
+         * Plan précédent réparé par la recherche bornée.
+         */
+        REPAIRED,
+        /**
+         * Réparation impossible: problème résolu depuis le début par le planner.
+         */
+        SOLVED,
+        /**
+         * Aucun plan.
+         */
+        FAILED
+    }
+
+    /**
+     * Résultat d'une replanification.
+     */
+    public static final class Result {
+
+        /**
+         * Le plan (null si {@link Outcome#FAILED}).
+         */
+        public final Plan plan;
+
+        /**
+         * L'issue.
+         */
+        public final Outcome outcome;
+
+        /**
+         * Indice du premier pas en échec (n si le plan s'applique sans atteindre le but), -1 si le
+         * plan est valide.
+         */
+        public final int firstFailure;
+
+        /**
+         * Nombre de pas du plan précédent gardés (préfixe et suite rattachée).
+         */
+        public final int reusedSteps;
+
+        /**
+         * Nombre de pas ajoutés par la réparation.
+         */
+        public final int repairSteps;
+
+        /**
+         * Nombre d'états générés par la réparation.
+         */
+        public final int repairNodes;
+
+        /**
+         * Durée de la replanification en ms (résolution de repli comprise).
+         */
+        public final long timeMs;
+
+        Result(final Plan plan, final Outcome outcome, final int firstFailure, final int reusedSteps,
+               final int repairSteps, final int repairNodes, final long timeMs) {
+            this.plan = plan;
+            this.outcome = outcome;
+            this.firstFailure = firstFailure;
+            this.reusedSteps = reusedSteps;
+            this.repairSteps = repairSteps;
+            this.repairNodes = repairNodes;
+            this.timeMs = timeMs;
+        }
+    }
+
+    /**
+     * Nœud de la recherche de réparation.
+     */
+    private static final class Node {
+        final State state;
+        final Node parent;
+        final int action;
+        final int g;
+        final int h;
+
+        Node(final State state, final Node parent, final int action, final int g, final int h) {
+            this.state = state;
+            this.parent = parent;
+            this.action = action;
+            this.g = g;
+            this.h = h;
+        }
+    }
+
+    private final AbstractPlanner planner;
+    private int repairNodes = 20000;
+    private long repairTimeMs = 1000;
+
+    /**
+     * Crée un replanner.
+     *
+     * @param planner le planner de la résolution de repli, déjà configuré; le problème à replanifier
+     *                doit avoir été instancié par lui.
+     */
+    public Replanner(final AbstractPlanner planner) {
+        this.planner = planner;
+    }
+
+    /**
+     * Nombre maximal d'états générés par la réparation (20000 par défaut).
+     */
+    public void setRepairNodes(final int nodes) {
+        if (nodes <= 0) {
+            throw new IllegalArgumentException("repairNodes must be > 0");
+        }
+        this.repairNodes = nodes;
+    }
+
+    /**
+     * Durée maximale de la réparation en ms (1000 par défaut).
+     */
+    public void setRepairTimeMs(final long timeMs) {
+        if (timeMs <= 0) {
+            throw new IllegalArgumentException("repairTime must be > 0");
+        }
+        this.repairTimeMs = timeMs;
+    }
+
+    /**
+     * Replanifie à partir d'un plan calculé pour un autre problème du même domaine.
+     *
+     * @param problem         le nouveau problème.
+     * @param previous        le plan précédent.
+     * @param previousProblem le problème du plan précédent (pour les noms de ses actions).
+     * @return le résultat.
+     */
+    public Result replan(final Problem problem, final SequentialPlan previous, final Problem previousProblem) {
+        final List<String> steps = new ArrayList<>();
+        for (Action a : previous.actions()) {
+            steps.add(previousProblem.toShortString(a));
+        }
+        return replan(problem, steps);
+    }
+
+    /**
+     * Replanifie à partir des noms des pas du plan précédent.
+     *
+     * @param problem  le nouveau problème.
+     * @param previous les pas du plan précédent, par exemple {@code pick-up b} (voir
+     *                 {@link #readPlan(Path)}).
+     * @return le résultat.
+     */
+    public Result replan(final Problem problem, final List<String> previous) {
+        final long start = System.currentTimeMillis();
+        final List<Action> actions = problem.getActions();
+        final Map<String, Integer> byName = new HashMap<>();
+        for (int i = 0; i < actions.size(); i++) {
+            byName.putIfAbsent(normalize(problem.toShortString(actions.get(i))), i);
+        }
+        final int n = previous.size();
+        final int[] steps = new int[n];
+        for (int j = 0; j < n; j++) {
+            steps[j] = byName.getOrDefault(normalize(previous.get(j)), -1);
+        }
+
+        // Préfixe applicable, coupé au premier état but; prefix.get(i): état après les pas 0..i-1
+        final Condition goal = problem.getGoal();
+        final List<State> prefix = new ArrayList<>();
+        State state = new State(problem.getInitialState());
+        prefix.add(state);
+        int k = 0;
+        while (k < n && !state.satisfy(goal) && steps[k] >= 0
+                && state.satisfy(actions.get(steps[k]).getPrecondition())) {
+            state = apply(state, actions.get(steps[k]));
+            prefix.add(state);
+            k++;
+        }
+        if (state.satisfy(goal)) {
+            LOGGER.info("Previous plan still valid ({} of {} steps)\n", k, n);
+            return new Result(plan(actions, steps, k, n, new int[0], n), Outcome.REUSED, -1, k, 0, 0,
+                    System.currentTimeMillis() - start);
+        }
+        LOGGER.info("Previous plan fails at step {} of {}\n", k, n);
+
+        final Targets targets = new Targets(goal, actions, steps, problem.getFluents().size());
+        final int[] repair = new int[3];
+        final int[] path = repair(problem, prefix, targets, repair);
+        if (path != null) {
+            final int i = repair[0];
+            final int j = repair[1];
+            LOGGER.info("Plan repaired with {} steps after step {}, reconnected at step {}\n", path.length, i, j);
+            return new Result(plan(actions, steps, i, j, path, n), Outcome.REPAIRED, k, i + n - j,
+                    path.length, repair[2], System.currentTimeMillis() - start);
+        }
+
+        LOGGER.info("Repair failed after {} nodes, solving from scratch\n", repair[2]);
+        Plan plan;
+        try {
+            plan = this.planner.solve(problem);
+        } catch (ProblemNotSupportedException | RuntimeException e) {
+            LOGGER.error("Full solve failed: {}\n", e.getMessage());
+            plan = null;
+        }
+        return new Result(plan, plan == null ? Outcome.FAILED : Outcome.SOLVED, k, 0, 0, repair[2],
+                System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Recherche gloutonne bornée d'un état qui satisfait un R_j, à partir de tous les états du
+     * préfixe applicable (racine i: état après les pas 0..i-1). Une racine qui satisfait déjà un
+     * R_j est prise sans recherche (celle qui donne le plan le plus court).
+     *
+     * @param stats en sortie: racine i, indice j du R_j satisfait, nombre d'états générés.
+     * @return les actions du chemin trouvé depuis la racine, ou null.
+     */
+    private int[] repair(final Problem problem, final List<State> prefix, final Targets targets,
+                         final int[] stats) {
+        final int n = targets.positive.length - 1;
+        int best = Integer.MAX_VALUE;
+        for (int i = 0; i < prefix.size(); i++) {
+            final int j = targets.reconnect(prefix.get(i));
+            if (j >= 0 && i + n - j < best) {
+                best = i + n - j;
+                stats[0] = i;
+                stats[1] = j;
+            }
+        }
+        if (best < Integer.MAX_VALUE) {
+            return new int[0];
+        }
+        final List<Action> actions = problem.getActions();
+        final PreconditionMatrix preconditions = new PreconditionMatrix(actions);
+        final long[] applicable = preconditions.newBitmap();
+        final RelaxedPlan relaxed = new RelaxedPlan(problem);
+        final Deadline deadline = Deadline.after(this.repairTimeMs);
+        final PriorityQueue<Node> open = new PriorityQueue<>(
+                Comparator.<Node>comparingInt(x -> x.h).thenComparingInt(x -> x.g));
+        final LongHashSet visited = new LongHashSet(1024);
+        for (int i = 0; i < prefix.size(); i++) {
+            final State root = prefix.get(i);
+            final int h = estimate(relaxed, targets, root);
+            if (visited.add(LongHashSet.fingerprint(root)) && h < Integer.MAX_VALUE) {
+                open.add(new Node(root, null, -1, i, h));
+            }
+        }
+        int nodes = 0;
+        while (!open.isEmpty() && nodes < this.repairNodes && !deadline.expired()) {
+            final Node node = open.poll();
+            preconditions.applicable(node.state, applicable);
+            for (int a = PreconditionMatrix.nextSetBit(applicable, 0); a >= 0 && nodes < this.repairNodes;
+                 a = PreconditionMatrix.nextSetBit(applicable, a + 1)) {
+                final State next = apply(node.state, actions.get(a));
+                if (!visited.add(LongHashSet.fingerprint(next))) {
+                    continue;
+                }
+                nodes++;
+                final int j = targets.reconnect(next);
+                if (j >= 0) {
+                    stats[1] = j;
+                    stats[2] = nodes;
+                    return path(new Node(next, node, a, node.g + 1, 0), stats);
+                }
+                final int h = estimate(relaxed, targets, next);
+                if (h < Integer.MAX_VALUE) {
+                    open.add(new Node(next, node, a, node.g + 1, h));
+                }
+            }
+        }
+        stats[2] = nodes;
+        return null;
+    }
+
+    /**
+     * Heuristique de la réparation: longueur du plan relâché vers le R_j le plus proche (le moins
+     * de fluents à changer), bornée par celle du but; {@link Integer#MAX_VALUE} si le but est
+     * inatteignable en relâché (impasse). Une seule exploration relâchée sert aux deux buts.
+     */
+    private static int estimate(final RelaxedPlan relaxed, final Targets targets, final State state) {
+        final int toGoal = relaxed.compute(state, null);
+        final int j = targets.closest(state);
+        if (toGoal == Integer.MAX_VALUE || j == targets.positive.length - 1) {
+            return toGoal;
+        }
+        return Math.min(toGoal, relaxed.extract(null, targets.fluents(j)));
+    }
+
+    /**
+     * Conditions de rattachement R_first..R_n (R_n: le but), en mots de 64 bits.
+     */
+    private static final class Targets {
+        final long[][] positive;
+        final long[][] negative;
+        final int first;
+        private final int[][] fluents;
+
+        /**
+         * Régresse le but par les pas du plan, du dernier au premier; s'arrête au premier pas
+         * d'action inconnue (-1), à effets conditionnels, ou dont la régression est incohérente.
+         */
+        Targets(final Condition goal, final List<Action> actions, final int[] steps, final int fluents) {
+            final int n = steps.length;
+            final int words = (fluents + 63) >>> 6;
+            this.positive = new long[n + 1][];
+            this.negative = new long[n + 1][];
+            this.fluents = new int[n + 1][];
+            this.positive[n] = dense(goal.getPositiveFluents(), words);
+            this.negative[n] = dense(goal.getNegativeFluents(), words);
+            int j = n - 1;
+            while (j >= 0 && steps[j] >= 0 && regress(actions.get(steps[j]), j, words)) {
+                j--;
+            }
+            this.first = j + 1;
+        }
+
+        /**
+         * Plus grand j tel que l'état satisfait R_j, ou -1.
+         */
+        int reconnect(final State state) {
+            final long[] s = state.toLongArray();
+            for (int j = this.positive.length - 1; j >= this.first; j--) {
+                if (missing(s, j) == 0) {
+                    return j;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Le R_j avec le moins de fluents à changer (le plus grand j à égalité).
+         */
+        int closest(final State state) {
+            final long[] s = state.toLongArray();
+            int best = this.positive.length - 1;
+            int min = Integer.MAX_VALUE;
+            for (int j = this.positive.length - 1; j >= this.first; j--) {
+                final int m = missing(s, j);
+                if (m < min) {
+                    min = m;
+                    best = j;
+                }
+            }
+            return best;
+        }
+
+        /**
+         * Fluents positifs de R_j (but du plan relâché), calculés au premier appel.
+         */
+        int[] fluents(final int j) {
+            if (this.fluents[j] == null) {
+                final List<Integer> list = new ArrayList<>();
+                for (int w = 0; w < this.positive[j].length; w++) {
+                    for (long b = this.positive[j][w]; b != 0; b &= b - 1) {
+                        list.add((w << 6) + Long.numberOfTrailingZeros(b));
+                    }
+                }
+                this.fluents[j] = list.stream().mapToInt(Integer::intValue).toArray();
+            }
+            return this.fluents[j];
+        }
+
+        private int missing(final long[] s, final int j) {
+            int count = 0;
+            for (int w = 0; w < this.positive[j].length; w++) {
+                final long sw = w < s.length ? s[w] : 0L;
+                count += Long.bitCount(this.positive[j][w] & ~sw) + Long.bitCount(this.negative[j][w] & sw);
+            }
+            return count;
+        }
+
+        /**
+         * Régresse R_{j+1} par l'action du pas j dans R_j.
+         *
+         * @return false si l'action a des effets conditionnels ou si R_j est incohérent (l'action
+         *         détruit un fluent requis ensuite, ou rend vrai un fluent requis faux).
+         */
+        private boolean regress(final Action action, final int j, final int words) {
+            final long[] add = dense(action.getUnconditionalEffect().getPositiveFluents(), words);
+            final long[] del = dense(action.getUnconditionalEffect().getNegativeFluents(), words);
+            for (ConditionalEffect ce : action.getConditionalEffects()) {
+                if (!ce.getCondition().getPositiveFluents().isEmpty()
+                        || !ce.getCondition().getNegativeFluents().isEmpty()) {
+                    return false;
+                }
+                or(add, dense(ce.getEffect().getPositiveFluents(), words));
+                or(del, dense(ce.getEffect().getNegativeFluents(), words));
+            }
+            final long[] pre = dense(action.getPrecondition().getPositiveFluents(), words);
+            final long[] preNeg = dense(action.getPrecondition().getNegativeFluents(), words);
+            final long[] p = new long[words];
+            final long[] q = new long[words];
+            for (int w = 0; w < words; w++) {
+                // State.apply retire les effets négatifs puis ajoute les positifs
+                final long deleted = del[w] & ~add[w];
+                if ((add[w] & this.negative[j + 1][w]) != 0 || (deleted & this.positive[j + 1][w]) != 0) {
+                    return false;
+                }
+                p[w] = (this.positive[j + 1][w] & ~add[w]) | pre[w];
+                q[w] = (this.negative[j + 1][w] & ~deleted) | preNeg[w];
+                if ((p[w] & q[w]) != 0) {
+                    return false;
+                }
+            }
+            this.positive[j] = p;
+            this.negative[j] = q;
+            return true;
+        }
+    }
+
+    private static long[] dense(final BitVector fluents, final int words) {
+        return Arrays.copyOf(fluents.toLongArray(), words);
+    }
+
+    private static void or(final long[] into, final long[] bits) {
+        for (int w = 0; w < into.length; w++) {
+            into[w] |= bits[w];
+        }
+    }
+
+    private static State apply(final State state, final Action action) {
+        final State next = new State(state);
+        next.apply(action.getUnconditionalEffect());
+        next.apply(action.getConditionalEffects());
+        return next;
+    }
+
+    /**
+     * Actions du chemin de la racine au nœud; {@code stats[0]} reçoit la racine (sa profondeur g
+     * est sa position dans le préfixe).
+     */
+    private static int[] path(Node node, final int[] stats) {
+        Node root = node;
+        while (root.parent != null) {
+            root = root.parent;
+        }
+        final int[] path = new int[node.g - root.g];
+        for (; node.parent != null; node = node.parent) {
+            path[node.g - root.g - 1] = node.action;
+        }
+        stats[0] = root.g;
+        return path;
+    }
+
+    /**
+     * Plan: pas 0..prefix-1 du plan précédent, chemin de réparation, pas suffix..n-1.
+     */
+    private static SequentialPlan plan(final List<Action> actions, final int[] steps, final int prefix,
+                                       final int suffix, final int[] path, final int n) {
+        final SequentialPlan plan = new SequentialPlan();
+        int time = 0;
+        for (int j = 0; j < prefix; j++) {
+            plan.add(time++, actions.get(steps[j]));
+        }
+        for (int a : path) {
+            plan.add(time++, actions.get(a));
+        }
+        for (int j = suffix; j < n; j++) {
+            plan.add(time++, actions.get(steps[j]));
+        }
+        return plan;
+    }
+
+    /**
+     * Nom d'action normalisé: minuscules, sans parenthèses, espaces simples.
+     */
+    private static String normalize(final String name) {
+        return name.replaceAll("[()]", " ").trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Lit un plan au format PDDL4J ({@code 0: (pick-up b) [1]}) ou un pas {@code (pick-up b)} par
+     * ligne; les autres lignes (vides, commentaires {@code ;}, logs) sont ignorées.
+     *
+     * @param file le fichier du plan.
+     * @return les noms des pas, dans l'ordre.
+     * @throws IOException si le fichier est illisible.
+     */
+    public static List<String> readPlan(final Path file) throws IOException {
+        final List<String> steps = new ArrayList<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            final Matcher m = STEP.matcher(line);
+            if (!line.trim().startsWith(";") && m.find()) {
+                steps.add(normalize(m.group(1)));
+            }
+        }
+        return steps;
+    }
+
+    public static void main(String[] args) throws Exception {
+        final List<String> argList = new ArrayList<>(Arrays.asList(args));
+        final String previous = take(argList, "--previous");
+        final String output = take(argList, "--output");
+        final String nodes = take(argList, "--repairNodes");
+        final String time = take(argList, "--repairTime");
+        final boolean compare = argList.remove("--compare");
+        if (previous == null || argList.isEmpty() || !PlanningServer.PLANNERS.containsKey(argList.get(0))) {
+            System.err.println("Usage: Replanner --previous PLAN [--output FILE] [--repairNodes N] "
+                    + "[--repairTime MS] [--compare] <planner> [options] <domain> <problem>");
+            System.err.println("planner: one of " + PlanningServer.PLANNERS.keySet());
+            System.exit(2);
+        }
+        final String name = argList.get(0);
+        final String[] plannerArgs = argList.subList(1, argList.size()).toArray(new String[0]);
+
+        final AbstractPlanner planner = PlanningServer.PLANNERS.get(name).get();
+        final Problem problem = instantiate(planner, plannerArgs);
+        if (problem == null) {
+            System.out.println("RESULT: FAILURE");
+            System.exit(1);
+        }
+        final Replanner replanner = new Replanner(planner);
+        if (nodes != null) {
+            replanner.setRepairNodes(Integer.parseInt(nodes));
+        }
+        if (time != null) {
+            replanner.setRepairTimeMs(Long.parseLong(time));
+        }
+        final List<String> steps = readPlan(Path.of(previous));
+        final Result result = quietly(() -> replanner.replan(problem, steps));
+
+        System.out.println(result.plan != null ? "RESULT: SUCCESS" : "RESULT: FAILURE");
+        System.out.println("RESULT: PLAN_LENGTH=" + (result.plan == null ? 0 : result.plan.size()));
+        System.out.println("RESULT: RUNTIME_MS=" + result.timeMs);
+        System.out.println("RESULT: REPLAN=" + result.outcome);
+        System.out.println("RESULT: PREVIOUS_LENGTH=" + steps.size());
+        System.out.println("RESULT: FIRST_FAILURE=" + result.firstFailure);
+        System.out.println("RESULT: REUSED_STEPS=" + result.reusedSteps);
+        System.out.println("RESULT: REPAIR_STEPS=" + result.repairSteps);
+        System.out.println("RESULT: REPAIR_NODES=" + result.repairNodes);
+
+        if (compare) {
+            // Résolution depuis le début par une nouvelle instance (même graine, même timeout)
+            final AbstractPlanner fresh = PlanningServer.PLANNERS.get(name).get();
+            final Problem freshProblem = instantiate(fresh, plannerArgs);
+            final long t0 = System.currentTimeMillis();
+            final Plan freshPlan = quietly(() -> fresh.solve(freshProblem));
+            final long freshMs = System.currentTimeMillis() - t0;
+            System.out.println("RESULT: FRESH_MS=" + freshMs);
+            System.out.println("RESULT: FRESH_PLAN_LENGTH=" + (freshPlan == null ? 0 : freshPlan.size()));
+            System.out.println("RESULT: SAVED_MS=" + (freshMs - result.timeMs));
+        }
+
+        if (result.plan != null) {
+            System.out.println(problem.toString(result.plan));
+            if (output != null) {
+                Files.writeString(Path.of(output), problem.toString(result.plan), StandardCharsets.UTF_8);
+            }
+        }
+        System.exit(result.plan != null ? 0 : 1);
+    }
+
+    /**
+     * Configure le planner avec ses options, analyse et instancie le problème (null si l'analyse
+     * échoue).
+     */
+    private static Problem instantiate(final AbstractPlanner planner, final String[] args) throws IOException {
+        new CommandLine(planner).parseArgs(args);
+        final long t0 = System.currentTimeMillis();
+        final DefaultParsedProblem parsed = planner.parse();
+        if (!planner.getParserErrorManager().isEmpty()) {
+            for (Message m : planner.getParserErrorManager().getMessages()) {
+                System.out.println("ERROR " + m);
+            }
+            return null;
+        }
+        planner.getStatistics().setTimeToParse(System.currentTimeMillis() - t0);
+        return planner.instantiate(parsed);
+    }
+
+    /**
+     * Exécute une tâche en supprimant la sortie standard (lignes RESULT et plan du planner); les
+     * logs log4j, attachés au flux d'origine, restent affichés.
+     */
+    private static <T> T quietly(final Callable<T> task) throws Exception {
+        final PrintStream stdout = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream(), true, StandardCharsets.UTF_8));
+        try {
+            return task.call();
+        } finally {
+            System.setOut(stdout);
+        }
+    }
+
+    /**
+     * Retire une option et sa valeur de la liste des arguments.
+     */
+    private static String take(final List<String> args, final String name) {
+        final int i = args.indexOf(name);
+        if (i < 0 || i + 1 >= args.size()) {
+            return null;
+        }
+        final String value = args.get(i + 1);
+        args.subList(i, i + 2).clear();
+        return value;
+    }
+}
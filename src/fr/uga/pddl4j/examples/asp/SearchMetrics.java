@@ -0,0 +1,211 @@
+package fr.uga.pddl4j.examples.asp;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import fr.uga.pddl4j.planners.Statistics;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+
+/**
+ * SearchMetrics: compteurs d'effort de recherche partagés par ASP, MCTSPlanner et RWPlanner.
+ * <p>
+ * Les compteurs sont des champs incrémentés directement par les planners. A la fin de la
+ * recherche, {@link #print(Statistics)} les émet sur la sortie standard au format
+ * {@code RESULT: KEY=value}, à côté de SUCCESS/FAILURE, PLAN_LENGTH et RUNTIME_MS, pour que
+ * BenchmarkRunner puisse les récupérer en colonnes CSV.
+ * </p>
+ * Définitions communes:
+ * <ul>
+ *     <li>nodesExpanded: états dont on a calculé les actions applicables;</li>
+ *     <li>nodesGenerated: états successeurs créés;</li>
+ *     <li>applicableChecks: tests de précondition {@code State.satisfy(Condition)};</li>
+ *     <li>-1: compteur que la recherche ne mesure pas (A* de PDDL4J: heuristicCalls et
+ *     applicableChecks), à ne pas confondre avec un effort nul;</li>
+ *     <li>timedOut: la recherche s'est arrêtée sur son échéance ({@link Deadline}), les compteurs
+ *     sont alors ceux de l'effort partiel.</li>
+ * </ul>
+ * La mémoire (PEAK_HEAP_BYTES, PEAK_RSS_KB) et le GC (GC_COUNT, GC_TIME_JVM_MS) sont mesurés sur
+ * toute la vie de la JVM, parsing et instanciation compris; GC_TIME_MS est le même temps GC,
+ * compté depuis le début de la recherche ({@link #start()}). PEAK_HEAP_BYTES est le plus grand
+ * tas occupé (tous pools confondus, au même instant): le tas ne fait que croître entre deux
+ * collections, son pic est donc relevé juste avant chaque GC (notifications des collecteurs,
+ * depuis le chargement de cette classe) et comparé à l'occupation au moment de l'impression. La
+ * somme des {@code getPeakUsage()} des pools le surestimerait: chaque pool a son pic à un
+ * instant différent (eden plein avant une collection, old après).
+ */
+final class SearchMetrics {
+
+    /**
+     * Plus grande occupation du tas relevée avant une collection.
+     */
+    private static final AtomicLong PEAK_HEAP = new AtomicLong();
+
+    static {
+        final Set<String> heapPools = new HashSet<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                heapPools.add(pool.getName());
+            }
+        }
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (gc instanceof NotificationEmitter) {
+                ((NotificationEmitter) gc).addNotificationListener((notification, handback) -> {
+                    if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION
+                            .equals(notification.getType())) {
+                        return;
+                    }
+                    final GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo
+                            .from((CompositeData) notification.getUserData());
+                    long used = 0;
+                    for (Map.Entry<String, MemoryUsage> e : info.getGcInfo().getMemoryUsageBeforeGc().entrySet()) {
+                        if (heapPools.contains(e.getKey())) {
+                            used += e.getValue().getUsed();
+                        }
+                    }
+                    PEAK_HEAP.accumulateAndGet(used, Math::max);
+                }, null, null);
+            }
+        }
+    }
+
+    long nodesExpanded;
+    long nodesGenerated;
+    long rollouts;
+    long rolloutSteps;
+    long heuristicCalls;
+    long restarts;
+    long applicableChecks;
+    boolean timedOut;
+
+    private long allocatedAtStart;
+    private long gcTimeAtStart;
+
+    /**
+     * Remet les compteurs à zéro et prend un instantané des octets alloués par le thread
+     * courant et du temps GC cumulé.
+     */
+    void start() {
+        this.nodesExpanded = 0;
+        this.nodesGenerated = 0;
+        this.rollouts = 0;
+        this.rolloutSteps = 0;
+        this.heuristicCalls = 0;
+        this.restarts = 0;
+        this.applicableChecks = 0;
+        this.timedOut = false;
+        this.allocatedAtStart = allocatedBytes();
+        this.gcTimeAtStart = gcTimeMs();
+    }
+
+    /**
+     * Emet les compteurs et les statistiques PDDL4J au format RESULT.
+     *
+     * @param stats les statistiques du planner (temps de parsing, d'encodage, de recherche...).
+     */
+    void print(final Statistics stats) {
+        final long allocated = allocatedBytes();
+        System.out.println("RESULT: NODES_EXPANDED=" + this.nodesExpanded);
+        System.out.println("RESULT: NODES_GENERATED=" + this.nodesGenerated);
+        System.out.println("RESULT: ROLLOUTS=" + this.rollouts);
+        System.out.println("RESULT: ROLLOUT_STEPS=" + this.rolloutSteps);
+        System.out.println("RESULT: HEURISTIC_CALLS=" + this.heuristicCalls);
+        System.out.println("RESULT: RESTARTS=" + this.restarts);
+        System.out.println("RESULT: APPLICABLE_CHECKS=" + this.applicableChecks);
+        System.out.println("RESULT: TIMED_OUT=" + (this.timedOut ? 1 : 0));
+        System.out.println("RESULT: BYTES_ALLOCATED=" + (allocated < 0 ? -1 : allocated - this.allocatedAtStart));
+        System.out.println("RESULT: GC_TIME_MS=" + (gcTimeMs() - this.gcTimeAtStart));
+        System.out.println("RESULT: PARSE_MS=" + stats.getTimeToParse());
+        System.out.println("RESULT: ENCODE_MS=" + stats.getTimeToEncode());
+        System.out.println("RESULT: SEARCH_MS=" + stats.getTimeToSearch());
+        System.out.println("RESULT: SEARCH_MEMORY_BYTES=" + stats.getMemoryUsedToSearch());
+        System.out.println("RESULT: ACTIONS=" + stats.getNumberOfActions());
+        System.out.println("RESULT: FLUENTS=" + stats.getNumberOfRelevantFluents());
+        System.out.println("RESULT: PEAK_HEAP_BYTES=" + peakHeapBytes());
+        System.out.println("RESULT: PEAK_RSS_KB=" + readVmHwmKb(Paths.get("/proc/self/status")));
+        System.out.println("RESULT: GC_COUNT=" + gcCount());
+        System.out.println("RESULT: GC_TIME_JVM_MS=" + gcTimeMs());
+    }
+
+    /**
+     * Lit VmHWM (pic de RSS, en kB) dans un fichier /proc/&lt;pid&gt;/status.
+     *
+     * @param status le chemin du fichier status.
+     * @return le pic de RSS en kB, ou -1 si indisponible (process terminé, OS sans /proc...).
+     */
+    static long readVmHwmKb(final Path status) {
+        try {
+            for (String line : Files.readAllLines(status)) {
+                if (line.startsWith("VmHWM:")) {
+                    return Long.parseLong(line.substring(6).replace("kB", "").trim());
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // pas de /proc (macOS, Windows) ou process déjà terminé
+        }
+        return -1;
+    }
+
+    /**
+     * Plus grande occupation du tas: le maximum des relevés avant GC et de l'occupation actuelle.
+     */
+    private static long peakHeapBytes() {
+        final MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        return PEAK_HEAP.accumulateAndGet(heap.getUsed(), Math::max);
+    }
+
+    /**
+     * Nombre cumulé de collections de tous les collecteurs.
+     */
+    private static long gcCount() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            final long c = gc.getCollectionCount();
+            if (c > 0) {
+                total += c;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Octets alloués par le thread courant (-1 si la JVM ne le supporte pas).
+     */
+    private static long allocatedBytes() {
+        final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            final com.sun.management.ThreadMXBean sun = (com.sun.management.ThreadMXBean) bean;
+            if (sun.isThreadAllocatedMemorySupported() && sun.isThreadAllocatedMemoryEnabled()) {
+                return sun.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Temps GC cumulé de tous les collecteurs (ms).
+     */
+    private static long gcTimeMs() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            final long t = gc.getCollectionTime();
+            if (t > 0) {
+                total += t;
+            }
+        }
+        return total;
+    }
+}
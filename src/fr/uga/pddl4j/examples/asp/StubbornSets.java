@@ -0,0 +1,296 @@
+package fr.uga.pddl4j.examples.asp;
+
+import fr.uga.pddl4j.problem.Problem;
+import fr.uga.pddl4j.problem.State;
+import fr.uga.pddl4j.problem.operator.Action;
+import fr.uga.pddl4j.problem.operator.ConditionalEffect;
+import fr.uga.pddl4j.util.BitVector;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * StubbornSets: réduction d'ordre partiel par ensembles têtus forts (strong stubborn sets).
+ * <p>
+ * Dans un état s non but, l'ensemble têtu T est construit par point fixe:
+ * </p>
+ * <ul>
+ *     <li>T contient les achievers d'un littéral du but faux dans s;</li>
+ *     <li>pour une action de T non applicable dans s, T contient les achievers d'une de ses
+ *     préconditions fausses dans s (ensemble nécessaire d'activation);</li>
+ *     <li>pour une action de T applicable dans s, T contient toutes les actions qui interfèrent
+ *     avec elle (l'une désactive l'autre ou leurs effets se contredisent).</li>
+ * </ul>
+ * Seules les actions applicables de T sont développées. Le littéral choisi est à chaque fois
+ * celui qui a le moins d'achievers. Cette réduction conserve la complétude et les plans
+ * optimaux de l'A*. Elle n'est définie que pour des actions sans effet conditionnel: avec des
+ * conditions non vides, {@link #of(Problem)} retourne null.
+ * <p>
+ * Sur certains domaines (blocks) les ensembles têtus contiennent presque toujours toutes les
+ * actions applicables: la réduction ne coûte alors que son calcul. Après {@link #CHECK_AFTER}
+ * appels, elle se désactive pour le reste de la recherche si elle a élagué moins de
+ * {@link #MIN_PRUNED_RATIO} des actions applicables.
+ * </p>
+ */
+final class StubbornSets {
+
+    private static final Logger LOGGER = LogManager.getLogger(StubbornSets.class.getName());
+
+    /**
+     * Nombre d'appels à {@link #prune} avant de juger l'efficacité de la réduction.
+     */
+    static final int CHECK_AFTER = 300;
+
+    /**
+     * Fraction minimale des actions applicables élaguées pour garder la réduction.
+     */
+    static final double MIN_PRUNED_RATIO = 0.1;
+
+    private final int nbActions;
+    private final BitVector[] prePos;
+    private final BitVector[] preNeg;
+    private final BitVector[] add;
+    private final BitVector[] del;
+    private final int[][] adders;
+    private final int[][] deleters;
+    private final int[][] posUsers;
+    private final int[][] negUsers;
+    private final BitVector goalPos;
+    private final BitVector goalNeg;
+
+    /**
+     * Actions qui interfèrent avec chaque action (calculées au premier besoin).
+     */
+    private final int[][] interference;
+
+    private final int[] inSet;
+    private final int[] applicableMark;
+    private final int[] stack;
+    private int stamp;
+
+    private long calls;
+    private long applicableTotal;
+    private long keptTotal;
+    private boolean disabled;
+
+    private StubbornSets(final Problem problem) {
+        final List<Action> actions = problem.getActions();
+        final int nbFluents = problem.getFluents().size();
+        this.nbActions = actions.size();
+        this.prePos = new BitVector[this.nbActions];
+        this.preNeg = new BitVector[this.nbActions];
+        this.add = new BitVector[this.nbActions];
+        this.del = new BitVector[this.nbActions];
+        final List<List<Integer>> addersList = lists(nbFluents);
+        final List<List<Integer>> deletersList = lists(nbFluents);
+        final List<List<Integer>> posUsersList = lists(nbFluents);
+        final List<List<Integer>> negUsersList = lists(nbFluents);
+        for (int a = 0; a < this.nbActions; a++) {
+            final Action action = actions.get(a);
+            this.prePos[a] = action.getPrecondition().getPositiveFluents();
+            this.preNeg[a] = action.getPrecondition().getNegativeFluents();
+            this.add[a] = new BitVector();
+            this.del[a] = new BitVector();
+            for (ConditionalEffect ce : action.getConditionalEffects()) {
+                this.add[a].or(ce.getEffect().getPositiveFluents());
+                this.del[a].or(ce.getEffect().getNegativeFluents());
+            }
+            index(this.add[a], a, addersList);
+            index(this.del[a], a, deletersList);
+            index(this.prePos[a], a, posUsersList);
+            index(this.preNeg[a], a, negUsersList);
+        }
+        this.adders = arrays(addersList);
+        this.deleters = arrays(deletersList);
+        this.posUsers = arrays(posUsersList);
+        this.negUsers = arrays(negUsersList);
+        this.goalPos = problem.getGoal().getPositiveFluents();
+        this.goalNeg = problem.getGoal().getNegativeFluents();
+        this.interference = new int[this.nbActions][];
+        this.inSet = new int[this.nbActions];
+        this.applicableMark = new int[this.nbActions];
+        this.stack = new int[this.nbActions];
+    }
+
+    /**
+     * Prépare la réduction pour un problème.
+     *
+     * @param problem le problème instancié.
+     * @return la réduction, ou null si une action a un effet conditionnel de condition non vide.
+     */
+    static StubbornSets of(final Problem problem) {
+        for (Action a : problem.getActions()) {
+            for (ConditionalEffect ce : a.getConditionalEffects()) {
+                if (!ce.getCondition().isEmpty()) {
+                    return null;
+                }
+            }
+        }
+        return new StubbornSets(problem);
+    }
+
+    /**
+     * Réduit les actions applicables d'un état à celles de l'ensemble têtu; les garde toutes une
+     * fois la réduction désactivée faute d'élaguer assez.
+     *
+     * @param state      l'état développé.
+     * @param applicable les indices des actions applicables dans l'état; les actions gardées sont
+     *                   regroupées au début du tableau.
+     * @param count      le nombre d'actions applicables.
+     * @return le nombre d'actions gardées.
+     */
+    int prune(final State state, final int[] applicable, final int count) {
+        if (this.disabled) {
+            return count;
+        }
+        final int kept = this.reduce(state, applicable, count);
+        this.applicableTotal += count;
+        this.keptTotal += kept;
+        if (++this.calls == CHECK_AFTER) {
+            final double ratio = this.applicableTotal == 0 ? 0
+                    : (double) (this.applicableTotal - this.keptTotal) / this.applicableTotal;
+            if (ratio < MIN_PRUNED_RATIO) {
+                this.disabled = true;
+                LOGGER.info("* Partial-order reduction disabled after {} expansions: {}% of the applicable "
+                        + "actions pruned\n", this.calls, String.format("%.1f", 100 * ratio));
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * Calcule l'ensemble têtu d'un état et y réduit les actions applicables.
+     */
+    private int reduce(final State state, final int[] applicable, final int count) {
+        if (++this.stamp == 0) {
+            Arrays.fill(this.inSet, 0);
+            Arrays.fill(this.applicableMark, 0);
+            this.stamp = 1;
+        }
+        for (int i = 0; i < count; i++) {
+            this.applicableMark[applicable[i]] = this.stamp;
+        }
+
+        // Littéral du but faux avec le moins d'achievers
+        int[] seed = null;
+        for (int f = this.goalPos.nextSetBit(0); f >= 0; f = this.goalPos.nextSetBit(f + 1)) {
+            if (!state.get(f) && (seed == null || this.adders[f].length < seed.length)) {
+                seed = this.adders[f];
+            }
+        }
+        for (int f = this.goalNeg.nextSetBit(0); f >= 0; f = this.goalNeg.nextSetBit(f + 1)) {
+            if (state.get(f) && (seed == null || this.deleters[f].length < seed.length)) {
+                seed = this.deleters[f];
+            }
+        }
+        if (seed == null) {
+            return count; // état but
+        }
+
+        int top = this.push(seed, 0);
+        while (top > 0) {
+            final int a = this.stack[--top];
+            if (this.applicableMark[a] == this.stamp) {
+                top = this.push(this.interference(a), top);
+            } else {
+                top = this.push(this.enablers(a, state), top);
+            }
+        }
+
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            if (this.inSet[applicable[i]] == this.stamp) {
+                final int a = applicable[i];
+                applicable[i] = applicable[kept];
+                applicable[kept++] = a;
+            }
+        }
+        return kept;
+    }
+
+    private int push(final int[] actions, int top) {
+        for (int a : actions) {
+            if (this.inSet[a] != this.stamp) {
+                this.inSet[a] = this.stamp;
+                this.stack[top++] = a;
+            }
+        }
+        return top;
+    }
+
+    /**
+     * Achievers de la précondition fausse de l'action qui en a le moins.
+     */
+    private int[] enablers(final int a, final State state) {
+        int[] best = null;
+        for (int f = this.prePos[a].nextSetBit(0); f >= 0; f = this.prePos[a].nextSetBit(f + 1)) {
+            if (!state.get(f) && (best == null || this.adders[f].length < best.length)) {
+                best = this.adders[f];
+            }
+        }
+        for (int f = this.preNeg[a].nextSetBit(0); f >= 0; f = this.preNeg[a].nextSetBit(f + 1)) {
+            if (state.get(f) && (best == null || this.deleters[f].length < best.length)) {
+                best = this.deleters[f];
+            }
+        }
+        return best == null ? new int[0] : best;
+    }
+
+    /**
+     * Actions qui interfèrent avec a: qui désactivent a, que a désactive, ou dont les effets
+     * contredisent ceux de a.
+     */
+    private int[] interference(final int a) {
+        if (this.interference[a] == null) {
+            final BitVector set = new BitVector();
+            for (int f = this.prePos[a].nextSetBit(0); f >= 0; f = this.prePos[a].nextSetBit(f + 1)) {
+                mark(set, this.deleters[f]);
+            }
+            for (int f = this.preNeg[a].nextSetBit(0); f >= 0; f = this.preNeg[a].nextSetBit(f + 1)) {
+                mark(set, this.adders[f]);
+            }
+            for (int f = this.del[a].nextSetBit(0); f >= 0; f = this.del[a].nextSetBit(f + 1)) {
+                mark(set, this.posUsers[f]);
+                mark(set, this.adders[f]);
+            }
+            for (int f = this.add[a].nextSetBit(0); f >= 0; f = this.add[a].nextSetBit(f + 1)) {
+                mark(set, this.negUsers[f]);
+                mark(set, this.deleters[f]);
+            }
+            set.clear(a);
+            this.interference[a] = set.stream().toArray();
+        }
+        return this.interference[a];
+    }
+
+    private static void mark(final BitVector set, final int[] actions) {
+        for (int a : actions) {
+            set.set(a);
+        }
+    }
+
+    private static void index(final BitVector fluents, final int a, final List<List<Integer>> lists) {
+        for (int f = fluents.nextSetBit(0); f >= 0; f = fluents.nextSetBit(f + 1)) {
+            lists.get(f).add(a);
+        }
+    }
+
+    private static List<List<Integer>> lists(final int n) {
+        final List<List<Integer>> lists = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            lists.add(new ArrayList<>());
+        }
+        return lists;
+    }
+
+    private static int[][] arrays(final List<List<Integer>> lists) {
+        final int[][] arrays = new int[lists.size()][];
+        for (int i = 0; i < arrays.length; i++) {
+            arrays[i] = lists.get(i).stream().mapToInt(Integer::intValue).toArray();
+        }
+        return arrays;
+    }
+}
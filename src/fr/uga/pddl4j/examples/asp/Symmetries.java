@@ -0,0 +1,352 @@
+package fr.uga.pddl4j.examples.asp;
+
+import fr.uga.pddl4j.problem.Fluent;
+import fr.uga.pddl4j.problem.Problem;
+import fr.uga.pddl4j.problem.State;
+import fr.uga.pddl4j.problem.operator.Action;
+import fr.uga.pddl4j.problem.operator.ConditionalEffect;
+import fr.uga.pddl4j.util.BitVector;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Symmetries: symétries d'objets d'un problème instancié et forme canonique des états.
+ * <p>
+ * Une transposition de deux objets (par exemple deux balles de gripper) induit une permutation
+ * des fluents et des actions instanciées, obtenue en échangeant les deux objets dans leurs
+ * arguments. C'est un automorphisme du graphe de description du problème si elle envoie
+ * chaque fluent et chaque action sur un fluent et une action existants, chaque action sur une
+ * action de mêmes préconditions et effets permutés, et laisse l'état initial et le but
+ * invariants. Les transpositions vérifiées engendrent le groupe de symétries utilisé.
+ * </p>
+ * La forme canonique d'un état est obtenue en appliquant les transpositions tant que l'une
+ * d'elles rend l'état plus grand dans l'ordre lexicographique (premier fluent différent vrai).
+ * Le résultat n'est pas toujours le plus grand état de l'orbite, mais il lui est toujours
+ * symétrique: deux états de même forme canonique ont des distances au but égales, ce qui suffit
+ * à la détection des doublons de l'A*.
+ */
+final class Symmetries {
+
+    private static final Logger LOGGER = LogManager.getLogger(Symmetries.class.getName());
+
+    /**
+     * Pour chaque transposition: paires de fluents échangés (f, g) avec f &lt; g, triées par f.
+     */
+    private final int[][] swaps;
+
+    private Symmetries(final int[][] swaps) {
+        this.swaps = swaps;
+    }
+
+    /**
+     * Nombre de transpositions d'objets retenues.
+     */
+    int size() {
+        return this.swaps.length;
+    }
+
+    /**
+     * Détecte les symétries d'objets d'un problème.
+     *
+     * @param problem le problème instancié (et éventuellement réduit).
+     * @return les symétries, ou null si le problème n'en a aucune ou n'est pas propositionnel.
+     */
+    static Symmetries of(final Problem problem) {
+        if (problem.getGoal() == null || !ProblemReducer.isSupported(problem)) {
+            return null;
+        }
+        final long t0 = System.currentTimeMillis();
+        final Builder builder = new Builder(problem);
+        final List<int[]> swaps = new ArrayList<>();
+        // Classes d'objets interchangeables (union-find sur les transpositions vérifiées)
+        final int[] parent = new int[problem.getConstantSymbols().size()];
+        Arrays.setAll(parent, o -> o);
+        for (int a = 0; a < parent.length; a++) {
+            for (int b = a + 1; b < parent.length; b++) {
+                final int[] swap = builder.verify(a, b);
+                if (swap != null) {
+                    swaps.add(swap);
+                    parent[find(parent, b)] = find(parent, a);
+                }
+            }
+        }
+        final BitVector roots = new BitVector();
+        for (int o = 0; o < parent.length; o++) {
+            if (find(parent, o) != o) {
+                roots.set(find(parent, o));
+            }
+        }
+        LOGGER.info("* Symmetries: {} object transpositions in {} classes detected in {} ms\n", swaps.size(),
+                roots.cardinality(), System.currentTimeMillis() - t0);
+        return swaps.isEmpty() ? null : new Symmetries(swaps.toArray(new int[0][]));
+    }
+
+    /**
+     * Forme canonique d'un état.
+     *
+     * @param state l'état.
+     * @return l'état lui-même s'il est déjà canonique, sinon un nouvel état symétrique.
+     */
+    State canonical(final State state) {
+        State s = state;
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int[] swap : this.swaps) {
+                for (int i = 0; i < swap.length; i += 2) {
+                    final boolean f = s.get(swap[i]);
+                    if (f != s.get(swap[i + 1])) {
+                        if (!f) {
+                            // Le premier fluent différent devient vrai: l'état grandit
+                            if (s == state) {
+                                s = new State(state);
+                            }
+                            apply(s, swap);
+                            changed = true;
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+        return s;
+    }
+
+    private static int find(final int[] parent, final int o) {
+        int r = o;
+        while (parent[r] != r) {
+            r = parent[r];
+        }
+        return r;
+    }
+
+    private static void apply(final State s, final int[] swap) {
+        for (int i = 0; i < swap.length; i += 2) {
+            final boolean f = s.get(swap[i]);
+            final boolean g = s.get(swap[i + 1]);
+            if (f != g) {
+                s.set(swap[i], g);
+                s.set(swap[i + 1], f);
+            }
+        }
+    }
+
+    /**
+     * Index du problème pour vérifier les transpositions.
+     */
+    private static final class Builder {
+        final List<Fluent> fluents;
+        final List<Action> actions;
+        final Map<String, Integer> fluentIds = new HashMap<>();
+        final Map<String, Integer> actionIds = new HashMap<>();
+        final List<List<Integer>> fluentsOf = new ArrayList<>();
+        final List<List<Integer>> actionsOf = new ArrayList<>();
+        final List<List<Integer>> actionsUsing = new ArrayList<>();
+        final BitVector init;
+        final BitVector goalPos;
+        final BitVector goalNeg;
+
+        /**
+         * Permutation courante des fluents (identité hors de la transposition vérifiée).
+         */
+        final int[] perm;
+
+        Builder(final Problem problem) {
+            this.fluents = problem.getFluents();
+            this.actions = problem.getActions();
+            final int nbObjects = problem.getConstantSymbols().size();
+            for (int o = 0; o < nbObjects; o++) {
+                this.fluentsOf.add(new ArrayList<>());
+                this.actionsOf.add(new ArrayList<>());
+            }
+            for (int f = 0; f < this.fluents.size(); f++) {
+                // Fluent.equals compare les tableaux d'arguments par référence: clé textuelle
+                this.fluentIds.put(key(this.fluents.get(f).getSymbol(), this.fluents.get(f).getArguments()), f);
+                this.actionsUsing.add(new ArrayList<>());
+                for (int o : distinct(this.fluents.get(f).getArguments())) {
+                    this.fluentsOf.get(o).add(f);
+                }
+            }
+            for (int a = 0; a < this.actions.size(); a++) {
+                final Action action = this.actions.get(a);
+                this.actionIds.put(key(action.getName(), action.getInstantiations()), a);
+                for (int o : distinct(action.getInstantiations())) {
+                    this.actionsOf.get(o).add(a);
+                }
+                final BitVector used = new BitVector(action.getPrecondition().getPositiveFluents());
+                used.or(action.getPrecondition().getNegativeFluents());
+                for (ConditionalEffect ce : action.getConditionalEffects()) {
+                    used.or(ce.getCondition().getPositiveFluents());
+                    used.or(ce.getCondition().getNegativeFluents());
+                    used.or(ce.getEffect().getPositiveFluents());
+                    used.or(ce.getEffect().getNegativeFluents());
+                }
+                for (int f = used.nextSetBit(0); f >= 0; f = used.nextSetBit(f + 1)) {
+                    this.actionsUsing.get(f).add(a);
+                }
+            }
+            this.init = problem.getInitialState().getPositiveFluents();
+            this.goalPos = problem.getGoal().getPositiveFluents();
+            this.goalNeg = problem.getGoal().getNegativeFluents();
+            this.perm = new int[this.fluents.size()];
+            Arrays.setAll(this.perm, f -> f);
+        }
+
+        /**
+         * Vérifie la transposition des objets a et b.
+         *
+         * @return les paires de fluents échangés, ou null si ce n'est pas une symétrie.
+         */
+        int[] verify(final int a, final int b) {
+            final List<Integer> fa = this.fluentsOf.get(a);
+            final List<Integer> fb = this.fluentsOf.get(b);
+            if (fa.isEmpty() || fa.size() != fb.size()
+                    || this.actionsOf.get(a).size() != this.actionsOf.get(b).size()) {
+                return null;
+            }
+            // Permutation des fluents (un fluent peut porter à la fois sur a et sur b)
+            final BitVector moved = new BitVector();
+            fa.forEach(moved::set);
+            fb.forEach(moved::set);
+            final List<Integer> pairs = new ArrayList<>();
+            try {
+                for (int f = moved.nextSetBit(0); f >= 0; f = moved.nextSetBit(f + 1)) {
+                    final Fluent fluent = this.fluents.get(f);
+                    final Integer g = this.fluentIds.get(key(fluent.getSymbol(), swap(fluent.getArguments(), a, b)));
+                    if (g == null) {
+                        return null;
+                    }
+                    this.perm[f] = g;
+                    if (f < g) {
+                        pairs.add(f);
+                        pairs.add(g);
+                    }
+                }
+                if (!this.invariant(pairs)) {
+                    return null;
+                }
+                // Permutation des actions: chaque action touchée doit avoir une image identique
+                final BitVector touched = new BitVector();
+                for (int o : new int[] {a, b}) {
+                    for (int act : this.actionsOf.get(o)) {
+                        touched.set(act);
+                    }
+                    for (int f : this.fluentsOf.get(o)) {
+                        for (int act : this.actionsUsing.get(f)) {
+                            touched.set(act);
+                        }
+                    }
+                }
+                for (int act = touched.nextSetBit(0); act >= 0; act = touched.nextSetBit(act + 1)) {
+                    final Action action = this.actions.get(act);
+                    final Integer image = this.actionIds.get(key(action.getName(),
+                            swap(action.getInstantiations(), a, b)));
+                    if (image == null || !this.sameAction(action, this.actions.get(image))) {
+                        return null;
+                    }
+                }
+                return sortedPairs(pairs);
+            } finally {
+                for (int f = moved.nextSetBit(0); f >= 0; f = moved.nextSetBit(f + 1)) {
+                    this.perm[f] = f;
+                }
+            }
+        }
+
+        /**
+         * Vrai si l'état initial et le but sont invariants par la permutation.
+         */
+        private boolean invariant(final List<Integer> pairs) {
+            for (int i = 0; i < pairs.size(); i += 2) {
+                final int f = pairs.get(i);
+                final int g = pairs.get(i + 1);
+                if (this.init.get(f) != this.init.get(g) || this.goalPos.get(f) != this.goalPos.get(g)
+                        || this.goalNeg.get(f) != this.goalNeg.get(g)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Vrai si l'image de l'action par la permutation a les mêmes préconditions et effets que
+         * l'action image.
+         */
+        private boolean sameAction(final Action action, final Action image) {
+            if (!this.permuted(action.getPrecondition().getPositiveFluents())
+                    .equals(image.getPrecondition().getPositiveFluents())
+                    || !this.permuted(action.getPrecondition().getNegativeFluents())
+                    .equals(image.getPrecondition().getNegativeFluents())
+                    || action.getConditionalEffects().size() != image.getConditionalEffects().size()) {
+                return false;
+            }
+            for (ConditionalEffect ce : action.getConditionalEffects()) {
+                boolean found = false;
+                for (ConditionalEffect other : image.getConditionalEffects()) {
+                    if (this.permuted(ce.getCondition().getPositiveFluents())
+                            .equals(other.getCondition().getPositiveFluents())
+                            && this.permuted(ce.getCondition().getNegativeFluents())
+                            .equals(other.getCondition().getNegativeFluents())
+                            && this.permuted(ce.getEffect().getPositiveFluents())
+                            .equals(other.getEffect().getPositiveFluents())
+                            && this.permuted(ce.getEffect().getNegativeFluents())
+                            .equals(other.getEffect().getNegativeFluents())) {
+                        found = true;
+                        break;
+                    }
+                }
+                if (!found) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private BitVector permuted(final BitVector fluents) {
+            final BitVector image = new BitVector();
+            for (int f = fluents.nextSetBit(0); f >= 0; f = fluents.nextSetBit(f + 1)) {
+                image.set(this.perm[f]);
+            }
+            return image;
+        }
+
+        private static int[] sortedPairs(final List<Integer> pairs) {
+            final int n = pairs.size() / 2;
+            final Integer[] order = new Integer[n];
+            Arrays.setAll(order, i -> i);
+            Arrays.sort(order, (i, j) -> Integer.compare(pairs.get(2 * i), pairs.get(2 * j)));
+            final int[] sorted = new int[pairs.size()];
+            for (int i = 0; i < n; i++) {
+                sorted[2 * i] = pairs.get(2 * order[i]);
+                sorted[2 * i + 1] = pairs.get(2 * order[i] + 1);
+            }
+            return sorted;
+        }
+
+        private static int[] swap(final int[] args, final int a, final int b) {
+            final int[] swapped = args.clone();
+            for (int i = 0; i < swapped.length; i++) {
+                if (swapped[i] == a) {
+                    swapped[i] = b;
+                } else if (swapped[i] == b) {
+                    swapped[i] = a;
+                }
+            }
+            return swapped;
+        }
+
+        private static int[] distinct(final int[] args) {
+            return Arrays.stream(args).filter(o -> o >= 0).distinct().toArray();
+        }
+
+        private static String key(final Object symbol, final int[] args) {
+            return symbol + Arrays.toString(args);
+        }
+    }
+}